@@ -0,0 +1,241 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import com.orsonpdf.filter.Filter;
+import com.orsonpdf.filter.FilterType;
+import com.orsonpdf.filter.FlateFilter;
+import java.util.Arrays;
+
+/**
+ * A {@link CompressionPolicy} that adjusts the compression level to keep 
+ * the encoding time within a budget, expressed as a maximum number of 
+ * milliseconds per megabyte of raw stream data.  The time taken to encode
+ * each stream is measured and a moving average is kept for each level;
+ * the level for later streams is lowered when the current level exceeds 
+ * the budget and raised again when there is room for it.  The levels that
+ * were chosen can be read back with {@link #getLevelCounts()}.
+ * <p>
+ * Small and incompressible streams are handled as in 
+ * {@link DefaultCompressionPolicy}.  The budget can be changed at any 
+ * time (for example, lowered during peak load) and takes effect for the 
+ * next stream encoded.
+ * 
+ * @since 1.9
+ */
+public class AdaptiveCompressionPolicy extends DefaultCompressionPolicy {
+    
+    /** Streams smaller than this are not used to measure throughput. */
+    private static final int MIN_SAMPLE_SIZE = 4096;
+    
+    /** The weight given to each new measurement in the moving averages. */
+    private static final double SMOOTHING = 0.25;
+    
+    /** The lowest level that will be chosen. */
+    private static final int MIN_LEVEL = 1;
+    
+    /** The highest level that will be chosen. */
+    private static final int MAX_LEVEL = 9;
+    
+    /** The encoding time budget, in milliseconds per megabyte. */
+    private double maxMillisPerMB;
+    
+    /** The level used for the next stream. */
+    private int currentLevel;
+    
+    /** 
+     * The average encoding time at each level (milliseconds per megabyte), 
+     * or {@code NaN} where there is no measurement yet. 
+     */
+    private double[] millisPerMB;
+    
+    /** The number of streams encoded at each level. */
+    private int[] levelCounts;
+
+    /**
+     * Creates a new policy with the specified budget.  The initial level is
+     * 6 (the {@code Deflater} default).
+     * 
+     * @param maxMillisPerMB  the maximum encoding time in milliseconds per
+     *     megabyte of raw data (must be greater than zero).
+     */
+    public AdaptiveCompressionPolicy(double maxMillisPerMB) {
+        super();
+        setMaxMillisPerMB(maxMillisPerMB);
+        this.currentLevel = 6;
+        this.millisPerMB = new double[MAX_LEVEL + 1];
+        Arrays.fill(this.millisPerMB, Double.NaN);
+        this.levelCounts = new int[MAX_LEVEL + 1];
+    }
+
+    /**
+     * Returns the encoding time budget in milliseconds per megabyte.
+     * 
+     * @return The budget. 
+     */
+    public synchronized double getMaxMillisPerMB() {
+        return this.maxMillisPerMB;
+    }
+    
+    /**
+     * Sets the encoding time budget in milliseconds per megabyte.
+     * 
+     * @param maxMillisPerMB  the budget (must be greater than zero).
+     */
+    public synchronized void setMaxMillisPerMB(double maxMillisPerMB) {
+        if (!(maxMillisPerMB > 0.0)) {
+            throw new IllegalArgumentException(
+                    "Requires 'maxMillisPerMB' > 0.");
+        }
+        this.maxMillisPerMB = maxMillisPerMB;
+    }
+
+    /**
+     * Returns the level that will be used for the next stream.
+     * 
+     * @return The level (1 to 9). 
+     */
+    public synchronized int getCurrentLevel() {
+        return this.currentLevel;
+    }
+    
+    /**
+     * Returns the number of streams encoded at each level, in an array 
+     * indexed by level (0 to 9).
+     * 
+     * @return The counts (a new array). 
+     */
+    public synchronized int[] getLevelCounts() {
+        return this.levelCounts.clone();
+    }
+    
+    /**
+     * Returns the measured average encoding time at the specified level, in
+     * milliseconds per megabyte, or {@code NaN} if no stream large enough 
+     * to measure has been encoded at that level.
+     * 
+     * @param level  the level (0 to 9).
+     * 
+     * @return The average encoding time. 
+     */
+    public synchronized double getMillisPerMB(int level) {
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Invalid 'level': " + level);
+        }
+        return this.millisPerMB[level];
+    }
+
+    /**
+     * Creates a filter that compresses at the current level and records 
+     * the time taken.
+     * 
+     * @param stream  the stream ({@code null} not permitted).
+     * @param strategy  the strategy (see {@code Deflater}).
+     * 
+     * @return The filter (never {@code null}).
+     */
+    @Override
+    protected Filter createFilter(Stream stream, int strategy) {
+        int level;
+        synchronized (this) {
+            level = this.currentLevel;
+            this.levelCounts[level]++;
+        }
+        return new TimedFilter(new FlateFilter(level, strategy), level);
+    }
+    
+    /**
+     * Records the time taken to encode some data at the specified level and
+     * updates the level for later streams.
+     * 
+     * @param level  the level.
+     * @param length  the number of bytes encoded.
+     * @param nanos  the elapsed time in nanoseconds.
+     */
+    synchronized void record(int level, int length, long nanos) {
+        if (length < MIN_SAMPLE_SIZE) {
+            return;
+        }
+        double ms = (nanos / 1000000.0) / (length / (1024.0 * 1024.0));
+        double avg = this.millisPerMB[level];
+        this.millisPerMB[level] = Double.isNaN(avg) ? ms 
+                : avg + SMOOTHING * (ms - avg);
+        if (level != this.currentLevel) {
+            return;  // a measurement from a stream started earlier
+        }
+        if (this.millisPerMB[level] > this.maxMillisPerMB) {
+            if (this.currentLevel > MIN_LEVEL) {
+                this.currentLevel--;
+            }
+        } else if (this.currentLevel < MAX_LEVEL) {
+            // only move up if the next level is unmeasured or was in budget
+            double next = this.millisPerMB[this.currentLevel + 1];
+            if (Double.isNaN(next) ? this.millisPerMB[level] 
+                    < this.maxMillisPerMB / 2.0 : next <= this.maxMillisPerMB) {
+                this.currentLevel++;
+            }
+        }
+    }
+    
+    /**
+     * A filter that delegates to a {@code FlateFilter} and reports the time
+     * taken back to the policy.
+     */
+    private class TimedFilter implements Filter {
+        
+        private final FlateFilter filter;
+        
+        private final int level;
+        
+        TimedFilter(FlateFilter filter, int level) {
+            this.filter = filter;
+            this.level = level;
+        }
+
+        @Override
+        public FilterType getFilterType() {
+            return this.filter.getFilterType();
+        }
+
+        @Override
+        public byte[] encode(byte[] source) {
+            long start = System.nanoTime();
+            byte[] result = this.filter.encode(source);
+            record(this.level, source.length, System.nanoTime() - start);
+            return result;
+        }
+        
+    }
+
+}
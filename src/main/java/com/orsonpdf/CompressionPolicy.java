@@ -0,0 +1,62 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import com.orsonpdf.filter.Filter;
+
+/**
+ * A policy that chooses the compression filter (if any) for each 
+ * {@link Stream} in a document, at the time the stream data is encoded.  
+ * Set a policy using 
+ * {@link PDFDocument#setCompressionPolicy(com.orsonpdf.CompressionPolicy)}.
+ * Implementations may be called from multiple threads at once.
+ * 
+ * @since 1.9
+ * 
+ * @see DefaultCompressionPolicy
+ */
+public interface CompressionPolicy {
+    
+    /**
+     * Returns the filter to apply to the data for the specified stream, or
+     * {@code null} if the data should be stored without compression.
+     * 
+     * @param stream  the stream ({@code null} not permitted).
+     * @param data  the raw stream data ({@code null} not permitted).
+     * 
+     * @return The filter (possibly {@code null}). 
+     */
+    Filter selectFilter(Stream stream, byte[] data);
+    
+}
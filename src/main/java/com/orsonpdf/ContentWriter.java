@@ -0,0 +1,317 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import java.awt.Font;
+import com.orsonpdf.font.TextEncoding;
+import com.orsonpdf.util.Args;
+
+/**
+ * A low-level writer for the content stream of a {@link Page}, for code 
+ * that generates PDF operators directly rather than going through the 
+ * {@code Graphics2D} API.  Obtain an instance from 
+ * {@link Page#getContentWriter()}.  The writer shares the page's resources
+ * (so fonts selected with {@link #setFont(java.awt.Font, double)} are 
+ * registered in the same way as for {@link PDFGraphics2D}) and, once a font
+ * has been selected, none of the methods create any objects (except that
+ * text in an embedded Unicode font is encoded through a temporary array).
+ * <p>
+ * Coordinates are in the current user space of the content stream.  If the
+ * page's {@link PDFGraphics2D} has been created (see 
+ * {@link Page#getGraphics2D()}) that includes the transform that flips the
+ * y-axis to match the Java2D convention, otherwise the origin is at the 
+ * bottom left of the page.  Operators written here are not tracked by 
+ * {@code PDFGraphics2D}, so when mixing the two APIs it is best to 
+ * enclose the output from this writer in {@link #saveState()} and 
+ * {@link #restoreState()} calls.
+ * 
+ * @since 1.9
+ */
+public final class ContentWriter {
+    
+    private static final byte[] OP_W = PDFUtils.toBytes(" w\n");
+
+    private static final byte[] OP_TF = PDFUtils.toBytes(" Tf\n");
+
+    private static final byte[] OP_TD = PDFUtils.toBytes(" Td\n");
+
+    private static final byte[] OP_TJ = PDFUtils.toBytes(" Tj\n");
+
+    private static final byte[] OP_CM = PDFUtils.toBytes(" cm\n");
+
+    private static final byte[] BT = PDFUtils.toBytes("BT\n");
+    
+    private static final byte[] ET = PDFUtils.toBytes("ET\n");
+
+    /** The page. */
+    private final Page page;
+    
+    /** The content stream for the page. */
+    private final GraphicsStream gs;
+    
+    /** The most recently selected font (may be {@code null}). */
+    private Font lastFont;
+    
+    /** The PDF font for {@code lastFont}. */
+    private PDFFont lastPDFFont;
+    
+    /**
+     * Creates a new writer for the specified page.
+     * 
+     * @param page  the page ({@code null} not permitted).
+     * @param gs  the content stream for the page ({@code null} not 
+     *     permitted).
+     */
+    ContentWriter(Page page, GraphicsStream gs) {
+        Args.nullNotPermitted(page, "page");
+        Args.nullNotPermitted(gs, "gs");
+        this.page = page;
+        this.gs = gs;
+    }
+    
+    /**
+     * Begins a new subpath at {@code (x, y)} (the 'm' operator).
+     * 
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     */
+    public void moveTo(double x, double y) {
+        this.gs.writePoint(x, y, GraphicsStream.OP_m);
+    }
+    
+    /**
+     * Appends a line segment to {@code (x, y)} (the 'l' operator).
+     * 
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     */
+    public void lineTo(double x, double y) {
+        this.gs.writePoint(x, y, GraphicsStream.OP_l);
+    }
+    
+    /**
+     * Appends a cubic Bezier curve to the current path (the 'c' operator).
+     * 
+     * @param x1  the x-coordinate of the first control point.
+     * @param y1  the y-coordinate of the first control point.
+     * @param x2  the x-coordinate of the second control point.
+     * @param y2  the y-coordinate of the second control point.
+     * @param x3  the x-coordinate of the end point.
+     * @param y3  the y-coordinate of the end point.
+     */
+    public void curveTo(double x1, double y1, double x2, double y2, 
+            double x3, double y3) {
+        this.gs.writePoint(x1, y1, GraphicsStream.SPACE);
+        this.gs.writePoint(x2, y2, GraphicsStream.SPACE);
+        this.gs.writePoint(x3, y3, GraphicsStream.OP_c);
+    }
+    
+    /**
+     * Appends a rectangle to the current path (the 're' operator).
+     * 
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     * @param w  the width.
+     * @param h  the height.
+     */
+    public void rect(double x, double y, double w, double h) {
+        this.gs.writePoint(x, y, GraphicsStream.SPACE);
+        this.gs.writePoint(w, h, GraphicsStream.OP_re);
+    }
+    
+    /**
+     * Closes the current subpath (the 'h' operator).
+     */
+    public void closePath() {
+        writeOperator('h');
+    }
+    
+    /**
+     * Fills the current path using the non-zero winding rule (the 'f' 
+     * operator).
+     */
+    public void fill() {
+        writeOperator('f');
+    }
+    
+    /**
+     * Strokes the current path (the 'S' operator).
+     */
+    public void stroke() {
+        writeOperator('S');
+    }
+    
+    /**
+     * Sets the color for filling (the 'rg' operator).  The alpha component
+     * is ignored.
+     * 
+     * @param rgb  the color (packed RGB).
+     */
+    public void setFillRGB(int rgb) {
+        this.gs.writeColor(rgb, GraphicsStream.OP_rg);
+    }
+    
+    /**
+     * Sets the color for stroking (the 'RG' operator).  The alpha component
+     * is ignored.
+     * 
+     * @param rgb  the color (packed RGB).
+     */
+    public void setStrokeRGB(int rgb) {
+        this.gs.writeColor(rgb, GraphicsStream.OP_RG);
+    }
+    
+    /**
+     * Sets the color for both filling and stroking.  The alpha component
+     * is ignored.
+     * 
+     * @param rgb  the color (packed RGB).
+     */
+    public void setRGB(int rgb) {
+        setStrokeRGB(rgb);
+        setFillRGB(rgb);
+    }
+    
+    /**
+     * Sets the line width (the 'w' operator).
+     * 
+     * @param width  the line width.
+     */
+    public void setLineWidth(double width) {
+        this.gs.writeGeom(width);
+        this.gs.write(OP_W);
+    }
+    
+    /**
+     * Concatenates the specified matrix to the current transformation 
+     * matrix (the 'cm' operator).
+     * 
+     * @param a  the a component.
+     * @param b  the b component.
+     * @param c  the c component.
+     * @param d  the d component.
+     * @param e  the e component (translate x).
+     * @param f  the f component (translate y).
+     */
+    public void transform(double a, double b, double c, double d, 
+            double e, double f) {
+        this.gs.writePoint(a, b, GraphicsStream.SPACE);
+        this.gs.writePoint(c, d, GraphicsStream.SPACE);
+        this.gs.writePoint(e, f, OP_CM);
+    }
+    
+    /**
+     * Saves the graphics state (the 'q' operator).
+     */
+    public void saveState() {
+        writeOperator('q');
+    }
+    
+    /**
+     * Restores the graphics state (the 'Q' operator).
+     */
+    public void restoreState() {
+        writeOperator('Q');
+    }
+    
+    /**
+     * Begins a text object (the 'BT' operator).
+     */
+    public void beginText() {
+        this.gs.write(BT);
+    }
+    
+    /**
+     * Selects the font for text output (the 'Tf' operator).  The font is 
+     * mapped to a PDF font in the same way as for {@link PDFGraphics2D}, 
+     * and added to the page resources.
+     * 
+     * @param font  the font ({@code null} not permitted).
+     * @param size  the font size.
+     */
+    public void setFont(Font font, double size) {
+        Args.nullNotPermitted(font, "font");
+        if (font != this.lastFont) {
+            this.lastPDFFont = this.page.findOrCreateFont(font);
+            this.lastFont = font;
+        }
+        this.gs.writeAscii(this.lastPDFFont.getName());
+        this.gs.write(' ');
+        this.gs.writeGeom(size);
+        this.gs.write(OP_TF);
+    }
+    
+    /**
+     * Moves to the start of the next line, offset by {@code (tx, ty)} from
+     * the start of the current line (the 'Td' operator).
+     * 
+     * @param tx  the x-offset.
+     * @param ty  the y-offset.
+     */
+    public void moveText(double tx, double ty) {
+        this.gs.writePoint(tx, ty, OP_TD);
+    }
+    
+    /**
+     * Shows a text string (the 'Tj' operator).  The text is encoded for 
+     * the current font (characters that the font's encoding does not 
+     * include are written as '?') and written as a literal string, with 
+     * escapes where needed, or as a hexadecimal string if that is shorter.
+     * 
+     * @param text  the text ({@code null} not permitted).
+     */
+    public void showText(CharSequence text) {
+        Args.nullNotPermitted(text, "text");
+        if (this.lastPDFFont != null) {
+            this.lastPDFFont.writeText(this.gs, text, 0, text.length());
+        } else {
+            this.gs.writeString(text, 0, text.length(), 
+                    TextEncoding.MAC_ROMAN);
+        }
+        this.gs.write(OP_TJ);
+    }
+    
+    /**
+     * Ends a text object (the 'ET' operator).
+     */
+    public void endText() {
+        this.gs.write(ET);
+    }
+    
+    private void writeOperator(char op) {
+        this.gs.write(op);
+        this.gs.write('\n');
+    }
+    
+}
@@ -0,0 +1,257 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import com.orsonpdf.filter.Filter;
+import com.orsonpdf.filter.FlateFilter;
+import java.util.zip.Deflater;
+
+/**
+ * The default {@link CompressionPolicy}.  Small streams are stored without
+ * compression, and for larger streams a quick entropy estimate (from a 
+ * sample of the byte values) is used to skip compression when the gain 
+ * would be negligible (for example, data that is already compressed) or 
+ * to fall back to Huffman-only coding when there is little repetition to 
+ * exploit.  Otherwise image data is compressed with the {@code FILTERED} 
+ * strategy and all other streams with the default strategy.
+ * 
+ * @since 1.9
+ */
+public class DefaultCompressionPolicy implements CompressionPolicy {
+    
+    /** The maximum number of bytes sampled for the entropy estimate. */
+    private static final int SAMPLE_SIZE = 16384;
+    
+    /** Streams with less data than this are stored uncompressed. */
+    private int minimumSize;
+    
+    /** The entropy (bits per byte) at or above which data is stored. */
+    private double storeEntropy;
+    
+    /** The entropy (bits per byte) at or above which Huffman-only is used. */
+    private double huffmanEntropy;
+    
+    /** The compression level. */
+    private int level;
+
+    /**
+     * Creates a new policy with default settings.
+     */
+    public DefaultCompressionPolicy() {
+        this.minimumSize = 64;
+        this.storeEntropy = 7.6;
+        this.huffmanEntropy = 7.0;
+        this.level = Deflater.DEFAULT_COMPRESSION;
+    }
+
+    /**
+     * Returns the minimum stream size (in bytes) for compression to be 
+     * applied.  The default value is {@code 64}.
+     * 
+     * @return The minimum stream size. 
+     */
+    public int getMinimumSize() {
+        return this.minimumSize;
+    }
+
+    /**
+     * Sets the minimum stream size (in bytes) for compression to be 
+     * applied.
+     * 
+     * @param size  the size (must be zero or greater).
+     */
+    public void setMinimumSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Requires 'size' >= 0.");
+        }
+        this.minimumSize = size;
+    }
+
+    /**
+     * Returns the estimated entropy (in bits per byte, from 0 to 8) at or 
+     * above which stream data is stored without compression.  The default
+     * value is {@code 7.6}.
+     * 
+     * @return The entropy threshold. 
+     */
+    public double getStoreEntropy() {
+        return this.storeEntropy;
+    }
+
+    /**
+     * Sets the estimated entropy (in bits per byte) at or above which 
+     * stream data is stored without compression.
+     * 
+     * @param entropy  the entropy threshold (0 to 8).
+     */
+    public void setStoreEntropy(double entropy) {
+        if (entropy < 0.0 || entropy > 8.0) {
+            throw new IllegalArgumentException("Requires 'entropy' in the "
+                    + "range 0 to 8.");
+        }
+        this.storeEntropy = entropy;
+    }
+
+    /**
+     * Returns the estimated entropy (in bits per byte, from 0 to 8) at or 
+     * above which the Huffman-only strategy is used.  The default value is
+     * {@code 7.0}.
+     * 
+     * @return The entropy threshold. 
+     */
+    public double getHuffmanEntropy() {
+        return this.huffmanEntropy;
+    }
+
+    /**
+     * Sets the estimated entropy (in bits per byte) at or above which the 
+     * Huffman-only strategy is used.
+     * 
+     * @param entropy  the entropy threshold (0 to 8).
+     */
+    public void setHuffmanEntropy(double entropy) {
+        if (entropy < 0.0 || entropy > 8.0) {
+            throw new IllegalArgumentException("Requires 'entropy' in the "
+                    + "range 0 to 8.");
+        }
+        this.huffmanEntropy = entropy;
+    }
+
+    /**
+     * Returns the compression level.  The default value is 
+     * {@code Deflater.DEFAULT_COMPRESSION}.
+     * 
+     * @return The compression level. 
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Sets the compression level.
+     * 
+     * @param level  the level (0 to 9, or 
+     *     {@code Deflater.DEFAULT_COMPRESSION}).
+     */
+    public void setLevel(int level) {
+        if (level < -1 || level > 9) {
+            throw new IllegalArgumentException("Invalid 'level': " + level);
+        }
+        this.level = level;
+    }
+
+    /**
+     * Returns the filter to apply to the data for the specified stream, or
+     * {@code null} if the data should be stored without compression.
+     * 
+     * @param stream  the stream ({@code null} not permitted).
+     * @param data  the raw stream data ({@code null} not permitted).
+     * 
+     * @return The filter (possibly {@code null}). 
+     */
+    @Override
+    public Filter selectFilter(Stream stream, byte[] data) {
+        if (data.length < this.minimumSize || this.level == 0) {
+            return null;
+        }
+        double entropy = estimateEntropy(data);
+        if (entropy >= this.storeEntropy) {
+            return null;
+        }
+        if (entropy >= this.huffmanEntropy) {
+            return createFilter(stream, Deflater.HUFFMAN_ONLY);
+        }
+        if (stream instanceof PDFImage || stream instanceof PDFSoftMaskImage) {
+            return createFilter(stream, Deflater.FILTERED);
+        }
+        return createFilter(stream, Deflater.DEFAULT_STRATEGY);
+    }
+    
+    /**
+     * Creates the compression filter for a stream, once the strategy has 
+     * been chosen.  Subclasses can override this method to vary the level.
+     * 
+     * @param stream  the stream ({@code null} not permitted).
+     * @param strategy  the strategy (see {@code Deflater}).
+     * 
+     * @return The filter (never {@code null}).
+     */
+    protected Filter createFilter(Stream stream, int strategy) {
+        return new FlateFilter(this.level, strategy);
+    }
+    
+    /**
+     * Returns an estimate of the (order-0) entropy of the data, in bits per
+     * byte, based on the byte frequencies in an evenly spaced sample of up 
+     * to {@code SAMPLE_SIZE} bytes.
+     * 
+     * @param data  the data ({@code null} not permitted).
+     * 
+     * @return The entropy estimate (0 to 8). 
+     */
+    static double estimateEntropy(byte[] data) {
+        if (data.length == 0) {
+            return 0.0;
+        }
+        int[] counts = new int[256];
+        int n;
+        if (data.length <= SAMPLE_SIZE) {
+            for (byte b : data) {
+                counts[b & 0xFF]++;
+            }
+            n = data.length;
+        } else {
+            // sample short runs spread across the data, so the estimate is
+            // not skewed by a single region
+            int runs = SAMPLE_SIZE / 64;
+            long step = data.length / runs;
+            for (int r = 0; r < runs; r++) {
+                int start = (int) (r * step);
+                for (int i = start; i < start + 64; i++) {
+                    counts[data[i] & 0xFF]++;
+                }
+            }
+            n = runs * 64;
+        }
+        double entropy = 0.0;
+        for (int c : counts) {
+            if (c > 0) {
+                double p = (double) c / n;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy / Math.log(2.0);
+    }
+
+}
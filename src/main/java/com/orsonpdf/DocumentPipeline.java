@@ -0,0 +1,310 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import com.orsonpdf.util.Args;
+
+/**
+ * Writes a {@link PDFDocument} to an output stream page by page, so that 
+ * compression and I/O overlap with the rendering of later pages.  Obtain an
+ * instance from {@link PDFDocument#createPipeline(java.io.OutputStream, 
+ * int)}, then {@link #submit(com.orsonpdf.Page)} each page as soon as it
+ * has been drawn, and finally call {@link #finish()}:
+ * <p>
+ * <code>DocumentPipeline pipeline = pdfDoc.createPipeline(out, 4);<br></code>
+ * <code>for (...) {<br></code>
+ * <code>&nbsp;&nbsp;Page page = pdfDoc.createPage(bounds);<br></code>
+ * <code>&nbsp;&nbsp;// draw to page.getGraphics2D()<br></code>
+ * <code>&nbsp;&nbsp;pipeline.submit(page);<br></code>
+ * <code>}<br></code>
+ * <code>pipeline.finish().get();<br></code>
+ * <p>
+ * Submitted pages pass through a bounded queue to a compression thread, 
+ * and from there through a second bounded queue to a writer thread.  When
+ * the queues are full, {@code submit()} blocks, so the memory used is 
+ * limited by the queue depth.  Once a page has been written its content 
+ * is released, so the page must not be drawn to after it is submitted, 
+ * and the document cannot be written again (for example with 
+ * {@link PDFDocument#getPDFBytes()}).  The fonts, the page tree and the 
+ * cross-reference table are written by {@code finish()}, along with any
+ * pages that were created but not submitted.  The output stream is flushed
+ * but not closed.
+ * 
+ * @since 1.9
+ */
+public final class DocumentPipeline {
+    
+    /** A marker that is passed through the queues by {@code finish()}. */
+    private static final Object END = new Object();
+    
+    /** The interval for checking whether another stage has failed. */
+    private static final long POLL_MILLIS = 100L;
+    
+    /** The document. */
+    private final PDFDocument document;
+    
+    /** Pages waiting to be compressed. */
+    private final BlockingQueue<Object> pageQueue;
+    
+    /** Compressed pages waiting to be written. */
+    private final BlockingQueue<Object> writeQueue;
+    
+    /** The writer for the output stream. */
+    private final ObjectWriter writer;
+    
+    /** The output stream. */
+    private final OutputStream out;
+    
+    /** The task for the writer stage, also the result of finish(). */
+    private final FutureTask<Void> writerTask;
+    
+    /** The first failure in either stage (or {@code null}). */
+    private volatile Throwable failure;
+    
+    /** A flag that is set when {@code finish()} is called. */
+    private boolean finished;
+    
+    /**
+     * Creates a new pipeline and starts the compression and writer threads.
+     * 
+     * @param document  the document ({@code null} not permitted).
+     * @param out  the output stream ({@code null} not permitted).
+     * @param queueDepth  the capacity of each queue (at least 1).
+     */
+    DocumentPipeline(PDFDocument document, OutputStream out, int queueDepth) {
+        Args.nullNotPermitted(document, "document");
+        Args.nullNotPermitted(out, "out");
+        if (queueDepth < 1) {
+            throw new IllegalArgumentException("Requires 'queueDepth' >= 1.");
+        }
+        this.document = document;
+        this.out = out;
+        this.writer = new ObjectWriter(out);
+        this.pageQueue = new ArrayBlockingQueue<Object>(queueDepth);
+        this.writeQueue = new ArrayBlockingQueue<Object>(queueDepth);
+        Thread compressor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compress();
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            }
+        }, "DocumentPipeline-compress");
+        this.writerTask = new FutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                try {
+                    write();
+                    return null;
+                } catch (Throwable t) {
+                    fail(t);
+                    throw new IOException("Writing the document failed.", t);
+                }
+            }
+        });
+        Thread writerThread = new Thread(this.writerTask, 
+                "DocumentPipeline-write");
+        compressor.setDaemon(true);
+        writerThread.setDaemon(true);
+        compressor.start();
+        writerThread.start();
+    }
+    
+    /**
+     * Submits a page that has been completely drawn.  This method blocks 
+     * while the queue is full.
+     * 
+     * @param page  the page ({@code null} not permitted).
+     * 
+     * @throws InterruptedException if the thread is interrupted while 
+     *     waiting.
+     * @throws IllegalStateException if {@code finish()} has been called or
+     *     the pipeline has failed.
+     */
+    public void submit(Page page) throws InterruptedException {
+        Args.nullNotPermitted(page, "page");
+        synchronized (this) {
+            if (this.finished) {
+                throw new IllegalStateException("Pipeline is finished.");
+            }
+        }
+        put(this.pageQueue, page);
+    }
+    
+    /**
+     * Signals that all pages have been submitted.  The remaining work 
+     * (including writing the cross-reference table and trailer) is done on
+     * the writer thread, and this method returns immediately.
+     * 
+     * @return A future that completes when the document has been written 
+     *     (if writing fails, the future's {@code get()} method throws an 
+     *     {@code ExecutionException}).
+     * 
+     * @throws InterruptedException if the thread is interrupted while 
+     *     waiting for space in the queue.
+     */
+    public Future<Void> finish() throws InterruptedException {
+        synchronized (this) {
+            if (this.finished) {
+                return this.writerTask;
+            }
+            this.finished = true;
+        }
+        if (this.failure == null) {
+            put(this.pageQueue, END);
+        }
+        return this.writerTask;
+    }
+    
+    /**
+     * Puts an item in a queue, waiting for space but giving up if the
+     * pipeline fails in the meantime.
+     */
+    private void put(BlockingQueue<Object> queue, Object item) 
+            throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+        checkFailure();
+    }
+    
+    /**
+     * Takes an item from a queue, giving up if the pipeline fails while 
+     * waiting.
+     */
+    private Object take(BlockingQueue<Object> queue) 
+            throws InterruptedException {
+        while (true) {
+            Object item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+            checkFailure();
+        }
+    }
+    
+    private void checkFailure() {
+        Throwable t = this.failure;
+        if (t != null) {
+            throw new IllegalStateException("Pipeline failed.", t);
+        }
+    }
+    
+    private void fail(Throwable t) {
+        if (this.failure == null) {
+            this.failure = t;
+        }
+    }
+    
+    /**
+     * The compression stage: converts each page (with its content stream
+     * and other objects) to bytes.
+     */
+    private void compress() throws InterruptedException, IOException {
+        while (true) {
+            Object item = take(this.pageQueue);
+            if (item == END) {
+                put(this.writeQueue, END);
+                return;
+            }
+            put(this.writeQueue, new EncodedPage((Page) item));
+        }
+    }
+    
+    /**
+     * The writer stage: writes the document header, then each page as it
+     * arrives and finally the shared objects, cross-reference table and 
+     * trailer.
+     */
+    private void write() throws InterruptedException, IOException {
+        this.writer.writeHeader();
+        this.document.writeHeaderObjects(this.writer);
+        while (true) {
+            Object item = take(this.writeQueue);
+            if (item == END) {
+                break;
+            }
+            EncodedPage encoded = (EncodedPage) item;
+            for (int i = 0; i < encoded.numbers.length; i++) {
+                this.writer.writeObject(encoded.numbers[i], encoded.bytes[i]);
+            }
+            encoded.page.release();
+        }
+        this.document.writeRemainingObjects(this.writer);
+        this.out.flush();
+    }
+
+    /**
+     * A page that has been converted to bytes by the compression stage.
+     */
+    private static final class EncodedPage {
+        
+        /** The page. */
+        final Page page;
+        
+        /** The object numbers. */
+        final int[] numbers;
+        
+        /** The bytes for each object. */
+        final byte[][] bytes;
+        
+        EncodedPage(Page page) throws IOException {
+            this.page = page;
+            List<PDFObject> objects = new ArrayList<PDFObject>();
+            objects.add(page);
+            objects.addAll(page.getContentStreams());
+            objects.addAll(page.getObjects());
+            this.numbers = new int[objects.size()];
+            this.bytes = new byte[objects.size()][];
+            for (int i = 0; i < objects.size(); i++) {
+                PDFObject object = objects.get(i);
+                this.numbers[i] = object.getNumber();
+                this.bytes[i] = object.toPDFBytes();
+            }
+        }
+    }
+    
+}
@@ -41,16 +41,22 @@ import java.awt.Image;
 import java.awt.RadialGradientPaint;
 import java.awt.Shape;
 import java.awt.Stroke;
+import java.awt.font.GlyphVector;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import com.orsonpdf.font.StandardFont;
+import com.orsonpdf.font.TextEncoding;
 import com.orsonpdf.util.Args;
+import com.orsonpdf.util.ParagraphLayout;
 
 /**
  * A {@code Stream} that contains graphics for the PDF document that
@@ -62,6 +68,38 @@ import com.orsonpdf.util.Args;
  */
 public class GraphicsStream extends Stream {
 
+    /** The number of bytes added by the 'q' and 'Q' for isolation. */
+    private static final int ISOLATION_BYTES = 4;
+    
+    /** The digits for hexadecimal strings. */
+    static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    
+    static final byte[] OP_m = PDFUtils.toBytes(" m\n");
+    
+    static final byte[] OP_l = PDFUtils.toBytes(" l\n");
+    
+    static final byte[] OP_c = PDFUtils.toBytes(" c\n");
+    
+    static final byte[] OP_re = PDFUtils.toBytes(" re\n");
+    
+    static final byte[] SPACE = PDFUtils.toBytes(" ");
+    
+    static final byte[] OP_RG = PDFUtils.toBytes(" RG\n");
+    
+    static final byte[] OP_rg = PDFUtils.toBytes(" rg\n");
+    
+    /** 
+     * The color components {@code 0/255f} to {@code 255/255f} in the 
+     * format that is written to the stream.
+     */
+    private static final byte[][] COMPONENTS = new byte[256][];
+    
+    static {
+        for (int i = 0; i < 256; i++) {
+            COMPONENTS[i] = PDFUtils.toBytes(String.valueOf(i / 255f));
+        }
+    }
+
     /** 
      * The page the graphics stream belongs to.  We need this reference to
      * our "parent" so that we can access fonts in the document.
@@ -71,6 +109,25 @@ public class GraphicsStream extends Stream {
     /** The stream content. */
     private ByteArrayOutputStream content;
     
+    /** 
+     * A staging buffer for the content, so that operators and numbers can
+     * be written one byte at a time without going to the (synchronized) 
+     * output stream for each byte.
+     */
+    private byte[] buffer;
+    
+    /** The number of bytes in the staging buffer. */
+    private int count;
+    
+    /** A scratch array for formatting integers. */
+    private byte[] digits;
+    
+    /** 
+     * A flag that controls whether the content is enclosed in a 'q'/'Q' 
+     * pair (used when a page has more than one content stream).
+     */
+    private boolean isolated;
+    
     /** The most recent font applied. */
     private Font font;
     
@@ -99,6 +156,8 @@ public class GraphicsStream extends Stream {
         super(number);
         this.page = page;
         this.content = new ByteArrayOutputStream();
+        this.buffer = new byte[8192];
+        this.digits = new byte[20];
         this.font = new Font("Dialog", Font.PLAIN, 12);
         this.alpha = 255;
         // force the formatters to use a '.' for the decimal point
@@ -109,10 +168,227 @@ public class GraphicsStream extends Stream {
     }
     
     private void addContent(String s) {
-        try {
-            this.content.write(PDFUtils.toBytes(s));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        writeAscii(s);
+    }
+    
+    /**
+     * Writes a single byte to the staging buffer, moving the buffer contents
+     * to the stream content when it is full.
+     * 
+     * @param b  the byte.
+     */
+    void write(int b) {
+        if (this.count == this.buffer.length) {
+            flushBuffer();
+        }
+        this.buffer[this.count++] = (byte) b;
+    }
+    
+    /**
+     * Writes the bytes from the specified array.
+     * 
+     * @param b  the bytes.
+     */
+    void write(byte[] b) {
+        if (this.count + b.length > this.buffer.length) {
+            flushBuffer();
+            if (b.length > this.buffer.length) {
+                this.content.write(b, 0, b.length);
+                return;
+            }
+        }
+        System.arraycopy(b, 0, this.buffer, this.count, b.length);
+        this.count += b.length;
+    }
+    
+    /**
+     * Writes a string in US-ASCII encoding (any other characters are written
+     * as '?', as for {@link PDFUtils#toBytes(java.lang.String)}).
+     * 
+     * @param s  the string.
+     */
+    void writeAscii(String s) {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            write(c < 128 ? c : '?');
+        }
+    }
+    
+    /**
+     * Writes a non-negative integer in decimal format.
+     * 
+     * @param n  the integer.
+     */
+    private void writeDigits(long n) {
+        int pos = this.digits.length;
+        do {
+            this.digits[--pos] = (byte) ('0' + (n % 10));
+            n = n / 10;
+        } while (n > 0);
+        while (pos < this.digits.length) {
+            write(this.digits[pos++]);
+        }
+    }
+    
+    /**
+     * Writes a coordinate value with the same precision as the geometry 
+     * format (up to two decimal places, trailing zeros removed) without 
+     * creating any intermediate objects.
+     * 
+     * @param d  the value.
+     */
+    void writeGeom(double d) {
+        double product = Math.abs(d) * 100.0;
+        // a product that is exactly halfway may come from a value that is
+        // just below (or above) the tie, and only geomDP() rounds the exact
+        // decimal value
+        if (Double.isNaN(d) || Double.isInfinite(d) || Math.abs(d) >= 1e15 
+                || product - Math.floor(product) == 0.5) {
+            writeAscii(geomDP(d));
+            return;
+        }
+        // half-even rounding and a sign on negative zero, as for geomDP()
+        long scaled = (long) Math.rint(product);
+        if (d < 0.0 || 1.0 / d < 0.0) {
+            write('-');
+        }
+        writeDigits(scaled / 100);
+        int frac = (int) (scaled % 100);
+        if (frac != 0) {
+            write('.');
+            write('0' + frac / 10);
+            if (frac % 10 != 0) {
+                write('0' + frac % 10);
+            }
+        }
+    }
+    
+    /**
+     * Writes an x and y coordinate followed by an operator.
+     * 
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     * @param op  the operator (including the trailing line feed).
+     */
+    void writePoint(double x, double y, byte[] op) {
+        writeGeom(x);
+        write(' ');
+        writeGeom(y);
+        write(op);
+    }
+
+    /**
+     * Writes character codes as a PDF string.  A literal string is written
+     * with '(', ')' and '\' escaped and any byte outside the printable
+     * ASCII range written as an octal escape, unless a hexadecimal string
+     * would be shorter (as it is for binary data such as two-byte glyph
+     * IDs).
+     *
+     * @param codes  the character codes ({@code null} not permitted).
+     *
+     * @since 1.9
+     */
+    void writeString(byte[] codes) {
+        int literalLength = 0;
+        for (byte code : codes) {
+            literalLength += literalLength(code & 0xFF);
+        }
+        if (literalLength > codes.length * 2) {
+            write('<');
+            for (byte code : codes) {
+                writeHex(code & 0xFF);
+            }
+            write('>');
+            return;
+        }
+        write('(');
+        for (byte code : codes) {
+            writeLiteral(code & 0xFF);
+        }
+        write(')');
+    }
+
+    /**
+     * Writes a range of characters as a PDF string of their codes in the
+     * specified encoding (characters that are not in the encoding are 
+     * written as '?'), in the same way as {@link #writeString(byte[])} 
+     * but encoding each character directly into the content buffer.
+     *
+     * @param text  the text ({@code null} not permitted).
+     * @param start  the index of the first character.
+     * @param end  the index after the last character.
+     * @param encoding  the encoding ({@code null} not permitted).
+     *
+     * @since 1.9
+     */
+    void writeString(CharSequence text, int start, int end, 
+            TextEncoding encoding) {
+        int literalLength = 0;
+        for (int i = start; i < end; i++) {
+            literalLength += literalLength(code(encoding, text.charAt(i)));
+        }
+        if (literalLength > (end - start) * 2) {
+            write('<');
+            for (int i = start; i < end; i++) {
+                writeHex(code(encoding, text.charAt(i)));
+            }
+            write('>');
+            return;
+        }
+        write('(');
+        for (int i = start; i < end; i++) {
+            writeLiteral(code(encoding, text.charAt(i)));
+        }
+        write(')');
+    }
+
+    private static int code(TextEncoding encoding, char c) {
+        int code = encoding.encode(c);
+        return code >= 0 ? code : '?';
+    }
+
+    /**
+     * Returns the number of bytes that a character code takes in a literal
+     * string.
+     *
+     * @param c  the code (0 to 255).
+     *
+     * @return The number of bytes (1, 2 or 4).
+     */
+    private static int literalLength(int c) {
+        if (c == '(' || c == ')' || c == '\\') {
+            return 2;
+        }
+        return c < 32 || c > 126 ? 4 : 1;
+    }
+
+    private void writeLiteral(int c) {
+        if (c == '(' || c == ')' || c == '\\') {
+            write('\\');
+            write(c);
+        } else if (c < 32 || c > 126) {
+            write('\\');
+            write('0' + (c >> 6));
+            write('0' + ((c >> 3) & 7));
+            write('0' + (c & 7));
+        } else {
+            write(c);
+        }
+    }
+
+    private void writeHex(int c) {
+        write(HEX_DIGITS[c >> 4]);
+        write(HEX_DIGITS[c & 0xF]);
+    }
+
+    /**
+     * Moves the bytes in the staging buffer into the stream content.
+     */
+    private void flushBuffer() {
+        if (this.count > 0) {
+            this.content.write(this.buffer, 0, this.count);
+            this.count = 0;
         }
     }
 
@@ -192,6 +468,13 @@ public class GraphicsStream extends Stream {
      */
     void applyClip(Shape clip) {
         Args.nullNotPermitted(clip, "clip");
+        if (clip instanceof Rectangle2D) {
+            Rectangle2D r = (Rectangle2D) clip;
+            writePoint(r.getX(), r.getY(), SPACE);
+            writePoint(r.getWidth(), r.getHeight(), OP_re);
+            addContent("W n\n");
+            return;
+        }
         StringBuilder b = new StringBuilder();
         Path2D p = new Path2D.Double(clip);
         b.append(getPDFPath(p));
@@ -229,14 +512,19 @@ public class GraphicsStream extends Stream {
      * @param c  the color ({@code null} not permitted). 
      */
     void applyStrokeColor(Color c) {
-        float red = c.getRed() / 255f;
-        float green = c.getGreen() / 255f;
-        float blue = c.getBlue() / 255f;
-        StringBuilder b = new StringBuilder();
-        b.append(red).append(" ").append(green).append(" ").append(blue)
-                .append(" RG\n");
-        addContent(b.toString());
-        applyAlpha(c.getAlpha());
+        applyStrokeColor(c.getRGB());
+    }
+    
+    /**
+     * Applies a color for stroking.
+     * 
+     * @param argb  the color (packed ARGB).
+     * 
+     * @since 1.9
+     */
+    void applyStrokeColor(int argb) {
+        writeColor(argb, OP_RG);
+        applyAlpha(argb >>> 24);
     }
     
     /**
@@ -245,14 +533,35 @@ public class GraphicsStream extends Stream {
      * @param c  the color ({@code null} not permitted).
      */
     void applyFillColor(Color c) {
-        float red = c.getRed() / 255f;
-        float green = c.getGreen() / 255f;
-        float blue = c.getBlue() / 255f;
-        StringBuilder b = new StringBuilder();
-        b.append(red).append(" ").append(green).append(" ").append(blue)
-                .append(" rg\n");
-        addContent(b.toString());
-        applyAlpha(c.getAlpha());
+        applyFillColor(c.getRGB());
+    }
+    
+    /**
+     * Applies a color for filling.
+     * 
+     * @param argb  the color (packed ARGB).
+     * 
+     * @since 1.9
+     */
+    void applyFillColor(int argb) {
+        writeColor(argb, OP_rg);
+        applyAlpha(argb >>> 24);
+    }
+    
+    /**
+     * Writes the RGB components of a color (in the range 0.0 to 1.0) 
+     * followed by the specified operator.
+     * 
+     * @param argb  the color.
+     * @param op  the operator (including the trailing line feed).
+     */
+    void writeColor(int argb, byte[] op) {
+        write(COMPONENTS[(argb >> 16) & 0xFF]);
+        write(' ');
+        write(COMPONENTS[(argb >> 8) & 0xFF]);
+        write(' ');
+        write(COMPONENTS[argb & 0xFF]);
+        write(op);
     }
     
     /**
@@ -421,16 +730,130 @@ public class GraphicsStream extends Stream {
     void drawString(String text, float x, float y) {
         // we need to get the reference for the current font (creating a 
         // new font object if there isn't already one)
-        String fontRef = this.page.findOrCreateFontReference(this.font);
+        PDFFont pdfFont = this.page.findOrCreateFont(this.font);
         addContent("BT ");
         AffineTransform t = new AffineTransform(1.0, 0.0, 0.0, -1.0, 0.0, 
                 y * 2); 
         applyTextTransform(t);
         StringBuilder b = new StringBuilder();
-        b.append(fontRef).append(" ").append(this.font.getSize())
+        b.append(pdfFont.getName()).append(" ").append(this.font.getSize())
+                .append(" Tf ");
+        b.append(geomDP(x)).append(" ").append(geomDP(y)).append(" Td ");
+        addContent(b.toString());
+        pdfFont.writeText(this, text, 0, text.length());
+        addContent(" Tj ET\n");
+    }
+
+    /**
+     * Draws the lines of a paragraph in a single text object, with the
+     * first baseline at {@code (x, y)}.  The line spacing is set once with
+     * the 'TL' operator and each subsequent line is started with 'T*'.
+     *
+     * @param layout  the paragraph layout ({@code null} not permitted).
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate of the first baseline.
+     *
+     * @since 1.9
+     */
+    void drawParagraph(ParagraphLayout layout, float x, float y) {
+        PDFFont pdfFont = this.page.findOrCreateFont(this.font);
+        addContent("BT ");
+        AffineTransform t = new AffineTransform(1.0, 0.0, 0.0, -1.0, 0.0,
+                y * 2);
+        applyTextTransform(t);
+        StringBuilder b = new StringBuilder();
+        b.append(pdfFont.getName()).append(" ").append(this.font.getSize())
                 .append(" Tf ");
-        b.append(geomDP(x)).append(" ").append(geomDP(y)).append(" Td (")
-                .append(text).append(") Tj ET\n");
+        b.append(geomDP(layout.getLineHeight())).append(" TL ");
+        b.append(geomDP(x)).append(" ").append(geomDP(y)).append(" Td\n");
+        addContent(b.toString());
+        String text = layout.getText();
+        for (int i = 0; i < layout.getLineCount(); i++) {
+            if (i > 0) {
+                addContent("T* ");
+            }
+            pdfFont.writeText(this, text, layout.getLineStart(i), 
+                    layout.getLineEnd(i));
+            addContent(" Tj\n");
+        }
+        addContent("ET\n");
+    }
+
+    /**
+     * Returns the metrics for the standard PDF font that text in the 
+     * specified font is written with, or {@code null} if the font is 
+     * embedded (or is mapped to a font without built-in metrics).
+     * 
+     * @param f  the font.
+     * 
+     * @return The metrics, or {@code null}.
+     * 
+     * @since 1.9
+     */
+    StandardFont findStandardFont(Font f) {
+        return StandardFont.getInstance(this.page.mapToStandardFont(f));
+    }
+    
+    /**
+     * Draws the glyphs in a glyph vector at {@code (x, y)} using Type 3 
+     * fonts that hold the glyph outlines, so that each glyph outline is 
+     * written to the document only once.  The glyphs are written in runs
+     * (sharing a font and baseline) and the positions from the glyph 
+     * vector are preserved exactly with 'TJ' adjustments.  The caller 
+     * must ensure that neither the font nor any glyph is transformed.
+     * 
+     * @param gv  the glyph vector.
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     * 
+     * @since 1.9
+     */
+    void drawGlyphs(GlyphVector gv, float x, float y) {
+        Font f = gv.getFont();
+        double size = f.getSize2D();
+        double scale = size / PDFType3Font.GLYPH_SPACE_SIZE;
+        int n = gv.getNumGlyphs();
+        int[] glyphCodes = gv.getGlyphCodes(0, n, null);
+        float[] positions = gv.getGlyphPositions(0, n, null);
+        PDFType3Font[] fonts = new PDFType3Font[n];
+        int[] codes = new int[n];
+        double[] widths = new double[n];
+        this.page.findOrCreateType3Glyphs(f, glyphCodes, n, fonts, codes, 
+                widths);
+        StringBuilder b = new StringBuilder("BT\n");
+        PDFType3Font current = null;
+        double runY = 0.0;
+        double currentX = 0.0;
+        for (int i = 0; i < n; i++) {
+            PDFType3Font t3 = fonts[i];
+            double gx = x + positions[i * 2];
+            double gy = y + positions[i * 2 + 1];
+            if (t3 != current || gy != runY) {
+                if (current != null) {
+                    b.append("] TJ\n");
+                }
+                b.append(t3.getName()).append(' ').append(geomDP(size))
+                        .append(" Tf 1 0 0 -1 ").append(geomDP(gx))
+                        .append(' ').append(geomDP(gy)).append(" Tm [");
+                current = t3;
+                runY = gy;
+                currentX = gx;
+            } else {
+                long adjust = Math.round((currentX - gx) * 1000.0 / size);
+                if (adjust != 0) {
+                    b.append(adjust);
+                    currentX -= adjust * scale;
+                }
+            }
+            int c = codes[i];
+            b.append('<').append(HEX_DIGITS[c >> 4])
+                    .append(HEX_DIGITS[c & 0xF]).append('>');
+            currentX += widths[i] * scale;
+        }
+        if (current != null) {
+            b.append("] TJ\n");
+        }
+        b.append("ET\n");
         addContent(b.toString());
     }
 
@@ -454,6 +877,142 @@ public class GraphicsStream extends Stream {
         addContent(b.toString());
     }
 
+    /**
+     * Draws a polyline through the first {@code n} points.
+     * 
+     * @param xs  the x-coordinates.
+     * @param ys  the y-coordinates.
+     * @param n  the number of points.
+     * 
+     * @since 1.9
+     */
+    void drawPolyline(double[] xs, double[] ys, int n) {
+        writePoint(xs[0], ys[0], OP_m);
+        for (int i = 1; i < n; i++) {
+            writePoint(xs[i], ys[i], OP_l);
+        }
+        write('S');
+        write('\n');
+    }
+    
+    /**
+     * Fills {@code n} rectangles as a single path.
+     * 
+     * @param xywh  the rectangles (x, y, width and height for each one).
+     * @param n  the number of rectangles.
+     * 
+     * @since 1.9
+     */
+    void fillRects(double[] xywh, int n) {
+        for (int i = 0; i < n; i++) {
+            int j = i * 4;
+            writeGeom(xywh[j]);
+            write(' ');
+            writeGeom(xywh[j + 1]);
+            write(' ');
+            writePoint(xywh[j + 2], xywh[j + 3], OP_re);
+        }
+        write('f');
+        write('\n');
+    }
+    
+    /**
+     * Writes a copy of a marker path at each of {@code n} points, as a single
+     * path that is then either stroked or filled.  The marker is supplied 
+     * as segment types (from {@code PathIterator}) plus coordinates, so 
+     * that it only needs to be iterated once.
+     * 
+     * @param types  the segment types.
+     * @param coords  the segment coordinates (six per segment).
+     * @param segments  the number of segments.
+     * @param xs  the x-coordinates of the marker locations.
+     * @param ys  the y-coordinates of the marker locations.
+     * @param n  the number of markers.
+     * @param fill  fill the markers ({@code true}) or stroke them 
+     *     ({@code false}).
+     * 
+     * @since 1.9
+     */
+    void drawMarkers(int[] types, double[] coords, int segments, double[] xs, 
+            double[] ys, int n, boolean fill) {
+        for (int i = 0; i < n; i++) {
+            double dx = xs[i];
+            double dy = ys[i];
+            double lastX = dx;
+            double lastY = dy;
+            for (int s = 0; s < segments; s++) {
+                int j = s * 6;
+                switch (types[s]) {
+                case PathIterator.SEG_MOVETO:
+                    lastX = coords[j] + dx;
+                    lastY = coords[j + 1] + dy;
+                    writePoint(lastX, lastY, OP_m);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    lastX = coords[j] + dx;
+                    lastY = coords[j + 1] + dy;
+                    writePoint(lastX, lastY, OP_l);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    // degree elevation, as for getPDFPath()
+                    double qx = coords[j] + dx;
+                    double qy = coords[j + 1] + dy;
+                    double ex = coords[j + 2] + dx;
+                    double ey = coords[j + 3] + dy;
+                    writePoint(0.25 * lastX + 0.75 * qx, 
+                            0.25 * lastY + 0.75 * qy, SPACE);
+                    writePoint(0.5 * qx + 0.5 * ex, 0.5 * qy + 0.5 * ey, 
+                            SPACE);
+                    writePoint(ex, ey, OP_c);
+                    lastX = ex;
+                    lastY = ey;
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    writePoint(coords[j] + dx, coords[j + 1] + dy, SPACE);
+                    writePoint(coords[j + 2] + dx, coords[j + 3] + dy, SPACE);
+                    lastX = coords[j + 4] + dx;
+                    lastY = coords[j + 5] + dy;
+                    writePoint(lastX, lastY, OP_c);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    write('h');
+                    write('\n');
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+        write(fill ? 'f' : 'S');
+        write('\n');
+    }
+    
+    /**
+     * Paints a free-form (type 4) shading using the 'sh' operator.
+     * 
+     * @param coords  the vertex coordinates (x and y interleaved).
+     * @param colors  the vertex colors (packed RGB).
+     * @param flags  the vertex flags ({@code null} permitted).
+     */
+    void paintFreeFormShading(double[] coords, int[] colors, byte[] flags) {
+        String name = this.page.addFreeFormShading(coords, colors, flags);
+        addContent(name + " sh\n");
+    }
+    
+    /**
+     * Paints a lattice-form (type 5) shading using the 'sh' operator.
+     * 
+     * @param coords  the vertex coordinates (x and y interleaved).
+     * @param colors  the vertex colors (packed RGB).
+     * @param verticesPerRow  the number of vertices in each row.
+     */
+    void paintLatticeFormShading(double[] coords, int[] colors, 
+            int verticesPerRow) {
+        String name = this.page.addLatticeFormShading(coords, colors, 
+                verticesPerRow);
+        addContent(name + " sh\n");
+    }
+
     /**
      * A utility method to convert a {@code Path2D} instance to a PDF 
      * path string.
@@ -524,7 +1083,79 @@ public class GraphicsStream extends Stream {
 
     @Override
     public byte[] getRawStreamData() {
-        return this.content.toByteArray();
+        flushBuffer();
+        if (!this.isolated) {
+            return this.content.toByteArray();
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream(
+                this.content.size() + ISOLATION_BYTES);
+        result.write('q');
+        result.write('\n');
+        result.write(this.content.toByteArray(), 0, this.content.size());
+        result.write('Q');
+        result.write('\n');
+        return result.toByteArray();
+    }
+    
+    /**
+     * Writes the raw data for the stream directly from the content buffer.
+     * 
+     * @param out  the output stream ({@code null} not permitted).
+     * 
+     * @throws IOException if there is an I/O problem.
+     * 
+     * @since 1.9
+     */
+    @Override
+    protected void writeRawStreamData(OutputStream out) throws IOException {
+        flushBuffer();
+        if (this.isolated) {
+            out.write('q');
+            out.write('\n');
+        }
+        this.content.writeTo(out);
+        if (this.isolated) {
+            out.write('Q');
+            out.write('\n');
+        }
+    }
+    
+    /**
+     * Sets the flag that controls whether the content is enclosed in a 
+     * save/restore ('q'/'Q') pair, so that the graphics state at the end of
+     * the stream is the same as at the start.
+     * 
+     * @param isolated  the new flag value.
+     * 
+     * @since 1.9
+     */
+    void setIsolated(boolean isolated) {
+        this.isolated = isolated;
+    }
+    
+    /**
+     * Discards the content of this stream (used once the stream has been 
+     * written by a {@link DocumentPipeline}, to free the memory).
+     * 
+     * @since 1.9
+     */
+    void release() {
+        this.content = new ByteArrayOutputStream();
+        this.count = 0;
+        clearEncodedStreamData();
+    }
+    
+    /**
+     * Returns the length of the raw data for the stream.
+     * 
+     * @return The length of the raw data.
+     * 
+     * @since 1.9
+     */
+    @Override
+    protected int getRawStreamLength() {
+        return this.content.size() + this.count 
+                + (this.isolated ? ISOLATION_BYTES : 0);
     }
 
 }
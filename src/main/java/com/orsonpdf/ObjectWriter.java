@@ -0,0 +1,198 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes the objects of a PDF document to an output stream, keeping track
+ * of the byte offset of each object so that the cross-reference table can
+ * be written at the end.  This is used by {@link PDFDocument#getPDFBytes()}
+ * and by the {@link DocumentPipeline}.
+ * 
+ * @since 1.9
+ */
+final class ObjectWriter {
+    
+    /** The output stream (counting the bytes written). */
+    private final CountingOutputStream out;
+    
+    /** 
+     * The offset for each object (indexed by object number - 1), zero for
+     * objects that have not been written. 
+     */
+    private long[] xref;
+    
+    /**
+     * Creates a new writer.
+     * 
+     * @param out  the output stream ({@code null} not permitted).
+     */
+    ObjectWriter(OutputStream out) {
+        this.out = new CountingOutputStream(out);
+        this.xref = new long[64];
+    }
+    
+    /**
+     * Writes the PDF file header.
+     * 
+     * @throws IOException if there is an I/O problem.
+     */
+    void writeHeader() throws IOException {
+        write(PDFUtils.toBytes("%PDF-1.4\n"));
+        write(new byte[] { (byte) 37, (byte) 128, (byte) 129, (byte) 130, 
+            (byte) 131, (byte) 10});
+    }
+    
+    /**
+     * Writes an object.
+     * 
+     * @param object  the object ({@code null} not permitted).
+     * 
+     * @throws IOException if there is an I/O problem.
+     */
+    void writeObject(PDFObject object) throws IOException {
+        recordOffset(object.getNumber());
+        object.writePDFBytes(this.out);
+    }
+    
+    /**
+     * Writes the (already encoded) bytes for an object.
+     * 
+     * @param number  the object number.
+     * @param bytes  the object bytes, as returned by 
+     *     {@link PDFObject#toPDFBytes()}.
+     * 
+     * @throws IOException if there is an I/O problem.
+     */
+    void writeObject(int number, byte[] bytes) throws IOException {
+        recordOffset(number);
+        write(bytes);
+    }
+    
+    private void recordOffset(int number) {
+        if (number > this.xref.length) {
+            this.xref = Arrays.copyOf(this.xref, Math.max(number, 
+                    this.xref.length * 2));
+        }
+        this.xref[number - 1] = this.out.count;
+    }
+    
+    /**
+     * Returns {@code true} if the object with the specified number has 
+     * been written.
+     * 
+     * @param number  the object number.
+     * 
+     * @return A boolean.
+     */
+    boolean isWritten(int number) {
+        return number <= this.xref.length && this.xref[number - 1] != 0;
+    }
+    
+    /**
+     * Writes the cross-reference table and the trailer.  Object numbers 
+     * that were never written are recorded as free entries.
+     * 
+     * @param objectCount  the number of objects in the document, plus 1 
+     *     (the value for the {@code /Size} entry in the trailer).
+     * @param root  the document catalog.
+     * @param info  the document information dictionary.
+     * 
+     * @throws IOException if there is an I/O problem.
+     */
+    void writeXrefAndTrailer(int objectCount, PDFObject root, PDFObject info) 
+            throws IOException {
+        long startxref = this.out.count;
+        write(PDFUtils.toBytes("xref\n"));
+        write(PDFUtils.toBytes("0 " + String.valueOf(objectCount) + "\n"));
+        write(PDFUtils.toBytes("0000000000 65535 f \n"));
+        for (int i = 1; i < objectCount; i++) {
+            if (!isWritten(i)) {
+                // a number that was reserved but not used for an object
+                write(PDFUtils.toBytes("0000000000 00001 f \n"));
+                continue;
+            }
+            String offset = String.valueOf(this.xref[i - 1]);
+            int len = offset.length();
+            String offset10 = "0000000000".substring(len) + offset;
+            write(PDFUtils.toBytes(offset10 + " 00000 n \n"));
+        }
+        write(PDFUtils.toBytes("trailer\n"));
+        Dictionary trailer = new Dictionary();
+        trailer.put("/Size", Integer.valueOf(objectCount));
+        trailer.put("/Root", root);
+        trailer.put("/Info", info);
+        write(trailer.toPDFBytes());
+        write(PDFUtils.toBytes("startxref\n"));
+        write(PDFUtils.toBytes(String.valueOf(startxref) + "\n"));
+        write(PDFUtils.toBytes("%%EOF"));
+    }
+    
+    private void write(byte[] bytes) throws IOException {
+        this.out.write(bytes);
+    }
+    
+    /**
+     * An output stream that counts the bytes written to the underlying 
+     * stream.
+     */
+    private static final class CountingOutputStream extends 
+            FilterOutputStream {
+        
+        /** The number of bytes written so far. */
+        long count;
+        
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+        
+    }
+    
+}
@@ -32,18 +32,32 @@
 
 package com.orsonpdf;
 
+import java.awt.Font;
 import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import com.orsonpdf.filter.FlateFilter;
+import com.orsonpdf.font.TrueTypeFontProgram;
 import com.orsonpdf.util.Args;
 
 /**
@@ -60,6 +74,11 @@ import com.orsonpdf.util.Args;
  * <p>
  * The implementation is light-weight and works very well alongside packages 
  * such as <b>JFreeChart</b> and <b>Orson Charts</b>.
+ * <p>
+ * Pages can be created and drawn from multiple threads concurrently (each 
+ * page, together with its {@code PDFGraphics2D}, should only be used by one
+ * thread at a time).  The pages are written to the output in the order 
+ * that they were created.
  */
 public class PDFDocument {
     
@@ -91,7 +110,7 @@ public class PDFDocument {
     private List<PDFObject> otherObjects;
     
     /** The next PDF object number in the document. */
-    private int nextNumber = 1;
+    private AtomicInteger nextNumber = new AtomicInteger(1);
 
     /** 
      * A flag that is used to indicate that we are in DEBUG mode.  In this 
@@ -99,14 +118,17 @@ public class PDFDocument {
      * the output can be read in a text editor.
      */
     private boolean debug;
+    
+    /** The compression policy (if {@code null}, streams use Flate). */
+    private volatile CompressionPolicy compressionPolicy;
 
     /**
      * Creates a new {@code PDFDocument}, initially with no content.
      */
     public PDFDocument() {
-        this.catalog = new DictionaryObject(this.nextNumber++, "/Catalog");
-        this.outlines = new DictionaryObject(this.nextNumber++, "/Outlines");
-        this.info = new DictionaryObject(this.nextNumber++, "/Info");
+        this.catalog = new DictionaryObject(getNextNumber(), "/Catalog");
+        this.outlines = new DictionaryObject(getNextNumber(), "/Outlines");
+        this.info = new DictionaryObject(getNextNumber(), "/Info");
         StringBuilder producer = new StringBuilder("(").append(PRODUCER);
         producer.append(")");
         this.info.put("Producer", producer.toString());
@@ -116,7 +138,7 @@ public class PDFDocument {
         this.info.put("ModDate", creationDateStr);
         this.outlines.put("Count", Integer.valueOf(0));
         this.catalog.put("Outlines", this.outlines);
-        this.pages = new Pages(this.nextNumber++, 0, this);
+        this.pages = new Pages(getNextNumber(), 0, this);
         this.catalog.put("Pages", this.pages);
         this.otherObjects = new ArrayList<PDFObject>();
     }
@@ -191,6 +213,127 @@ public class PDFDocument {
         this.debug = debug;
     }
 
+    /**
+     * Returns the compression policy for the document.  The default value
+     * is {@code null}, in which case all streams (other than page content
+     * in debug mode) are compressed with a {@code FlateFilter}.
+     * 
+     * @return The compression policy (possibly {@code null}).
+     * 
+     * @since 1.9
+     */
+    public CompressionPolicy getCompressionPolicy() {
+        return this.compressionPolicy;
+    }
+    
+    /**
+     * Sets the compression policy for the document.  The policy applies to
+     * streams created after this call, so it should normally be set before
+     * any pages are created.
+     * 
+     * @param policy  the policy ({@code null} permitted).
+     * 
+     * @since 1.9
+     */
+    public void setCompressionPolicy(CompressionPolicy policy) {
+        this.compressionPolicy = policy;
+    }
+
+    /**
+     * Registers a TrueType font file to embed in the document for text 
+     * drawn with fonts that have the same family and style (bold and 
+     * italic) as {@code font}.  Only the glyphs that are used are embedded
+     * (as a subset).  Register fonts before drawing any text with them.
+     * 
+     * @param font  the font ({@code null} not permitted).
+     * @param file  the TrueType font file ({@code null} not permitted).
+     * 
+     * @throws IOException if there is a problem reading the file.
+     * @throws IllegalArgumentException if the file is not a supported 
+     *     TrueType font.
+     * 
+     * @since 1.9
+     */
+    public void registerTrueTypeFont(Font font, File file) throws IOException {
+        Args.nullNotPermitted(font, "font");
+        this.pages.registerTrueTypeFont(FontKey.createFontKey(font), 
+                TrueTypeFontProgram.load(file));
+    }
+    
+    /**
+     * Registers a TrueType font program to embed in the document for text 
+     * drawn with fonts that have the same family and style (bold and 
+     * italic) as {@code font}.  The input stream is read fully but not 
+     * closed.
+     * 
+     * @param font  the font ({@code null} not permitted).
+     * @param in  the input stream ({@code null} not permitted).
+     * 
+     * @throws IOException if there is a problem reading the stream.
+     * @throws IllegalArgumentException if the data is not a supported 
+     *     TrueType font.
+     * 
+     * @since 1.9
+     * 
+     * @see #registerTrueTypeFont(java.awt.Font, java.io.File) 
+     */
+    public void registerTrueTypeFont(Font font, InputStream in) 
+            throws IOException {
+        Args.nullNotPermitted(font, "font");
+        this.pages.registerTrueTypeFont(FontKey.createFontKey(font), 
+                TrueTypeFontProgram.load(in));
+    }
+
+    /**
+     * Registers a TrueType font file to embed in the document, as a 
+     * composite font with two-byte glyph indices, for text drawn with fonts
+     * that have the same family and style (bold and italic) as 
+     * {@code font}.  Unlike {@link #registerTrueTypeFont(java.awt.Font, 
+     * java.io.File)}, which is limited to the characters in the 
+     * {@code WinAnsiEncoding}, this supports every character that the font
+     * has a glyph for (for example, Cyrillic, Greek or CJK text).  Only the
+     * glyphs that are used are embedded.  Register fonts before drawing any
+     * text with them.
+     * 
+     * @param font  the font ({@code null} not permitted).
+     * @param file  the TrueType font file ({@code null} not permitted).
+     * 
+     * @throws IOException if there is a problem reading the file.
+     * @throws IllegalArgumentException if the file is not a supported 
+     *     TrueType font.
+     * 
+     * @since 1.9
+     */
+    public void registerUnicodeFont(Font font, File file) throws IOException {
+        Args.nullNotPermitted(font, "font");
+        this.pages.registerUnicodeFont(FontKey.createFontKey(font), 
+                TrueTypeFontProgram.load(file));
+    }
+    
+    /**
+     * Registers a TrueType font program to embed in the document, as a 
+     * composite font with two-byte glyph indices, for text drawn with fonts
+     * that have the same family and style (bold and italic) as 
+     * {@code font}.  The input stream is read fully but not closed.
+     * 
+     * @param font  the font ({@code null} not permitted).
+     * @param in  the input stream ({@code null} not permitted).
+     * 
+     * @throws IOException if there is a problem reading the stream.
+     * @throws IllegalArgumentException if the data is not a supported 
+     *     TrueType font.
+     * 
+     * @since 1.9
+     * 
+     * @see #registerUnicodeFont(java.awt.Font, java.io.File) 
+     */
+    public void registerUnicodeFont(Font font, InputStream in) 
+            throws IOException {
+        Args.nullNotPermitted(font, "font");
+        this.pages.registerUnicodeFont(FontKey.createFontKey(font), 
+                TrueTypeFontProgram.load(in));
+    }
+
     /**
      * Creates a new {@code Page}, adds it to the document, and returns
      * a reference to the {@code Page}.
@@ -199,13 +342,124 @@ public class PDFDocument {
      * 
      * @return The new page. 
      */
-    public Page createPage(Rectangle2D bounds) {
-        Page page = new Page(this.nextNumber++, 0, this.pages, bounds, 
+    public synchronized Page createPage(Rectangle2D bounds) {
+        Page page = new Page(getNextNumber(), 0, this.pages, bounds, 
                 !this.debug);
         this.pages.add(page);
         return page;
     }
     
+    /**
+     * Creates {@code count} pages with the specified bounds and renders 
+     * them concurrently using the supplied {@code renderer}.  The pages are
+     * added to the document in index order (before any rendering starts)
+     * and, as each page is completed, its content stream is encoded on the
+     * same thread, so that {@link #getPDFBytes()} has little work left to 
+     * do.  If the {@code executor} is {@code null}, a new executor is 
+     * created for the call (using virtual threads if the Java runtime 
+     * supports them, otherwise a thread pool sized to the number of 
+     * processors) and shut down afterwards.
+     * <p>
+     * If rendering any page fails, the outstanding work is cancelled and 
+     * the first failure is rethrown (checked exceptions are wrapped in a 
+     * {@code RuntimeException}).  In that case the document will contain 
+     * incomplete pages and should be discarded.
+     * 
+     * @param bounds  the page bounds ({@code null} not permitted).
+     * @param count  the number of pages (zero or more).
+     * @param renderer  the page renderer ({@code null} not permitted).
+     * @param executor  the executor ({@code null} permitted).
+     * 
+     * @return The pages, in index order.
+     * 
+     * @since 1.9
+     */
+    public List<Page> renderPages(Rectangle2D bounds, int count, 
+            final PageRenderer renderer, Executor executor) {
+        Args.nullNotPermitted(bounds, "bounds");
+        Args.nullNotPermitted(renderer, "renderer");
+        if (count < 0) {
+            throw new IllegalArgumentException("Requires 'count' >= 0.");
+        }
+        List<Page> result = new ArrayList<Page>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(createPage(bounds));
+        }
+        ExecutorService ownExecutor = null;
+        if (executor == null) {
+            ownExecutor = createDefaultExecutor();
+            executor = ownExecutor;
+        }
+        CompletionService<Page> completionService 
+                = new ExecutorCompletionService<Page>(executor);
+        List<Future<Page>> futures = new ArrayList<Future<Page>>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                final int pageIndex = i;
+                final Page page = result.get(i);
+                futures.add(completionService.submit(new Callable<Page>() {
+                    @Override
+                    public Page call() {
+                        renderer.renderPage(pageIndex, page.getGraphics2D());
+                        ((Stream) page.getContents()).encodeStreamData();
+                        return page;
+                    }
+                }));
+            }
+            for (int i = 0; i < count; i++) {
+                completionService.take().get();
+            }
+        } catch (ExecutionException e) {
+            cancel(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            // for example, the executor rejected a task
+            cancel(futures);
+            throw e;
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+        return result;
+    }
+    
+    private static void cancel(List<Future<Page>> futures) {
+        for (Future<Page> future : futures) {
+            future.cancel(true);
+        }
+    }
+    
+    /**
+     * Creates the executor used by {@code renderPages()} when none is 
+     * supplied: a virtual thread per task executor if the runtime provides
+     * one (looked up by reflection, since this library targets older Java
+     * versions) or otherwise a fixed size thread pool.
+     * 
+     * @return The executor.
+     */
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            Method m = Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (Exception e) {
+            return Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors());
+        }
+    }
+    
     /**
      * Adds an object to the document.
      * 
@@ -213,20 +467,42 @@ public class PDFDocument {
      */
     public void addObject(PDFObject object) {
         Args.nullNotPermitted(object, "object");
-        this.otherObjects.add(object);
+        synchronized (this.otherObjects) {
+            this.otherObjects.add(object);
+        }
     }
 
     /**
      * Returns a new PDF object number and increments the internal counter
      * for the next PDF object number.  This method is used to ensure that
-     * all objects in the document are assigned a unique number.
+     * all objects in the document are assigned a unique number.  It is
+     * safe to call this method from multiple threads.
      * 
      * @return A new PDF object number. 
      */
     public int getNextNumber() {
-        int result = this.nextNumber;
-        this.nextNumber++;
-        return result;
+        return this.nextNumber.getAndIncrement();
+    }
+
+    /**
+     * Applies the document's compression settings to a stream (page 
+     * content, an image, a font or another resource): nothing in debug 
+     * mode, otherwise the compression policy if there is one, or else a 
+     * {@code FlateFilter}.
+     * 
+     * @param stream  the stream ({@code null} not permitted).
+     * 
+     * @since 1.9
+     */
+    void applyCompression(Stream stream) {
+        if (this.debug) {
+            return;
+        }
+        if (this.compressionPolicy != null) {
+            stream.setCompressionPolicy(this.compressionPolicy);
+        } else {
+            stream.addFilter(new FlateFilter());
+        }
     }
 
     /**
@@ -235,65 +511,119 @@ public class PDFDocument {
      * @return A byte array containing the encoding of this PDF document. 
      */
     public byte[] getPDFBytes() {
-        int[] xref = new int[this.nextNumber];
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectWriter writer = new ObjectWriter(bos);
         try {
-            bos.write(toBytes("%PDF-1.4\n"));
-            bos.write(new byte[] { (byte) 37, (byte) 128, (byte) 129, 
-                (byte) 130, (byte) 131, (byte) 10});
-            xref[this.catalog.getNumber() - 1] = bos.size();  // offset to catalog
-            bos.write(this.catalog.toPDFBytes());
-            xref[this.outlines.getNumber() - 1] = bos.size();  // offset to outlines
-            bos.write(this.outlines.toPDFBytes());            
-            xref[this.info.getNumber() - 1] = bos.size();  // offset to info
-            bos.write(this.info.toPDFBytes());
-            xref[this.pages.getNumber() - 1] = bos.size();  // offset to pages
-            bos.write(this.pages.toPDFBytes());
+            writer.writeHeader();
+            writeHeaderObjects(writer);
+            writer.writeObject(this.pages);
             for (Page page : this.pages.getPages()) {
-                xref[page.getNumber() - 1] = bos.size();
-                bos.write(page.toPDFBytes());
-                PDFObject contents = page.getContents();
-                xref[contents.getNumber() - 1] = bos.size();
-                bos.write(contents.toPDFBytes());
+                writePage(writer, page);
             }
-            for (PDFFont font: this.pages.getFonts()) {
-                xref[font.getNumber() - 1] = bos.size();
-                bos.write(font.toPDFBytes());
-            }
-            for (PDFObject object: this.otherObjects) {
-                xref[object.getNumber() - 1] = bos.size();
-                bos.write(object.toPDFBytes());
-            }
-            xref[xref.length - 1] = bos.size();
-            // write the xref table
-            bos.write(toBytes("xref\n"));
-            bos.write(toBytes("0 " + String.valueOf(this.nextNumber) 
-                    + "\n"));
-            bos.write(toBytes("0000000000 65535 f \n"));
-            for (int i = 0; i < this.nextNumber - 1; i++) {
-                String offset = String.valueOf(xref[i]);
-                int len = offset.length();
-                String offset10 = "0000000000".substring(len) + offset;
-                bos.write(toBytes(offset10 + " 00000 n \n"));
-            }
-  
-            // write the trailer
-            bos.write(toBytes("trailer\n"));
-            Dictionary trailer = new Dictionary();
-            trailer.put("/Size", Integer.valueOf(this.nextNumber));
-            trailer.put("/Root", this.catalog);
-            trailer.put("/Info", this.info);
-            bos.write(trailer.toPDFBytes());
-            bos.write(toBytes("startxref\n"));
-            bos.write(toBytes(String.valueOf(xref[this.nextNumber - 1]) 
-                    + "\n"));
-            bos.write(toBytes("%%EOF"));
+            writeFontsAndOtherObjects(writer);
+            writer.writeXrefAndTrailer(this.nextNumber.get(), this.catalog, 
+                    this.info);
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
         return bos.toByteArray();
     }
     
+    /**
+     * Creates a pipeline that writes this document to {@code out} page by
+     * page, as each page is completed.  See {@link DocumentPipeline} for 
+     * details.
+     * 
+     * @param out  the output stream ({@code null} not permitted).
+     * @param queueDepth  the maximum number of pages waiting in each stage
+     *     of the pipeline (at least 1).
+     * 
+     * @return The pipeline (already started).
+     * 
+     * @since 1.9
+     */
+    public DocumentPipeline createPipeline(OutputStream out, int queueDepth) {
+        return new DocumentPipeline(this, out, queueDepth);
+    }
+    
+    /**
+     * Writes the catalog, outlines and info objects.
+     * 
+     * @param writer  the writer.
+     * 
+     * @throws IOException if there is an I/O problem.
+     */
+    void writeHeaderObjects(ObjectWriter writer) throws IOException {
+        writer.writeObject(this.catalog);
+        writer.writeObject(this.outlines);
+        writer.writeObject(this.info);
+    }
+    
+    /**
+     * Writes a page, its content streams and the other objects created for
+     * the page.
+     * 
+     * @param writer  the writer.
+     * @param page  the page.
+     * 
+     * @throws IOException if there is an I/O problem.
+     */
+    private void writePage(ObjectWriter writer, Page page) 
+            throws IOException {
+        writer.writeObject(page);
+        for (GraphicsStream stream : page.getContentStreams()) {
+            writer.writeObject(stream);
+        }
+        for (PDFObject object : page.getObjects()) {
+            writer.writeObject(object);
+        }
+    }
+    
+    /**
+     * Writes everything that a {@link DocumentPipeline} has not already 
+     * written: any pages that were not submitted, the page tree, the 
+     * fonts, the other objects, and finally the cross-reference table and 
+     * trailer.
+     * 
+     * @param writer  the writer.
+     * 
+     * @throws IOException if there is an I/O problem.
+     */
+    void writeRemainingObjects(ObjectWriter writer) throws IOException {
+        for (Page page : this.pages.getPages()) {
+            if (!writer.isWritten(page.getNumber())) {
+                writePage(writer, page);
+            }
+        }
+        writer.writeObject(this.pages);
+        writeFontsAndOtherObjects(writer);
+        writer.writeXrefAndTrailer(this.nextNumber.get(), this.catalog, 
+                this.info);
+    }
+    
+    /**
+     * Writes the font objects and any other objects that have been added 
+     * to the document (see {@link #addObject(com.orsonpdf.PDFObject)}).
+     * 
+     * @param writer  the writer.
+     * 
+     * @throws IOException if there is an I/O problem.
+     */
+    private void writeFontsAndOtherObjects(ObjectWriter writer) 
+            throws IOException {
+        for (PDFFont font: this.pages.getFonts()) {
+            writer.writeObject(font);
+            for (PDFObject object : font.getDependentObjects()) {
+                writer.writeObject(object);
+            }
+        }
+        synchronized (this.otherObjects) {
+            for (PDFObject object: this.otherObjects) {
+                writer.writeObject(object);
+            }
+        }
+    }
+
     /**
      * Writes the PDF document to a file.  This is not a robust method, it
      * exists mainly for the demo output. 
@@ -319,22 +649,5 @@ public class PDFDocument {
             }
         }
     }
-   
-    /**
-     * A utility method to convert a string to US-ASCII byte format.
-     * 
-     * @param s  the string.
-     * 
-     * @return The corresponding byte array.
-     */
-    private byte[] toBytes(String s) {
-        byte[] result = null;
-        try {
-            result = s.getBytes("US-ASCII");
-        } catch (UnsupportedEncodingException ex) {
-            throw new RuntimeException(ex);
-        }
-        return result;
-    }
 
 }
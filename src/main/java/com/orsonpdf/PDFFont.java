@@ -32,6 +32,11 @@
 
 package com.orsonpdf;
 
+import com.orsonpdf.font.StandardFont;
+import com.orsonpdf.font.TextEncoding;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * A {@link PDFObject} representing a PDF font.
  */
@@ -80,6 +85,9 @@ public class PDFFont extends PDFObject {
     
     private String encoding;
     
+    /** The encoding used to write text (never {@code null}). */
+    private final TextEncoding textEncoding;
+    
     /**
      * Creates a new {@code PDFFont} instance.
      * 
@@ -95,6 +103,8 @@ public class PDFFont extends PDFObject {
         this.name = name;
         this.baseFont = baseFont;
         this.encoding = encoding;
+        TextEncoding te = TextEncoding.forName(encoding);
+        this.textEncoding = te != null ? te : TextEncoding.MAC_ROMAN;
     }
 
     /**
@@ -107,6 +117,17 @@ public class PDFFont extends PDFObject {
         return this.name;
     }
 
+    /**
+     * Returns the base font name (for example "/Helvetica").
+     * 
+     * @return The base font name (possibly {@code null}).
+     * 
+     * @since 1.9
+     */
+    String getBaseFont() {
+        return this.baseFont;
+    }
+
     /**
      * Returns the bytes that go between the 'obj' and 'endobj' in the
      * PDF output for this object.
@@ -118,12 +139,78 @@ public class PDFFont extends PDFObject {
         return createDictionary().toPDFBytes(); 
     }
 
+    /**
+     * Encodes text as the character codes for this font.  For a simple 
+     * font the codes are those of the font's encoding (characters that are
+     * not in the encoding are written as '?').
+     * 
+     * @param text  the text ({@code null} not permitted).
+     * 
+     * @return The character codes (never {@code null}).
+     * 
+     * @since 1.9
+     */
+    byte[] encode(CharSequence text) {
+        return this.textEncoding.encode(text);
+    }
+
+    /**
+     * Returns the encoding for this font (MacRoman if the font's 
+     * {@code /Encoding} is not one of the standard encodings).
+     * 
+     * @return The encoding (never {@code null}).
+     * 
+     * @since 1.9
+     */
+    TextEncoding getTextEncoding() {
+        return this.textEncoding;
+    }
+
+    /**
+     * Writes a range of characters to a content stream as a string of 
+     * character codes for this font.  For a simple font, each character is
+     * encoded directly into the content buffer (no objects are created).
+     * 
+     * @param gs  the content stream ({@code null} not permitted).
+     * @param text  the text ({@code null} not permitted).
+     * @param start  the index of the first character.
+     * @param end  the index after the last character.
+     * 
+     * @since 1.9
+     */
+    void writeText(GraphicsStream gs, CharSequence text, int start, 
+            int end) {
+        gs.writeString(text, start, end, this.textEncoding);
+    }
+
+    /**
+     * Returns the other objects that are referenced by this font and must
+     * be written to the document with it (for example, a font descriptor
+     * and an embedded font program).
+     * 
+     * @return The objects (possibly empty, but never {@code null}).
+     * 
+     * @since 1.9
+     */
+    List<PDFObject> getDependentObjects() {
+        return Collections.emptyList();
+    }
+
     private Dictionary createDictionary() {
         Dictionary dictionary = new Dictionary("/Font");
         dictionary.put("/Subtype", "/Type1");
         dictionary.put("/Name", this.name);
         dictionary.put("/BaseFont", this.baseFont);
         dictionary.put("/Encoding", this.encoding);
+        StandardFont metrics = StandardFont.getInstance(this.baseFont);
+        if (metrics != null) {
+            dictionary.put("/FirstChar", 
+                    Integer.valueOf(StandardFont.FIRST_CHAR));
+            dictionary.put("/LastChar", 
+                    Integer.valueOf(StandardFont.LAST_CHAR));
+            dictionary.put("/Widths", metrics.getWidthsArray(
+                    getTextEncoding()));
+        }
         return dictionary;        
     }
     
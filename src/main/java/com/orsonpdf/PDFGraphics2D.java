@@ -60,6 +60,7 @@ import java.awt.geom.GeneralPath;
 import java.awt.geom.Line2D;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
@@ -69,9 +70,15 @@ import java.awt.image.RenderedImage;
 import java.awt.image.renderable.RenderableImage;
 import java.text.AttributedCharacterIterator;
 import java.text.AttributedString;
+import java.util.Arrays;
 import java.util.Map;
+import com.orsonpdf.font.StandardFont;
+import com.orsonpdf.font.StandardFontMetrics;
 import com.orsonpdf.util.Args;
+import com.orsonpdf.util.FontMetricsCache;
 import com.orsonpdf.util.GraphicsUtils;
+import com.orsonpdf.util.ParagraphLayout;
+import com.orsonpdf.util.TextLayoutCache;
 
 /**
  * A {@code Graphics2D} implementation that writes to PDF format.  For 
@@ -107,10 +114,6 @@ public final class PDFGraphics2D extends Graphics2D {
     
     private Font font = new Font("SansSerif", Font.PLAIN, 12);
     
-    /** A hidden image used for font metrics. */
-    private BufferedImage image = new BufferedImage(10, 10, 
-            BufferedImage.TYPE_INT_RGB);
-
     /**
      * An instance that is lazily instantiated in drawLine and then 
      * subsequently reused to avoid creating a lot of garbage.
@@ -144,6 +147,20 @@ public final class PDFGraphics2D extends Graphics2D {
     /** The content created by the Graphics2D instance. */
     private GraphicsStream gs;
     
+    /** 
+     * A flag indicating that the current paint (a gradient) has not yet been
+     * applied to the graphics stream.  Gradients are applied when they are
+     * first used, so that no pattern resources are created for items that
+     * are culled.
+     */
+    private boolean paintPending;
+    
+    /** A scratch array used for the culling test. */
+    private final double[] cullPoints = new double[8];
+    
+    /** The metrics last returned by {@link #getFontMetrics(Font)}. */
+    private StandardFontMetrics standardMetrics;
+    
     private GraphicsConfiguration deviceConfiguration;
 
     /** 
@@ -199,6 +216,17 @@ public final class PDFGraphics2D extends Graphics2D {
         this.gs.applyStroke(getStroke());
     }
 
+    /**
+     * Returns the graphics stream that this instance writes to.
+     * 
+     * @return The graphics stream.
+     * 
+     * @since 1.9
+     */
+    GraphicsStream getGraphicsStream() {
+        return this.gs;
+    }
+
     /**
      * Returns a new {@code PDFGraphics2D} instance that is a copy of this
      * instance.
@@ -255,15 +283,29 @@ public final class PDFGraphics2D extends Graphics2D {
             return;
         }
         this.paint = paint;
-        if (paint instanceof GradientPaint) {
-            GradientPaint gp = (GradientPaint) paint;
+        this.paintPending = paint instanceof GradientPaint 
+                || paint instanceof RadialGradientPaint;
+    }
+    
+    /**
+     * Applies the current paint to the graphics stream if it is a gradient
+     * that has not been applied yet.  This is called by each method that 
+     * draws or fills using the current paint.
+     */
+    private void applyPendingPaint() {
+        if (!this.paintPending) {
+            return;
+        }
+        if (this.paint instanceof GradientPaint) {
+            GradientPaint gp = (GradientPaint) this.paint;
             this.gs.applyStrokeGradient(gp);
             this.gs.applyFillGradient(gp);
-        } else if (paint instanceof RadialGradientPaint) {
-            RadialGradientPaint rgp = (RadialGradientPaint) paint;
+        } else if (this.paint instanceof RadialGradientPaint) {
+            RadialGradientPaint rgp = (RadialGradientPaint) this.paint;
             this.gs.applyStrokeGradient(rgp);
             this.gs.applyFillGradient(rgp);
         }
+        this.paintPending = false;
     }
 
     /**
@@ -296,6 +338,7 @@ public final class PDFGraphics2D extends Graphics2D {
         }
         this.color = c;
         this.paint = c;
+        this.paintPending = false;
         this.gs.applyStrokeColor(c);
         this.gs.applyFillColor(c);
     }
@@ -458,6 +501,13 @@ public final class PDFGraphics2D extends Graphics2D {
     }
 
     private Shape invTransformedClip(Shape clip) {
+        if (clip instanceof Rectangle2D && isAxisAligned(this.transform)) {
+            Rectangle2D r = inverseTransformRect(this.transform, 
+                    (Rectangle2D) clip);
+            if (r != null) {
+                return r;
+            }
+        }
         Shape result = clip;
         try {
             AffineTransform inv = this.transform.createInverse();
@@ -467,6 +517,170 @@ public final class PDFGraphics2D extends Graphics2D {
         }
         return result;
     }
+    
+    /**
+     * Returns {@code true} if the transform maps rectangles to rectangles
+     * (that is, it has no rotation or shear component).
+     * 
+     * @param t  the transform.
+     * 
+     * @return A boolean. 
+     */
+    private static boolean isAxisAligned(AffineTransform t) {
+        return t.getShearX() == 0.0 && t.getShearY() == 0.0;
+    }
+    
+    /**
+     * Returns {@code true} if the rectangle can be transformed with the 
+     * rectangle fast path (both dimensions are non-negative).
+     * 
+     * @param r  the rectangle.
+     * 
+     * @return A boolean. 
+     */
+    private static boolean isValidRect(Rectangle2D r) {
+        return r.getWidth() >= 0.0 && r.getHeight() >= 0.0;
+    }
+    
+    /**
+     * Transforms a rectangle using an axis-aligned transform (see 
+     * {@link #isAxisAligned(java.awt.geom.AffineTransform)}), without the 
+     * overhead of creating a general path.
+     * 
+     * @param t  the transform.
+     * @param r  the rectangle.
+     * 
+     * @return A new rectangle.
+     */
+    private static Rectangle2D transformRect(AffineTransform t, 
+            Rectangle2D r) {
+        double x0 = r.getMinX() * t.getScaleX() + t.getTranslateX();
+        double x1 = r.getMaxX() * t.getScaleX() + t.getTranslateX();
+        double y0 = r.getMinY() * t.getScaleY() + t.getTranslateY();
+        double y1 = r.getMaxY() * t.getScaleY() + t.getTranslateY();
+        return new Rectangle2D.Double(Math.min(x0, x1), Math.min(y0, y1), 
+                Math.abs(x1 - x0), Math.abs(y1 - y0));
+    }
+    
+    /**
+     * Applies the inverse of an axis-aligned transform to a rectangle.
+     * 
+     * @param t  the transform.
+     * @param r  the rectangle.
+     * 
+     * @return A new rectangle, or {@code null} if the transform is not 
+     *     invertible.
+     */
+    private static Rectangle2D inverseTransformRect(AffineTransform t, 
+            Rectangle2D r) {
+        double sx = t.getScaleX();
+        double sy = t.getScaleY();
+        if (sx == 0.0 || sy == 0.0) {
+            return null;
+        }
+        double x0 = (r.getMinX() - t.getTranslateX()) / sx;
+        double x1 = (r.getMaxX() - t.getTranslateX()) / sx;
+        double y0 = (r.getMinY() - t.getTranslateY()) / sy;
+        double y1 = (r.getMaxY() - t.getTranslateY()) / sy;
+        return new Rectangle2D.Double(Math.min(x0, x1), Math.min(y0, y1), 
+                Math.abs(x1 - x0), Math.abs(y1 - y0));
+    }
+    
+    /**
+     * Returns {@code true} if the {@link PDFHints#KEY_CULLING} hint is set 
+     * to {@link PDFHints#VALUE_CULLING_ON}.
+     * 
+     * @return A boolean. 
+     */
+    private boolean isCullingOn() {
+        return PDFHints.VALUE_CULLING_ON.equals(this.hints.get(
+                PDFHints.KEY_CULLING));
+    }
+    
+    /**
+     * Returns {@code true} if the culling hint is set and the rectangle 
+     * {@code (x, y, w, h)} in user space, expanded on all sides by 
+     * {@code pad}, lies entirely outside the page or the current clip.
+     * 
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     * @param w  the width.
+     * @param h  the height.
+     * @param pad  the padding (for example, to allow for the stroke width).
+     * 
+     * @return A boolean.
+     */
+    private boolean isCulled(double x, double y, double w, double h, 
+            double pad) {
+        if (!isCullingOn()) {
+            return false;
+        }
+        double x0 = x - pad;
+        double y0 = y - pad;
+        double x1 = x + w + pad;
+        double y1 = y + h + pad;
+        double[] pts = this.cullPoints;
+        pts[0] = x0; pts[1] = y0;
+        pts[2] = x1; pts[3] = y0;
+        pts[4] = x1; pts[5] = y1;
+        pts[6] = x0; pts[7] = y1;
+        this.transform.transform(pts, 0, pts, 0, 4);
+        double minX = Math.min(Math.min(pts[0], pts[2]), 
+                Math.min(pts[4], pts[6]));
+        double maxX = Math.max(Math.max(pts[0], pts[2]), 
+                Math.max(pts[4], pts[6]));
+        double minY = Math.min(Math.min(pts[1], pts[3]), 
+                Math.min(pts[5], pts[7]));
+        double maxY = Math.max(Math.max(pts[1], pts[3]), 
+                Math.max(pts[5], pts[7]));
+        // the comparisons are arranged so that NaN values are never culled
+        if (maxX < 0.0 || minX > this.width || maxY < 0.0 
+                || minY > this.height) {
+            return true;
+        }
+        if (this.clip != null) {
+            Rectangle2D cb = this.clip.getBounds2D();
+            if (cb.isEmpty() || maxX < cb.getMinX() || minX > cb.getMaxX() 
+                    || maxY < cb.getMinY() || minY > cb.getMaxY()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the culling hint is set and the specified 
+     * bounds (in user space) lie entirely outside the page or the current 
+     * clip.
+     * 
+     * @param bounds  the bounds.
+     * @param pad  the padding.
+     * 
+     * @return A boolean. 
+     */
+    private boolean isCulled(Rectangle2D bounds, double pad) {
+        return isCulled(bounds.getX(), bounds.getY(), bounds.getWidth(), 
+                bounds.getHeight(), pad);
+    }
+    
+    /**
+     * Returns the distance that the current stroke can extend beyond the 
+     * bounds of a shape, allowing for the line width, joins and caps.
+     * 
+     * @return The padding. 
+     */
+    private double strokePadding() {
+        if (!(this.stroke instanceof BasicStroke)) {
+            return 0.0;
+        }
+        BasicStroke bs = (BasicStroke) this.stroke;
+        double half = bs.getLineWidth() / 2.0;
+        if (bs.getLineJoin() == BasicStroke.JOIN_MITER) {
+            return half * Math.max(bs.getMiterLimit(), Math.sqrt(2.0));
+        }
+        return half * Math.sqrt(2.0);
+    }
+    
     /**
      * Draws the specified shape with the current {@code paint} and 
      * {@code stroke}.  There is direct handling for {@code Line2D} 
@@ -484,6 +698,11 @@ public final class PDFGraphics2D extends Graphics2D {
             fill(this.stroke.createStrokedShape(s));
             return;
         }
+        if ((s instanceof Line2D || s instanceof Path2D) && isCullingOn()
+                && isCulled(s.getBounds2D(), strokePadding())) {
+            return;
+        }
+        applyPendingPaint();
         if (s instanceof Line2D) {
             if (this.clip != null) {
                 this.gs.pushGraphicsState();
@@ -519,6 +738,10 @@ public final class PDFGraphics2D extends Graphics2D {
     @Override
     public void fill(Shape s) {
         if (s instanceof Path2D) {
+            if (isCullingOn() && isCulled(s.getBounds2D(), 0.0)) {
+                return;
+            }
+            applyPendingPaint();
             if (this.clip != null) {
                 this.gs.pushGraphicsState();
                 this.gs.applyClip(invTransformedClip(this.clip));
@@ -561,7 +784,10 @@ public final class PDFGraphics2D extends Graphics2D {
     }
 
     /**
-     * Returns the font metrics for the specified font.
+     * Returns the font metrics for the specified font.  When text in the 
+     * font is written with one of the standard PDF fonts, the metrics are
+     * based on the built-in widths for that font (see 
+     * {@link StandardFontMetrics}) so that they match the output exactly.
      * 
      * @param f  the font.
      * 
@@ -569,13 +795,26 @@ public final class PDFGraphics2D extends Graphics2D {
      */
     @Override
     public FontMetrics getFontMetrics(Font f) {
-        return this.image.createGraphics().getFontMetrics(f);
+        if (!PDFHints.VALUE_DRAW_STRING_TYPE_VECTOR.equals(
+                this.hints.get(PDFHints.KEY_DRAW_STRING_TYPE))) {
+            StandardFont standardFont = this.gs.findStandardFont(f);
+            if (standardFont != null) {
+                StandardFontMetrics m = this.standardMetrics;
+                if (m == null || m.getStandardFont() != standardFont 
+                        || !f.equals(m.getFont())) {
+                    m = new StandardFontMetrics(f, standardFont);
+                    this.standardMetrics = m;
+                }
+                return m;
+            }
+        }
+        return FontMetricsCache.getDefault().getFontMetrics(f);
     }
 
     /**
-     * Returns the font render context.  The implementation here returns the
-     * {@code FontRenderContext} for an image that is maintained 
-     * internally (as for {@link #getFontMetrics}).
+     * Returns the font render context.  The implementation here returns a
+     * fixed {@code FontRenderContext} (identity transform, fractional 
+     * metrics on).
      * 
      * @return The font render context.
      */
@@ -612,6 +851,10 @@ public final class PDFGraphics2D extends Graphics2D {
         if (str == null) {
             throw new NullPointerException("Null 'str' argument.");
         }
+        if (isCullingOn() && isCulled(textBounds(str, x, y), 0.0)) {
+            return;
+        }
+        applyPendingPaint();
         if (this.clip != null) {
             this.gs.pushGraphicsState();
             this.gs.applyClip(invTransformedClip(this.clip));
@@ -633,6 +876,75 @@ public final class PDFGraphics2D extends Graphics2D {
         }
     }
 
+    /**
+     * Draws a paragraph of text broken into lines that fit the specified 
+     * width, with the first baseline at {@code (x, y)} (see 
+     * {@link ParagraphLayout} for how lines are broken).  In text mode the
+     * paragraph is written as a single text object, otherwise each line is
+     * drawn with {@link #drawString(java.lang.String, float, float)}.
+     * 
+     * @param text  the text ({@code null} not permitted).
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate of the first baseline.
+     * @param width  the maximum line width (must be positive).
+     * 
+     * @return The layout of the paragraph (never {@code null}).
+     * 
+     * @since 1.9
+     */
+    public ParagraphLayout drawParagraph(String text, float x, float y, 
+            float width) {
+        ParagraphLayout layout = ParagraphLayout.layout(text, 
+                getFontMetrics(), width);
+        float lineHeight = layout.getLineHeight();
+        if (PDFHints.VALUE_DRAW_STRING_TYPE_VECTOR.equals(
+                this.hints.get(PDFHints.KEY_DRAW_STRING_TYPE))) {
+            for (int i = 0; i < layout.getLineCount(); i++) {
+                drawString(layout.getLine(i), x, y + i * lineHeight);
+            }
+            return layout;
+        }
+        if (isCullingOn()) {
+            Rectangle2D mcb = this.font.getMaxCharBounds(
+                    getFontRenderContext());
+            Rectangle2D bounds = new Rectangle2D.Double(x + Math.min(
+                    mcb.getX(), 0.0), y + mcb.getY(), width + mcb.getWidth() 
+                    + Math.abs(mcb.getX()), (layout.getLineCount() - 1) 
+                    * lineHeight + mcb.getHeight());
+            if (isCulled(bounds, 0.0)) {
+                return layout;
+            }
+        }
+        applyPendingPaint();
+        if (this.clip != null) {
+            this.gs.pushGraphicsState();
+            this.gs.applyClip(invTransformedClip(this.clip));
+        }
+        this.gs.drawParagraph(layout, x, y);
+        if (this.clip != null) {
+            this.gs.popGraphicsState();
+        }
+        return layout;
+    }
+
+    /**
+     * Returns a rectangle that is guaranteed to contain the string drawn at
+     * {@code (x, y)} with the current font, for the culling test.
+     * 
+     * @param str  the string.
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     * 
+     * @return The bounds (in user space). 
+     */
+    private Rectangle2D textBounds(String str, float x, float y) {
+        Rectangle2D mcb = this.font.getMaxCharBounds(
+                getFontRenderContext());
+        return new Rectangle2D.Double(x + Math.min(mcb.getX(), 0.0), 
+                y + mcb.getY(), str.length() * mcb.getWidth() 
+                + Math.abs(mcb.getX()), mcb.getHeight());
+    }
+
     /**
      * Draws a string of attributed characters at {@code (x, y)}.  The call is 
      * delegated to 
@@ -652,6 +964,10 @@ public final class PDFGraphics2D extends Graphics2D {
      * <p>
      * <b>LIMITATION</b>: in the current implementation, the string is drawn 
      * using the current font and the formatting is ignored.
+     * <p>
+     * The {@code TextLayout} for the text is cached (see 
+     * {@link TextLayoutCache}), so drawing the same text again replays the
+     * glyphs without repeating the layout.
      * 
      * @param iterator  an iterator over the characters ({@code null} not 
      *     permitted).
@@ -661,12 +977,17 @@ public final class PDFGraphics2D extends Graphics2D {
     @Override
     public void drawString(AttributedCharacterIterator iterator, float x, 
             float y) {
-        TextLayout layout = new TextLayout(iterator, getFontRenderContext());
+        TextLayout layout = TextLayoutCache.getDefault().getTextLayout(
+                iterator, getFontRenderContext());
         layout.draw(this, x, y);
     }
 
     /**
-     * Draws the specified glyph vector at the location {@code (x, y)}.
+     * Draws the specified glyph vector at the location {@code (x, y)}.  
+     * Unless the {@link PDFHints#KEY_GLYPH_CACHE} hint is turned off, the
+     * glyph outlines are defined once in a Type 3 font and drawn as text,
+     * otherwise (and always for transformed glyphs) the outline is filled
+     * as a shape.
      * 
      * @param g  the glyph vector ({@code null} not permitted).
      * @param x  the x-coordinate.
@@ -674,7 +995,69 @@ public final class PDFGraphics2D extends Graphics2D {
      */
     @Override
     public void drawGlyphVector(GlyphVector g, float x, float y) {
-        fill(g.getOutline(x, y));
+        if (!isGlyphCacheable(g)) {
+            fill(g.getOutline(x, y));
+            return;
+        }
+        if (isCullingOn() && isCulled(glyphBounds(g, x, y), 0.0)) {
+            return;
+        }
+        applyPendingPaint();
+        if (this.clip != null) {
+            this.gs.pushGraphicsState();
+            this.gs.applyClip(invTransformedClip(this.clip));
+            this.gs.drawGlyphs(g, x, y);
+            this.gs.popGraphicsState();
+        } else {
+            this.gs.drawGlyphs(g, x, y);
+        }
+    }
+
+    /**
+     * Returns a rectangle that is guaranteed to contain the glyph vector 
+     * drawn at {@code (x, y)}, for the culling test.  This uses the logical
+     * bounds and the maximum character bounds of the font, so the glyph 
+     * outlines are not needed.
+     * 
+     * @param g  the glyph vector.
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     * 
+     * @return The bounds (in user space). 
+     */
+    private static Rectangle2D glyphBounds(GlyphVector g, float x, float y) {
+        Rectangle2D lb = g.getLogicalBounds();
+        Rectangle2D mcb = g.getFont().getMaxCharBounds(
+                g.getFontRenderContext());
+        double x0 = x + lb.getX() + Math.min(mcb.getX(), 0.0);
+        double y0 = y + Math.min(lb.getY(), mcb.getY());
+        double x1 = x + lb.getMaxX() + mcb.getWidth();
+        double y1 = y + Math.max(lb.getMaxY(), mcb.getMaxY());
+        return new Rectangle2D.Double(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Returns {@code true} if the glyphs in the glyph vector can be drawn 
+     * using the cached outlines in a Type 3 font (see 
+     * {@link PDFHints#KEY_GLYPH_CACHE}), and {@code false} if the outline 
+     * must be filled as a shape.
+     * 
+     * @param g  the glyph vector.
+     * 
+     * @return A boolean. 
+     */
+    private boolean isGlyphCacheable(GlyphVector g) {
+        if (PDFHints.VALUE_GLYPH_CACHE_OFF.equals(this.hints.get(
+                PDFHints.KEY_GLYPH_CACHE))) {
+            return false;
+        }
+        if (g.getFont().isTransformed()) {
+            return false;
+        }
+        if ((g.getLayoutFlags() & GlyphVector.FLAG_HAS_TRANSFORMS) != 0) {
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -815,6 +1198,12 @@ public final class PDFGraphics2D extends Graphics2D {
      */
     @Override
     public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+        if (!onStroke && s instanceof Rectangle2D 
+                && isAxisAligned(this.transform) 
+                && isValidRect((Rectangle2D) s)) {
+            return rect.intersects(transformRect(this.transform, 
+                    (Rectangle2D) s));
+        }
         Shape ts;
         if (onStroke) {
             ts = this.transform.createTransformedShape(
@@ -876,6 +1265,11 @@ public final class PDFGraphics2D extends Graphics2D {
         if (this.clip == null) {
             return null;
         }
+        if (this.clip instanceof Rectangle2D 
+                && isAxisAligned(this.transform)) {
+            return inverseTransformRect(this.transform, 
+                    (Rectangle2D) this.clip);
+        }
         AffineTransform inv;
         try {
             inv = this.transform.createInverse();
@@ -894,6 +1288,13 @@ public final class PDFGraphics2D extends Graphics2D {
      */
     @Override
     public void setClip(Shape shape) {
+        if (shape instanceof Rectangle2D && isAxisAligned(this.transform)
+                && isValidRect((Rectangle2D) shape)) {
+            // a fast path for the common case, the clip is kept as a 
+            // rectangle so that clip() and applyClip() can avoid Area/Path2D
+            this.clip = transformRect(this.transform, (Rectangle2D) shape);
+            return;
+        }
         // null is handled fine here...
         this.clip = this.transform.createTransformedShape(shape);
         // the clip does not get applied to the PDF output immediately,
@@ -936,6 +1337,19 @@ public final class PDFGraphics2D extends Graphics2D {
             setClip(s);
             return;
         }
+        if (this.clip instanceof Rectangle2D && s instanceof Rectangle2D
+                && isAxisAligned(this.transform) 
+                && isValidRect((Rectangle2D) s)) {
+            Rectangle2D c = (Rectangle2D) this.clip;
+            Rectangle2D r = transformRect(this.transform, (Rectangle2D) s);
+            if (!r.intersects(c)) {
+                setClip(new Rectangle2D.Double());
+            } else {
+                Rectangle2D.intersect(r, c, r);
+                this.clip = r;
+            }
+            return;
+        }
         Shape ts = this.transform.createTransformedShape(s);
         if (!ts.intersects(this.clip.getBounds2D())) {
             setClip(new Rectangle2D.Double());
@@ -1199,6 +1613,441 @@ public final class PDFGraphics2D extends Graphics2D {
         fill(p);
     }
 
+    /**
+     * Fills the rectangle {@code area} with a grid of colored cells (for 
+     * example, a heat map).  The whole grid is written to the PDF output as a
+     * single free-form shading, which is far more compact (and faster to 
+     * render in a PDF viewer) than filling each cell as a separate rectangle.
+     * The {@code rgb} array contains one color per cell, row by row starting
+     * at the top left of {@code area}.  The alpha component of each color is
+     * ignored.
+     * 
+     * @param area  the area to fill ({@code null} not permitted).
+     * @param columns  the number of columns in the grid (at least 1).
+     * @param rows  the number of rows in the grid (at least 1).
+     * @param rgb  the cell colors as packed RGB values ({@code null} not 
+     *     permitted).
+     * 
+     * @see #fillColorLattice(java.awt.geom.Rectangle2D, int, int, int[]) 
+     * 
+     * @since 1.9
+     */
+    public void fillColorGrid(Rectangle2D area, int columns, int rows, 
+            int[] rgb) {
+        Args.nullNotPermitted(area, "area");
+        Args.nullNotPermitted(rgb, "rgb");
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("Require at least one cell.");
+        }
+        if (rgb.length < columns * rows) {
+            throw new IllegalArgumentException("Require one color per cell.");
+        }
+        if (isCulled(area, 0.0)) {
+            return;
+        }
+        int cells = columns * rows;
+        double[] coords = new double[cells * 8];
+        int[] colors = new int[cells * 4];
+        byte[] flags = new byte[cells * 4];
+        double cw = area.getWidth() / columns;
+        double ch = area.getHeight() / rows;
+        int v = 0;
+        for (int r = 0; r < rows; r++) {
+            double y0 = area.getY() + r * ch;
+            double y1 = area.getY() + (r + 1) * ch;
+            for (int c = 0; c < columns; c++) {
+                double x0 = area.getX() + c * cw;
+                double x1 = area.getX() + (c + 1) * cw;
+                int color = rgb[r * columns + c];
+                // the first triangle is (x0, y0), (x1, y0), (x1, y1) and the
+                // second reuses the first and last vertices (flag 2) to add
+                // the corner (x0, y1)
+                v = setVertex(coords, colors, v, x0, y0, color);
+                v = setVertex(coords, colors, v, x1, y0, color);
+                v = setVertex(coords, colors, v, x1, y1, color);
+                v = setVertex(coords, colors, v, x0, y1, color);
+                flags[v - 1] = 2;
+            }
+        }
+        if (this.clip != null) {
+            this.gs.pushGraphicsState();
+            this.gs.applyClip(invTransformedClip(this.clip));
+            this.gs.paintFreeFormShading(coords, colors, flags);
+            this.gs.popGraphicsState();
+        } else {
+            this.gs.paintFreeFormShading(coords, colors, flags);
+        }
+    }
+    
+    /**
+     * Fills the rectangle {@code area} using a lattice of colors, with the
+     * colors being interpolated smoothly between the lattice points.  The
+     * {@code rgb} array contains one color per lattice point, row by row 
+     * starting at the top left of {@code area} (so the first and last 
+     * columns and rows fall on the edges of the area).  The lattice is 
+     * written to the PDF output as a single lattice-form shading.  The alpha
+     * component of each color is ignored.
+     * 
+     * @param area  the area to fill ({@code null} not permitted).
+     * @param columns  the number of lattice points in each row (at least 2).
+     * @param rows  the number of rows of lattice points (at least 2).
+     * @param rgb  the lattice colors as packed RGB values ({@code null} not
+     *     permitted).
+     * 
+     * @see #fillColorGrid(java.awt.geom.Rectangle2D, int, int, int[]) 
+     * 
+     * @since 1.9
+     */
+    public void fillColorLattice(Rectangle2D area, int columns, int rows, 
+            int[] rgb) {
+        Args.nullNotPermitted(area, "area");
+        Args.nullNotPermitted(rgb, "rgb");
+        if (columns < 2 || rows < 2) {
+            throw new IllegalArgumentException(
+                    "Require at least two columns and two rows.");
+        }
+        if (rgb.length < columns * rows) {
+            throw new IllegalArgumentException(
+                    "Require one color per lattice point.");
+        }
+        if (isCulled(area, 0.0)) {
+            return;
+        }
+        int count = columns * rows;
+        double[] coords = new double[count * 2];
+        int[] colors = new int[count];
+        double cw = area.getWidth() / (columns - 1);
+        double ch = area.getHeight() / (rows - 1);
+        int v = 0;
+        for (int r = 0; r < rows; r++) {
+            double y = area.getY() + r * ch;
+            for (int c = 0; c < columns; c++) {
+                v = setVertex(coords, colors, v, area.getX() + c * cw, y, 
+                        rgb[v]);
+            }
+        }
+        if (this.clip != null) {
+            this.gs.pushGraphicsState();
+            this.gs.applyClip(invTransformedClip(this.clip));
+            this.gs.paintLatticeFormShading(coords, colors, columns);
+            this.gs.popGraphicsState();
+        } else {
+            this.gs.paintLatticeFormShading(coords, colors, columns);
+        }
+    }
+    
+    /**
+     * Fills a list of triangles with colors specified at each vertex, the 
+     * colors being interpolated smoothly across each triangle.  The 
+     * triangles are written to the PDF output as a single free-form shading.
+     * The alpha component of each color is ignored.
+     * 
+     * @param coords  the vertex coordinates with x and y interleaved, three 
+     *     vertices per triangle ({@code null} not permitted).
+     * @param rgb  the vertex colors as packed RGB values ({@code null} not 
+     *     permitted).
+     * @param vertexCount  the number of vertices to use (a multiple of 3).
+     * 
+     * @since 1.9
+     */
+    public void fillColorTriangles(double[] coords, int[] rgb, 
+            int vertexCount) {
+        Args.nullNotPermitted(coords, "coords");
+        Args.nullNotPermitted(rgb, "rgb");
+        if (vertexCount < 3 || vertexCount % 3 != 0) {
+            throw new IllegalArgumentException(
+                    "Require three vertices per triangle.");
+        }
+        if (coords.length < vertexCount * 2 || rgb.length < vertexCount) {
+            throw new IllegalArgumentException(
+                    "Require coordinates and a color for each vertex.");
+        }
+        if (isCullingOn() && isCulled(coordBounds(coords, vertexCount), 
+                0.0)) {
+            return;
+        }
+        double[] c = Arrays.copyOf(coords, vertexCount * 2);
+        int[] colors = Arrays.copyOf(rgb, vertexCount);
+        if (this.clip != null) {
+            this.gs.pushGraphicsState();
+            this.gs.applyClip(invTransformedClip(this.clip));
+            this.gs.paintFreeFormShading(c, colors, null);
+            this.gs.popGraphicsState();
+        } else {
+            this.gs.paintFreeFormShading(c, colors, null);
+        }
+    }
+    
+    private static int setVertex(double[] coords, int[] colors, int v, 
+            double x, double y, int rgb) {
+        coords[v * 2] = x;
+        coords[v * 2 + 1] = y;
+        colors[v] = rgb;
+        return v + 1;
+    }
+
+    /**
+     * Draws a polyline through the first {@code n} points in the supplied 
+     * arrays using the current {@code paint} and {@code stroke}.  This gives
+     * the same result as drawing a {@code Path2D} built from the points, but
+     * avoids creating the path (and the per-segment formatting work) for 
+     * series with many data points.
+     * 
+     * @param xs  the x-coordinates ({@code null} not permitted).
+     * @param ys  the y-coordinates ({@code null} not permitted).
+     * @param n  the number of points to use.
+     * 
+     * @since 1.9
+     */
+    public void drawPolyline(double[] xs, double[] ys, int n) {
+        Args.nullNotPermitted(xs, "xs");
+        Args.nullNotPermitted(ys, "ys");
+        checkPointCount(xs, ys, n);
+        if (n < 2) {
+            return;
+        }
+        if (!(this.stroke instanceof BasicStroke)) {
+            draw(createPolyline(xs, ys, n));
+            return;
+        }
+        if (isCullingOn() && isCulled(pointBounds(xs, ys, n, 0, 0, 0, 0), 
+                strokePadding())) {
+            return;
+        }
+        applyPendingPaint();
+        if (this.clip != null) {
+            this.gs.pushGraphicsState();
+            this.gs.applyClip(invTransformedClip(this.clip));
+            this.gs.drawPolyline(xs, ys, n);
+            this.gs.popGraphicsState();
+        } else {
+            this.gs.drawPolyline(xs, ys, n);
+        }
+    }
+    
+    /**
+     * Fills {@code n} rectangles with the current {@code paint}.  The 
+     * rectangles are written to the PDF output as a single path, which is 
+     * useful for bar charts and histograms with many items.
+     * 
+     * @param xywh  the rectangles, with four values (x, y, width and height) 
+     *     for each rectangle ({@code null} not permitted).
+     * @param n  the number of rectangles.
+     * 
+     * @since 1.9
+     */
+    public void fillRects(double[] xywh, int n) {
+        Args.nullNotPermitted(xywh, "xywh");
+        if (n < 0 || xywh.length < n * 4) {
+            throw new IllegalArgumentException(
+                    "Require 4 values for each of the n rectangles.");
+        }
+        if (n == 0) {
+            return;
+        }
+        if (isCullingOn() && isCulled(rectBounds(xywh, n), 0.0)) {
+            return;
+        }
+        applyPendingPaint();
+        if (this.clip != null) {
+            this.gs.pushGraphicsState();
+            this.gs.applyClip(invTransformedClip(this.clip));
+            this.gs.fillRects(xywh, n);
+            this.gs.popGraphicsState();
+        } else {
+            this.gs.fillRects(xywh, n);
+        }
+    }
+    
+    /**
+     * Draws the outline of a marker shape at each of the first {@code n} 
+     * points in the supplied arrays (for example, the items in a scatter 
+     * plot).  The {@code marker} should be defined relative to (0, 0), it is
+     * translated to each point in turn.  All markers are written to the PDF
+     * output as a single path using the current {@code paint} and 
+     * {@code stroke}.
+     * 
+     * @param marker  the marker shape ({@code null} not permitted).
+     * @param xs  the x-coordinates ({@code null} not permitted).
+     * @param ys  the y-coordinates ({@code null} not permitted).
+     * @param n  the number of points.
+     * 
+     * @see #fillMarkers(java.awt.Shape, double[], double[], int) 
+     * 
+     * @since 1.9
+     */
+    public void drawMarkers(Shape marker, double[] xs, double[] ys, int n) {
+        Args.nullNotPermitted(marker, "marker");
+        Args.nullNotPermitted(xs, "xs");
+        Args.nullNotPermitted(ys, "ys");
+        checkPointCount(xs, ys, n);
+        if (!(this.stroke instanceof BasicStroke)) {
+            for (int i = 0; i < n; i++) {
+                draw(AffineTransform.getTranslateInstance(xs[i], ys[i])
+                        .createTransformedShape(marker));
+            }
+            return;
+        }
+        paintMarkers(marker, xs, ys, n, false);
+    }
+    
+    /**
+     * Fills a marker shape at each of the first {@code n} points in the 
+     * supplied arrays (for example, the items in a scatter plot).  The 
+     * {@code marker} should be defined relative to (0, 0), it is translated
+     * to each point in turn.  All markers are written to the PDF output as a
+     * single path using the current {@code paint}.
+     * 
+     * @param marker  the marker shape ({@code null} not permitted).
+     * @param xs  the x-coordinates ({@code null} not permitted).
+     * @param ys  the y-coordinates ({@code null} not permitted).
+     * @param n  the number of points.
+     * 
+     * @see #drawMarkers(java.awt.Shape, double[], double[], int) 
+     * 
+     * @since 1.9
+     */
+    public void fillMarkers(Shape marker, double[] xs, double[] ys, int n) {
+        Args.nullNotPermitted(marker, "marker");
+        Args.nullNotPermitted(xs, "xs");
+        Args.nullNotPermitted(ys, "ys");
+        checkPointCount(xs, ys, n);
+        paintMarkers(marker, xs, ys, n, true);
+    }
+    
+    /**
+     * Sets the foreground color from a packed ARGB value.  This has the 
+     * same effect as {@code setColor(new Color(argb, true))} but does 
+     * nothing (and creates no objects) when the color is unchanged, which 
+     * suits code that colors many items individually.
+     * 
+     * @param argb  the color (packed ARGB).
+     * 
+     * @since 1.9
+     */
+    public void setARGB(int argb) {
+        if (this.paint instanceof Color 
+                && ((Color) this.paint).getRGB() == argb) {
+            return;
+        }
+        setColor(new Color(argb, true));
+    }
+    
+    private void paintMarkers(Shape marker, double[] xs, double[] ys, int n, 
+            boolean fill) {
+        if (n == 0) {
+            return;
+        }
+        if (isCullingOn()) {
+            Rectangle2D mb = marker.getBounds2D();
+            if (isCulled(pointBounds(xs, ys, n, mb.getMinX(), mb.getMinY(), 
+                    mb.getMaxX(), mb.getMaxY()), fill ? 0.0 
+                    : strokePadding())) {
+                return;
+            }
+        }
+        applyPendingPaint();
+        // the marker is iterated once, and the segments replayed per point
+        int[] types = new int[8];
+        double[] coords = new double[48];
+        int segments = 0;
+        PathIterator iterator = marker.getPathIterator(null);
+        double[] seg = new double[6];
+        while (!iterator.isDone()) {
+            if (segments == types.length) {
+                types = Arrays.copyOf(types, segments * 2);
+                coords = Arrays.copyOf(coords, segments * 12);
+            }
+            types[segments] = iterator.currentSegment(seg);
+            System.arraycopy(seg, 0, coords, segments * 6, 6);
+            segments++;
+            iterator.next();
+        }
+        if (this.clip != null) {
+            this.gs.pushGraphicsState();
+            this.gs.applyClip(invTransformedClip(this.clip));
+            this.gs.drawMarkers(types, coords, segments, xs, ys, n, fill);
+            this.gs.popGraphicsState();
+        } else {
+            this.gs.drawMarkers(types, coords, segments, xs, ys, n, fill);
+        }
+    }
+    
+    private static void checkPointCount(double[] xs, double[] ys, int n) {
+        if (n < 0 || xs.length < n || ys.length < n) {
+            throw new IllegalArgumentException(
+                    "Require n coordinates in both xs and ys.");
+        }
+    }
+    
+    /**
+     * Returns the bounds of the first {@code n} points, with the minimum and
+     * maximum extended by the specified offsets (used for marker bounds).
+     */
+    private static Rectangle2D pointBounds(double[] xs, double[] ys, int n, 
+            double dx0, double dy0, double dx1, double dy1) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        return new Rectangle2D.Double(minX + dx0, minY + dy0, 
+                maxX + dx1 - minX - dx0, maxY + dy1 - minY - dy0);
+    }
+    
+    /**
+     * Returns the bounds of the first {@code n} rectangles in the array.
+     */
+    private static Rectangle2D rectBounds(double[] xywh, int n) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double x = xywh[i * 4];
+            double y = xywh[i * 4 + 1];
+            double w = xywh[i * 4 + 2];
+            double h = xywh[i * 4 + 3];
+            minX = Math.min(minX, Math.min(x, x + w));
+            maxX = Math.max(maxX, Math.max(x, x + w));
+            minY = Math.min(minY, Math.min(y, y + h));
+            maxY = Math.max(maxY, Math.max(y, y + h));
+        }
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+    }
+    
+    /**
+     * Returns the bounds of the first {@code n} points in an array of 
+     * interleaved x and y coordinates.
+     */
+    private static Rectangle2D coordBounds(double[] coords, int n) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, coords[i * 2]);
+            maxX = Math.max(maxX, coords[i * 2]);
+            minY = Math.min(minY, coords[i * 2 + 1]);
+            maxY = Math.max(maxY, coords[i * 2 + 1]);
+        }
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+    }
+    
+    private static Path2D createPolyline(double[] xs, double[] ys, int n) {
+        Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO, n);
+        path.moveTo(xs[0], ys[0]);
+        for (int i = 1; i < n; i++) {
+            path.lineTo(xs[i], ys[i]);
+        }
+        return path;
+    }
+
     /**
      * Draws an image with the specified transform. Note that the 
      * {@code obs} is ignored.     
@@ -1309,6 +2158,9 @@ public final class PDFGraphics2D extends Graphics2D {
     @Override
     public boolean drawImage(Image img, int x, int y, int w, int h, 
             ImageObserver observer) {
+        if (isCulled(x, y, w, h, 0.0)) {
+            return true;
+        }
         if (this.clip != null) {
             this.gs.pushGraphicsState();
             this.gs.applyClip(invTransformedClip(this.clip));
@@ -1394,6 +2246,10 @@ public final class PDFGraphics2D extends Graphics2D {
             int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
         int w = dx2 - dx1;
         int h = dy2 - dy1;
+        if (isCulled(Math.min(dx1, dx2), Math.min(dy1, dy2), Math.abs(w), 
+                Math.abs(h), 0.0)) {
+            return true;
+        }
         BufferedImage img2 = new BufferedImage(w, h, 
                 BufferedImage.TYPE_INT_ARGB);
         Graphics2D g2 = img2.createGraphics();
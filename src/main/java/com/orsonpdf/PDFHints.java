@@ -36,10 +36,15 @@ import java.awt.RenderingHints;
 
 /**
  * Defines the rendering hints that can be used with the {@link PDFGraphics2D} 
- * class.  There is just one hint defined at present:<br>
+ * class:<br>
  * <ul>
  * <li>{@link #KEY_DRAW_STRING_TYPE} that controls how the drawString() methods
  * generate output (regular text or vector graphics);</li>
+ * <li>{@link #KEY_CULLING} that controls whether or not items that fall 
+ * entirely outside the page (or the current clip) are omitted from the 
+ * output;</li>
+ * <li>{@link #KEY_GLYPH_CACHE} that controls whether glyphs drawn as vector
+ * graphics are defined once in a Type 3 font and reused.</li>
  * </ul>
  * 
  * @since 1.5
@@ -75,6 +80,63 @@ public final class PDFHints {
     public static final Object VALUE_DRAW_STRING_TYPE_VECTOR
             = "VALUE_DRAW_STRING_TYPE_VECTOR";
     
+    /**
+     * The key for the hint that controls whether or not shapes, text and
+     * images that lie entirely outside the page bounds (or the current 
+     * clip) are dropped before they are written to the output.  The test is
+     * a conservative one based on the bounds of each item, so nothing 
+     * visible is ever dropped.  Valid hint values are 
+     * {@link #VALUE_CULLING_ON} and {@link #VALUE_CULLING_OFF} (the default).
+     * 
+     * @since 1.9
+     */
+    public static final PDFHints.Key KEY_CULLING = new PDFHints.Key(1);
+    
+    /**
+     * Hint value for <code>KEY_CULLING</code> to specify that items outside
+     * the page or clip should be dropped.
+     * 
+     * @since 1.9
+     */
+    public static final Object VALUE_CULLING_ON = "VALUE_CULLING_ON";
+    
+    /**
+     * Hint value for <code>KEY_CULLING</code> to specify that all items 
+     * should be written to the output.
+     * 
+     * @since 1.9
+     */
+    public static final Object VALUE_CULLING_OFF = "VALUE_CULLING_OFF";
+    
+    /**
+     * The key for the hint that controls whether glyph outlines (for text 
+     * drawn as vector graphics, and for {@code drawGlyphVector()}) are 
+     * defined once per document in a Type 3 font and then drawn with text 
+     * operators, rather than being written out as a path every time they 
+     * are drawn.  Glyphs with a transform of their own are always written 
+     * as paths.  Valid hint values are {@link #VALUE_GLYPH_CACHE_ON} (the 
+     * default) and {@link #VALUE_GLYPH_CACHE_OFF}.
+     * 
+     * @since 1.9
+     */
+    public static final PDFHints.Key KEY_GLYPH_CACHE = new PDFHints.Key(2);
+    
+    /**
+     * Hint value for <code>KEY_GLYPH_CACHE</code> to specify that glyph 
+     * outlines should be defined once in a Type 3 font.
+     * 
+     * @since 1.9
+     */
+    public static final Object VALUE_GLYPH_CACHE_ON = "VALUE_GLYPH_CACHE_ON";
+    
+    /**
+     * Hint value for <code>KEY_GLYPH_CACHE</code> to specify that glyph 
+     * outlines should be written as paths each time they are drawn.
+     * 
+     * @since 1.9
+     */
+    public static final Object VALUE_GLYPH_CACHE_OFF = "VALUE_GLYPH_CACHE_OFF";
+    
     /**
      * A key for hints used by the {@link PDFGraphics2D} class.
      */
@@ -99,6 +161,12 @@ public final class PDFHints {
                     return val == null 
                             || VALUE_DRAW_STRING_TYPE_STANDARD.equals(val)
                             || VALUE_DRAW_STRING_TYPE_VECTOR.equals(val);
+                case 1:
+                    return val == null || VALUE_CULLING_ON.equals(val)
+                            || VALUE_CULLING_OFF.equals(val);
+                case 2:
+                    return val == null || VALUE_GLYPH_CACHE_ON.equals(val)
+                            || VALUE_GLYPH_CACHE_OFF.equals(val);
                 default:
                     throw new RuntimeException("Not expected!");
             }
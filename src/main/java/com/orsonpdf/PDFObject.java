@@ -34,6 +34,7 @@ package com.orsonpdf;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * A PDF Object (also referred to as an 'Indirect Object' in the PDF
@@ -108,11 +109,27 @@ public abstract class PDFObject {
      */
     public byte[] toPDFBytes() throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        baos.write(PDFUtils.toBytes(objectIntroString()));
-        baos.write(getObjectBytes());
-        baos.write(PDFUtils.toBytes("endobj\n"));
+        writePDFBytes(baos);
         return baos.toByteArray();
     }
+    
+    /**
+     * Writes the PDF bytes representing this object to the specified 
+     * output stream (the same bytes that are returned by 
+     * {@link #toPDFBytes()}, but possibly without creating an intermediate
+     * copy).
+     * 
+     * @param out  the output stream ({@code null} not permitted).
+     * 
+     * @throws IOException if there is an I/O problem.
+     * 
+     * @since 1.9
+     */
+    public void writePDFBytes(OutputStream out) throws IOException {
+        out.write(PDFUtils.toBytes(objectIntroString()));
+        writeObjectBytes(out);
+        out.write(PDFUtils.toBytes("endobj\n"));
+    }
 
     /**
      * Returns the bytes that go between the 'obj' and 'endobj' in the
@@ -123,6 +140,22 @@ public abstract class PDFObject {
      */
     public abstract byte[] getObjectBytes() throws IOException;
     
+    /**
+     * Writes the bytes that go between the 'obj' and 'endobj' in the PDF 
+     * output for this object.  The default implementation writes the
+     * bytes returned by {@link #getObjectBytes()}; subclasses can override
+     * this to write their data directly.
+     * 
+     * @param out  the output stream ({@code null} not permitted).
+     * 
+     * @throws IOException if there is an I/O problem.
+     * 
+     * @since 1.9
+     */
+    protected void writeObjectBytes(OutputStream out) throws IOException {
+        out.write(getObjectBytes());
+    }
+    
     private String objectIntroString() {
         StringBuilder b = new StringBuilder();
         b.append(this.number).append(" ").append(this.generation).append(" ");
@@ -0,0 +1,301 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import com.orsonpdf.font.TextEncoding;
+import com.orsonpdf.font.TrueTypeFontProgram;
+import com.orsonpdf.util.Args;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PDFFont} backed by an embedded subset of a TrueType font 
+ * program (see {@link PDFDocument#registerTrueTypeFont(java.awt.Font, 
+ * java.io.File)}).  Text is encoded with {@code WinAnsiEncoding}, and the 
+ * characters used are recorded so that, when the document is written, the
+ * embedded font ({@code FontFile2}) contains only the glyphs that are 
+ * required.
+ * 
+ * @since 1.9
+ */
+public class PDFTrueTypeFont extends PDFFont {
+    
+    /** The font program. */
+    private final TrueTypeFontProgram program;
+    
+    /** The character codes used so far. */
+    private final BitSet usedCodes;
+    
+    /** The font descriptor. */
+    private final FontDescriptor descriptor;
+    
+    /** The embedded font program. */
+    private final FontFile fontFile;
+
+    /**
+     * Creates a new font.
+     * 
+     * @param number  the PDF object number.
+     * @param name  the font name within the PDF document.
+     * @param program  the font program ({@code null} not permitted).
+     * @param document  the PDF document, used to allocate object numbers 
+     *     for the objects this font refers to ({@code null} not permitted).
+     */
+    PDFTrueTypeFont(int number, String name, TrueTypeFontProgram program, 
+            PDFDocument document) {
+        super(number, 0, name, "/" + program.getPostScriptName(), 
+                TextEncoding.WIN_ANSI.getName());
+        Args.nullNotPermitted(program, "program");
+        Args.nullNotPermitted(document, "document");
+        this.program = program;
+        this.usedCodes = new BitSet(256);
+        this.usedCodes.set(' ');
+        this.descriptor = new FontDescriptor(document.getNextNumber());
+        this.fontFile = new FontFile(document.getNextNumber());
+        document.applyCompression(this.fontFile);
+    }
+    
+    /**
+     * Returns the font program.
+     * 
+     * @return The font program (never {@code null}). 
+     */
+    public TrueTypeFontProgram getFontProgram() {
+        return this.program;
+    }
+    
+    /**
+     * Encodes the text as character codes for this font, recording the 
+     * characters used (characters that are not in the encoding are 
+     * replaced by '?').
+     * 
+     * @param text  the text ({@code null} not permitted).
+     * 
+     * @return The character codes.
+     */
+    @Override
+    public byte[] encode(CharSequence text) {
+        byte[] result = TextEncoding.WIN_ANSI.encode(text);
+        synchronized (this.usedCodes) {
+            for (byte b : result) {
+                this.usedCodes.set(b & 0xFF);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Writes text in the font's encoding, recording the characters used.
+     * 
+     * @param gs  the content stream ({@code null} not permitted).
+     * @param text  the text ({@code null} not permitted).
+     * @param start  the index of the first character.
+     * @param end  the index after the last character.
+     */
+    @Override
+    void writeText(GraphicsStream gs, CharSequence text, int start, 
+            int end) {
+        synchronized (this.usedCodes) {
+            for (int i = start; i < end; i++) {
+                int code = TextEncoding.WIN_ANSI.encode(text.charAt(i));
+                this.usedCodes.set(code >= 0 ? code : '?');
+            }
+        }
+        super.writeText(gs, text, start, end);
+    }
+    
+    /**
+     * Returns the prefix that identifies the subset in the base font name.
+     * This is six capital letters derived from the characters used, 
+     * followed by '+'.
+     * 
+     * @param codes  the characters used.
+     * 
+     * @return The prefix. 
+     */
+    static String subsetTag(BitSet codes) {
+        long h = codes.hashCode() & 0xFFFFFFFFL;
+        char[] tag = new char[7];
+        for (int i = 0; i < 6; i++) {
+            tag[i] = (char) ('A' + h % 26);
+            h /= 26;
+        }
+        tag[6] = '+';
+        return new String(tag);
+    }
+    
+    private BitSet getUsedCodes() {
+        synchronized (this.usedCodes) {
+            return (BitSet) this.usedCodes.clone();
+        }
+    }
+    
+    private String getSubsetFontName(BitSet codes) {
+        return "/" + subsetTag(codes) + this.program.getPostScriptName();
+    }
+    
+    private static int scale(TrueTypeFontProgram p, int fontUnits) {
+        return (int) Math.round(fontUnits * 1000.0 / p.getUnitsPerEm());
+    }
+    
+    @Override
+    public byte[] getObjectBytes() {
+        BitSet codes = getUsedCodes();
+        int first = codes.nextSetBit(0);
+        int last = codes.length() - 1;
+        StringBuilder widths = new StringBuilder("[");
+        for (int code = first; code <= last; code++) {
+            if (code > first) {
+                widths.append(' ');
+            }
+            if (codes.get(code)) {
+                int glyph = this.program.getGlyphId(
+                        TextEncoding.WIN_ANSI.decode(code));
+                widths.append(this.program.getScaledAdvanceWidth(glyph));
+            } else {
+                widths.append('0');
+            }
+        }
+        widths.append(']');
+        Dictionary dictionary = new Dictionary("/Font");
+        dictionary.put("/Subtype", "/TrueType");
+        dictionary.put("/Name", getName());
+        dictionary.put("/BaseFont", getSubsetFontName(codes));
+        dictionary.put("/FirstChar", Integer.valueOf(first));
+        dictionary.put("/LastChar", Integer.valueOf(last));
+        dictionary.put("/Widths", widths.toString());
+        dictionary.put("/FontDescriptor", this.descriptor);
+        dictionary.put("/Encoding", TextEncoding.WIN_ANSI.getName());
+        return dictionary.toPDFBytes();
+    }
+    
+    @Override
+    List<PDFObject> getDependentObjects() {
+        return Arrays.<PDFObject>asList(this.descriptor, this.fontFile);
+    }
+    
+    /**
+     * Creates the font descriptor dictionary for an embedded TrueType font.
+     * 
+     * @param p  the font program.
+     * @param fontName  the (subset) font name.
+     * @param fontFile  the embedded font program.
+     * @param symbolic  use the symbolic flag (rather than non-symbolic).
+     * 
+     * @return The dictionary.
+     */
+    static Dictionary createDescriptor(TrueTypeFontProgram p, 
+            String fontName, PDFObject fontFile, boolean symbolic) {
+        int flags = symbolic ? 4 : 32;
+        if (p.isFixedPitch()) {
+            flags |= 1;
+        }
+        if (p.getItalicAngle() != 0.0) {
+            flags |= 64;
+        }
+        int[] bbox = p.getBoundingBox();
+        Dictionary dictionary = new Dictionary("/FontDescriptor");
+        dictionary.put("/FontName", fontName);
+        dictionary.put("/Flags", Integer.valueOf(flags));
+        dictionary.put("/FontBBox", "[" + scale(p, bbox[0]) + " " 
+                + scale(p, bbox[1]) + " " + scale(p, bbox[2]) + " " 
+                + scale(p, bbox[3]) + "]");
+        dictionary.put("/ItalicAngle", Double.valueOf(p.getItalicAngle()));
+        dictionary.put("/Ascent", Integer.valueOf(scale(p, p.getAscent())));
+        dictionary.put("/Descent", Integer.valueOf(scale(p, p.getDescent())));
+        dictionary.put("/CapHeight", 
+                Integer.valueOf(scale(p, p.getCapHeight())));
+        dictionary.put("/StemV", Integer.valueOf(p.isBold() ? 120 : 80));
+        dictionary.put("/FontFile2", fontFile);
+        return dictionary;
+    }
+    
+    /**
+     * The font descriptor.
+     */
+    private class FontDescriptor extends PDFObject {
+        
+        FontDescriptor(int number) {
+            super(number);
+        }
+
+        @Override
+        public byte[] getObjectBytes() {
+            return createDescriptor(program, 
+                    getSubsetFontName(getUsedCodes()), fontFile, false)
+                    .toPDFBytes();
+        }
+    }
+    
+    /**
+     * The embedded (subset) font program.
+     */
+    private class FontFile extends Stream {
+        
+        /** The length of the most recent subset. */
+        private int length1;
+        
+        FontFile(int number) {
+            super(number);
+        }
+
+        @Override
+        public byte[] getRawStreamData() {
+            BitSet codes = getUsedCodes();
+            BitSet glyphs = new BitSet();
+            Map<Integer, Integer> cmap = new HashMap<Integer, Integer>();
+            for (int code = codes.nextSetBit(0); code >= 0; 
+                    code = codes.nextSetBit(code + 1)) {
+                char c = TextEncoding.WIN_ANSI.decode(code);
+                int glyph = program.getGlyphId(c);
+                glyphs.set(glyph);
+                cmap.put(Integer.valueOf(c), Integer.valueOf(glyph));
+            }
+            byte[] result = program.subset(glyphs, cmap);
+            this.length1 = result.length;
+            return result;
+        }
+
+        @Override
+        protected Dictionary createDictionary(int streamLength) {
+            Dictionary dictionary = super.createDictionary(streamLength);
+            dictionary.put("/Length1", Integer.valueOf(this.length1));
+            return dictionary;
+        }
+    }
+
+}
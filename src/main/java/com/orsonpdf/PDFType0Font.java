@@ -0,0 +1,355 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import com.orsonpdf.font.TrueTypeFontProgram;
+import com.orsonpdf.util.Args;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A composite ({@code Type0}) {@link PDFFont} backed by an embedded subset
+ * of a TrueType font program (see {@link PDFDocument#registerUnicodeFont(
+ * java.awt.Font, java.io.File)}).  Text is written as two-byte glyph 
+ * indices with the {@code Identity-H} encoding, so any character that the
+ * font has a glyph for can be used.  The descendant {@code CIDFontType2} 
+ * font has a {@code /W} array for the glyphs used, and a {@code ToUnicode}
+ * character map allows text to be extracted from the document.
+ * 
+ * @since 1.9
+ */
+public class PDFType0Font extends PDFFont {
+    
+    /** The maximum number of mappings in one block of a CMap. */
+    private static final int CMAP_BLOCK_SIZE = 100;
+    
+    /** The font program. */
+    private final TrueTypeFontProgram program;
+    
+    /** The text for each glyph used so far (keyed by glyph index). */
+    private final Map<Integer, String> usedGlyphs;
+    
+    /** The descendant CID font. */
+    private final CIDFont cidFont;
+    
+    /** The font descriptor. */
+    private final FontDescriptor descriptor;
+    
+    /** The embedded font program. */
+    private final FontFile fontFile;
+    
+    /** The character map from glyph indices to Unicode. */
+    private final ToUnicode toUnicode;
+
+    /**
+     * Creates a new font.
+     * 
+     * @param number  the PDF object number.
+     * @param name  the font name within the PDF document.
+     * @param program  the font program ({@code null} not permitted).
+     * @param document  the PDF document, used to allocate object numbers 
+     *     for the objects this font refers to ({@code null} not permitted).
+     */
+    PDFType0Font(int number, String name, TrueTypeFontProgram program, 
+            PDFDocument document) {
+        super(number, 0, name, "/" + program.getPostScriptName(), 
+                "/Identity-H");
+        Args.nullNotPermitted(document, "document");
+        this.program = program;
+        this.usedGlyphs = new TreeMap<Integer, String>();
+        this.cidFont = new CIDFont(document.getNextNumber());
+        this.descriptor = new FontDescriptor(document.getNextNumber());
+        this.fontFile = new FontFile(document.getNextNumber());
+        document.applyCompression(this.fontFile);
+        this.toUnicode = new ToUnicode(document.getNextNumber());
+        document.applyCompression(this.toUnicode);
+    }
+    
+    /**
+     * Returns the font program.
+     * 
+     * @return The font program (never {@code null}). 
+     */
+    public TrueTypeFontProgram getFontProgram() {
+        return this.program;
+    }
+    
+    /**
+     * Encodes the text as two-byte glyph indices for this font, recording 
+     * the glyphs used.  Characters that the font has no glyph for are 
+     * mapped to glyph 0 (the 'missing' glyph).
+     * 
+     * @param text  the text ({@code null} not permitted).
+     * 
+     * @return The glyph indices (high byte first).
+     */
+    @Override
+    public byte[] encode(CharSequence text) {
+        Args.nullNotPermitted(text, "text");
+        int len = text.length();
+        byte[] buffer = new byte[len * 2];
+        int n = 0;
+        synchronized (this.usedGlyphs) {
+            int i = 0;
+            while (i < len) {
+                int codePoint = Character.codePointAt(text, i);
+                int charCount = Character.charCount(codePoint);
+                int glyph = this.program.getGlyphId(codePoint);
+                Integer key = Integer.valueOf(glyph);
+                if (!this.usedGlyphs.containsKey(key)) {
+                    this.usedGlyphs.put(key, text.subSequence(i, 
+                            i + charCount).toString());
+                }
+                buffer[n++] = (byte) (glyph >> 8);
+                buffer[n++] = (byte) glyph;
+                i += charCount;
+            }
+        }
+        return n == buffer.length ? buffer : Arrays.copyOf(buffer, n);
+    }
+    
+    /**
+     * Writes text as two-byte glyph indices (usually as a hexadecimal 
+     * string), recording the glyphs used.
+     * 
+     * @param gs  the content stream ({@code null} not permitted).
+     * @param text  the text ({@code null} not permitted).
+     * @param start  the index of the first character.
+     * @param end  the index after the last character.
+     */
+    @Override
+    void writeText(GraphicsStream gs, CharSequence text, int start, 
+            int end) {
+        gs.writeString(encode(start == 0 && end == text.length() ? text 
+                : text.subSequence(start, end)));
+    }
+    
+    private Map<Integer, String> getUsedGlyphs() {
+        synchronized (this.usedGlyphs) {
+            return new TreeMap<Integer, String>(this.usedGlyphs);
+        }
+    }
+    
+    private BitSet getUsedGlyphSet() {
+        BitSet result = new BitSet();
+        result.set(0);
+        for (Integer glyph : getUsedGlyphs().keySet()) {
+            result.set(glyph.intValue());
+        }
+        return result;
+    }
+    
+    private String getSubsetFontName() {
+        return "/" + PDFTrueTypeFont.subsetTag(getUsedGlyphSet()) 
+                + this.program.getPostScriptName();
+    }
+    
+    @Override
+    public byte[] getObjectBytes() {
+        Dictionary dictionary = new Dictionary("/Font");
+        dictionary.put("/Subtype", "/Type0");
+        dictionary.put("/BaseFont", getSubsetFontName());
+        dictionary.put("/Encoding", "/Identity-H");
+        dictionary.put("/DescendantFonts", new PDFObject[] { this.cidFont });
+        dictionary.put("/ToUnicode", this.toUnicode);
+        return dictionary.toPDFBytes();
+    }
+    
+    @Override
+    List<PDFObject> getDependentObjects() {
+        return Arrays.<PDFObject>asList(this.cidFont, this.descriptor, 
+                this.fontFile, this.toUnicode);
+    }
+    
+    /**
+     * Returns the {@code /W} array for the glyphs used, with one entry for 
+     * each run of consecutive glyph indices.
+     * 
+     * @return The widths array. 
+     */
+    private String createWidths() {
+        StringBuilder b = new StringBuilder("[");
+        int previous = -2;
+        for (Integer key : getUsedGlyphs().keySet()) {
+            int glyph = key.intValue();
+            if (glyph != previous + 1) {
+                if (previous >= 0) {
+                    b.append("] ");
+                }
+                b.append(glyph).append(" [");
+            } else {
+                b.append(' ');
+            }
+            b.append(this.program.getScaledAdvanceWidth(glyph));
+            previous = glyph;
+        }
+        if (previous >= 0) {
+            b.append(']');
+        }
+        return b.append(']').toString();
+    }
+    
+    /**
+     * The descendant {@code CIDFontType2} font.
+     */
+    private class CIDFont extends PDFObject {
+        
+        CIDFont(int number) {
+            super(number);
+        }
+
+        @Override
+        public byte[] getObjectBytes() {
+            Dictionary info = new Dictionary();
+            info.put("/Registry", "(Adobe)");
+            info.put("/Ordering", "(Identity)");
+            info.put("/Supplement", Integer.valueOf(0));
+            Dictionary dictionary = new Dictionary("/Font");
+            dictionary.put("/Subtype", "/CIDFontType2");
+            dictionary.put("/BaseFont", getSubsetFontName());
+            dictionary.put("/CIDSystemInfo", info);
+            dictionary.put("/FontDescriptor", descriptor);
+            dictionary.put("/W", createWidths());
+            dictionary.put("/CIDToGIDMap", "/Identity");
+            return dictionary.toPDFBytes();
+        }
+    }
+    
+    /**
+     * The font descriptor.
+     */
+    private class FontDescriptor extends PDFObject {
+        
+        FontDescriptor(int number) {
+            super(number);
+        }
+
+        @Override
+        public byte[] getObjectBytes() {
+            return PDFTrueTypeFont.createDescriptor(program, 
+                    getSubsetFontName(), fontFile, true).toPDFBytes();
+        }
+    }
+    
+    /**
+     * The embedded (subset) font program.  The glyph indices are unchanged
+     * in the subset, and no {@code cmap} table is needed.
+     */
+    private class FontFile extends Stream {
+        
+        /** The length of the most recent subset. */
+        private int length1;
+        
+        FontFile(int number) {
+            super(number);
+        }
+
+        @Override
+        public byte[] getRawStreamData() {
+            byte[] result = program.subset(getUsedGlyphSet(), null);
+            this.length1 = result.length;
+            return result;
+        }
+
+        @Override
+        protected Dictionary createDictionary(int streamLength) {
+            Dictionary dictionary = super.createDictionary(streamLength);
+            dictionary.put("/Length1", Integer.valueOf(this.length1));
+            return dictionary;
+        }
+    }
+    
+    /**
+     * The {@code ToUnicode} character map.
+     */
+    private class ToUnicode extends Stream {
+        
+        ToUnicode(int number) {
+            super(number);
+        }
+
+        @Override
+        public byte[] getRawStreamData() {
+            Map<Integer, String> glyphs = getUsedGlyphs();
+            glyphs.remove(Integer.valueOf(0));
+            StringBuilder b = new StringBuilder();
+            b.append("/CIDInit /ProcSet findresource begin\n");
+            b.append("12 dict begin\n");
+            b.append("begincmap\n");
+            b.append("/CIDSystemInfo << /Registry (Adobe) /Ordering (UCS) "
+                    + "/Supplement 0 >> def\n");
+            b.append("/CMapName /Adobe-Identity-UCS def\n");
+            b.append("/CMapType 2 def\n");
+            b.append("1 begincodespacerange\n<0000> <FFFF>\n");
+            b.append("endcodespacerange\n");
+            int remaining = glyphs.size();
+            int count = 0;
+            for (Map.Entry<Integer, String> e : glyphs.entrySet()) {
+                if (count == 0) {
+                    b.append(Math.min(remaining, CMAP_BLOCK_SIZE))
+                            .append(" beginbfchar\n");
+                }
+                b.append('<');
+                appendHex(b, e.getKey().intValue());
+                b.append("> <");
+                String text = e.getValue();
+                for (int i = 0; i < text.length(); i++) {
+                    appendHex(b, text.charAt(i));
+                }
+                b.append(">\n");
+                count++;
+                remaining--;
+                if (count == CMAP_BLOCK_SIZE || remaining == 0) {
+                    b.append("endbfchar\n");
+                    count = 0;
+                }
+            }
+            b.append("endcmap\n");
+            b.append("CMapName currentdict /CMap defineresource pop\n");
+            b.append("end\nend\n");
+            return PDFUtils.toBytes(b.toString());
+        }
+        
+        private void appendHex(StringBuilder b, int value) {
+            b.append(GraphicsStream.HEX_DIGITS[(value >> 12) & 0xF]);
+            b.append(GraphicsStream.HEX_DIGITS[(value >> 8) & 0xF]);
+            b.append(GraphicsStream.HEX_DIGITS[(value >> 4) & 0xF]);
+            b.append(GraphicsStream.HEX_DIGITS[value & 0xF]);
+        }
+    }
+
+}
@@ -0,0 +1,352 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import com.orsonpdf.util.Args;
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Type 3 {@link PDFFont} that holds the outlines of glyphs from an AWT
+ * font, used for text drawn as vector graphics.  Each glyph is defined 
+ * once (as a glyph procedure in the {@code /CharProcs} dictionary) and can
+ * then be drawn any number of times with the 'Tj' operator.  A Type 3 font
+ * can hold at most {@link #MAX_GLYPHS} glyphs, so a large set of glyphs 
+ * from one AWT font is split across several Type 3 fonts.
+ * <p>
+ * Glyph outlines are taken from the font at a size of 1000 units, which 
+ * is the unit for glyph space (the font matrix scales it down to text 
+ * space).
+ * 
+ * @since 1.9
+ */
+public class PDFType3Font extends PDFFont {
+    
+    /** The maximum number of glyphs in one Type 3 font. */
+    public static final int MAX_GLYPHS = 256;
+    
+    /** The font size used to obtain glyph outlines and widths. */
+    static final float GLYPH_SPACE_SIZE = 1000f;
+    
+    /** The rendering context for glyph outlines and widths. */
+    private static final FontRenderContext FRC = new FontRenderContext(
+            null, true, true);
+    
+    /** The PDF document (used to allocate object numbers). */
+    private final PDFDocument document;
+    
+    /** The font (at size 1000). */
+    private final Font font;
+    
+    /** The character code for each glyph code added so far. */
+    private final Map<Integer, Integer> codes;
+    
+    /** The glyph procedures, indexed by character code. */
+    private final List<GlyphProcedure> procedures;
+    
+    /**
+     * Creates a new Type 3 font.
+     * 
+     * @param number  the PDF object number.
+     * @param name  the font name within the PDF document.
+     * @param font  the AWT font, at size {@link #GLYPH_SPACE_SIZE} 
+     *     ({@code null} not permitted).
+     * @param document  the PDF document ({@code null} not permitted).
+     */
+    PDFType3Font(int number, String name, Font font, PDFDocument document) {
+        super(number, 0, name, null, null);
+        Args.nullNotPermitted(font, "font");
+        Args.nullNotPermitted(document, "document");
+        this.font = font;
+        this.document = document;
+        this.codes = new HashMap<Integer, Integer>();
+        this.procedures = new ArrayList<GlyphProcedure>();
+    }
+    
+    /**
+     * Returns the font that glyph outlines and widths are taken from.
+     * 
+     * @return The font (at size {@link #GLYPH_SPACE_SIZE}).
+     */
+    Font getGlyphSpaceFont() {
+        return this.font;
+    }
+    
+    /**
+     * Maps the glyphs in a run that have not been mapped yet (those with a
+     * {@code null} entry in {@code fonts}) to character codes in this 
+     * font, adding glyphs while there is room.  For each glyph mapped, the
+     * font, character code and advance width (in glyph space units) are 
+     * written to the output arrays.
+     * 
+     * @param glyphCodes  the glyph codes (as used in a {@link GlyphVector}
+     *     for the font).
+     * @param n  the number of glyphs.
+     * @param fonts  the fonts for the glyphs (updated by this method).
+     * @param codes  the character codes (updated by this method).
+     * @param widths  the advance widths (updated by this method).
+     * 
+     * @return The number of glyphs mapped by this call.
+     */
+    synchronized int findOrAddGlyphs(int[] glyphCodes, int n, 
+            PDFType3Font[] fonts, int[] codes, double[] widths) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (fonts[i] != null) {
+                continue;
+            }
+            int c = findOrAddGlyph(glyphCodes[i]);
+            if (c >= 0) {
+                fonts[i] = this;
+                codes[i] = c;
+                widths[i] = this.procedures.get(c).width;
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the character code for a glyph, adding the glyph to this font
+     * if it is not already present and there is room for it.
+     * 
+     * @param glyphCode  the glyph code.
+     * 
+     * @return The character code (0 to 255), or -1 if the glyph is not in 
+     *     this font and the font is full.
+     */
+    private int findOrAddGlyph(int glyphCode) {
+        Integer key = Integer.valueOf(glyphCode);
+        Integer code = this.codes.get(key);
+        if (code != null) {
+            return code.intValue();
+        }
+        if (this.procedures.size() >= MAX_GLYPHS) {
+            return -1;
+        }
+        int c = this.procedures.size();
+        GlyphVector gv = this.font.createGlyphVector(FRC, 
+                new int[] { glyphCode });
+        double width = gv.getGlyphMetrics(0).getAdvanceX();
+        Shape outline = gv.getGlyphOutline(0);
+        GlyphProcedure proc = new GlyphProcedure(
+                this.document.getNextNumber(), width, outline);
+        this.document.applyCompression(proc);
+        this.procedures.add(proc);
+        this.codes.put(key, Integer.valueOf(c));
+        return c;
+    }
+    
+    @Override
+    public synchronized byte[] getObjectBytes() {
+        int count = this.procedures.size();
+        Rectangle2D bbox = null;
+        StringBuilder widths = new StringBuilder("[");
+        StringBuilder differences = new StringBuilder("[0");
+        Dictionary charProcs = new Dictionary();
+        for (int c = 0; c < count; c++) {
+            GlyphProcedure proc = this.procedures.get(c);
+            if (c > 0) {
+                widths.append(' ');
+            }
+            appendNumber(widths, proc.width);
+            differences.append(" /g").append(c);
+            charProcs.put("/g" + c, proc);
+            if (bbox == null) {
+                bbox = (Rectangle2D) proc.bounds.clone();
+            } else {
+                bbox.add(proc.bounds);
+            }
+        }
+        widths.append(']');
+        differences.append(']');
+        if (bbox == null) {
+            bbox = new Rectangle2D.Double();
+        }
+        Dictionary encoding = new Dictionary("/Encoding");
+        encoding.put("/Differences", differences.toString());
+        StringBuilder b = new StringBuilder("[");
+        appendNumber(b, bbox.getMinX());
+        b.append(' ');
+        appendNumber(b, bbox.getMinY());
+        b.append(' ');
+        appendNumber(b, bbox.getMaxX());
+        b.append(' ');
+        appendNumber(b, bbox.getMaxY());
+        b.append(']');
+        Dictionary dictionary = new Dictionary("/Font");
+        dictionary.put("/Subtype", "/Type3");
+        dictionary.put("/Name", getName());
+        dictionary.put("/FontBBox", b.toString());
+        dictionary.put("/FontMatrix", "[0.001 0 0 0.001 0 0]");
+        dictionary.put("/CharProcs", charProcs);
+        dictionary.put("/Encoding", encoding);
+        dictionary.put("/FirstChar", Integer.valueOf(0));
+        dictionary.put("/LastChar", Integer.valueOf(Math.max(count - 1, 0)));
+        dictionary.put("/Widths", widths.toString());
+        dictionary.put("/Resources", new Dictionary());
+        return dictionary.toPDFBytes();
+    }
+    
+    @Override
+    synchronized List<PDFObject> getDependentObjects() {
+        return new ArrayList<PDFObject>(this.procedures);
+    }
+    
+    /**
+     * Appends a number rounded to one decimal place (ample precision for
+     * glyph space).
+     * 
+     * @param b  the string builder.
+     * @param d  the number.
+     */
+    static void appendNumber(StringBuilder b, double d) {
+        long v = Math.round(d * 10.0);
+        if (v < 0) {
+            b.append('-');
+            v = -v;
+        }
+        b.append(v / 10);
+        if (v % 10 != 0) {
+            b.append('.').append(v % 10);
+        }
+    }
+    
+    /**
+     * A glyph procedure: a content stream that paints one glyph.
+     */
+    private static final class GlyphProcedure extends Stream {
+        
+        /** The advance width in glyph space. */
+        final double width;
+        
+        /** The glyph bounds in glyph space. */
+        final Rectangle2D bounds;
+        
+        /** The content. */
+        private final byte[] content;
+        
+        GlyphProcedure(int number, double width, Shape outline) {
+            super(number);
+            this.width = width;
+            // glyph space has the y-axis pointing up
+            Shape s = AffineTransform.getScaleInstance(1.0, -1.0)
+                    .createTransformedShape(outline);
+            this.bounds = s.getBounds2D();
+            StringBuilder b = new StringBuilder();
+            appendNumber(b, width);
+            b.append(" 0 ");
+            appendNumber(b, this.bounds.getMinX());
+            b.append(' ');
+            appendNumber(b, this.bounds.getMinY());
+            b.append(' ');
+            appendNumber(b, this.bounds.getMaxX());
+            b.append(' ');
+            appendNumber(b, this.bounds.getMaxY());
+            b.append(" d1\n");
+            PathIterator iterator = s.getPathIterator(null);
+            boolean empty = iterator.isDone();
+            double[] coords = new double[6];
+            double lastX = 0.0;
+            double lastY = 0.0;
+            while (!iterator.isDone()) {
+                int type = iterator.currentSegment(coords);
+                switch (type) {
+                case PathIterator.SEG_MOVETO:
+                    appendPoint(b, coords[0], coords[1]).append("m\n");
+                    lastX = coords[0];
+                    lastY = coords[1];
+                    break;
+                case PathIterator.SEG_LINETO:
+                    appendPoint(b, coords[0], coords[1]).append("l\n");
+                    lastX = coords[0];
+                    lastY = coords[1];
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    // elevate to a cubic curve
+                    appendPoint(b, lastX + 2.0 / 3.0 * (coords[0] - lastX),
+                            lastY + 2.0 / 3.0 * (coords[1] - lastY));
+                    appendPoint(b, 
+                            coords[2] + 2.0 / 3.0 * (coords[0] - coords[2]),
+                            coords[3] + 2.0 / 3.0 * (coords[1] - coords[3]));
+                    appendPoint(b, coords[2], coords[3]).append("c\n");
+                    lastX = coords[2];
+                    lastY = coords[3];
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    appendPoint(b, coords[0], coords[1]);
+                    appendPoint(b, coords[2], coords[3]);
+                    appendPoint(b, coords[4], coords[5]).append("c\n");
+                    lastX = coords[4];
+                    lastY = coords[5];
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    b.append("h\n");
+                    break;
+                default:
+                    break;
+                }
+                iterator.next();
+            }
+            if (!empty) {
+                b.append(iterator.getWindingRule() 
+                        == PathIterator.WIND_EVEN_ODD ? "f*\n" : "f\n");
+            }
+            this.content = PDFUtils.toBytes(b.toString());
+        }
+        
+        private static StringBuilder appendPoint(StringBuilder b, double x, 
+                double y) {
+            appendNumber(b, x);
+            b.append(' ');
+            appendNumber(b, y);
+            return b.append(' ');
+        }
+
+        @Override
+        public byte[] getRawStreamData() {
+            return this.content;
+        }
+    }
+
+}
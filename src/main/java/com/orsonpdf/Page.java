@@ -40,12 +40,16 @@ import java.awt.RadialGradientPaint;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import com.orsonpdf.Pattern.ShadingPattern;
-import com.orsonpdf.filter.FlateFilter;
 import com.orsonpdf.shading.AxialShading;
+import com.orsonpdf.shading.FreeFormShading;
+import com.orsonpdf.shading.LatticeFormShading;
 import com.orsonpdf.shading.RadialShading;
 import com.orsonpdf.shading.Shading;
 import com.orsonpdf.util.Args;
@@ -71,11 +75,29 @@ public class Page extends PDFObject {
     /** The Graphics2D for writing to the page contents. */
     private PDFGraphics2D graphics2d;
     
+    /** 
+     * Additional content streams created by {@link #createGraphics2D(int)}
+     * (in creation order), or {@code null}.
+     */
+    private List<ContentLayer> layers;
+    
+    /** A flag that controls whether content streams are compressed. */
+    private boolean filter;
+    
+    /** The low-level writer for the page contents. */
+    private ContentWriter contentWriter;
+    
     /**
-     * The list of font (names) used on the page.  We let the parent take
-     * care of tracking the font objects.
+     * The fonts used on the page, in the order they were first used.  The
+     * parent takes care of creating the font objects.
      */
-    private List<String> fontsOnPage;
+    private Set<PDFFont> fontsOnPage;
+    
+    /** The most recently resolved AWT font (may be {@code null}). */
+    private Font lastFont;
+    
+    /** The PDF font for {@code lastFont}. */
+    private PDFFont lastPDFFont;
     
     /**
      * A map between gradient paints and the names used to define the
@@ -91,6 +113,9 @@ public class Page extends PDFObject {
     /** The ExtGState dictionary for the page. */
     private Dictionary graphicsStates;
     
+    /** The shading dictionary for the page (used by the 'sh' operator). */
+    private Dictionary shadings;
+    
     /** 
      * The transform between Page and Java2D coordinates, used in Shading 
      * patterns. 
@@ -98,6 +123,14 @@ public class Page extends PDFObject {
     private AffineTransform j2DTransform;
 
     private Dictionary xObjects = new Dictionary();
+    
+    /** 
+     * The objects (patterns, shadings, images and so on) created for this
+     * page.  These are written to the output immediately after the page 
+     * content, and are kept with the page rather than the document so that
+     * pages can be rendered concurrently.
+     */
+    private List<PDFObject> objects = new ArrayList<PDFObject>();
 
     /**
      * Creates a new page.
@@ -130,17 +163,19 @@ public class Page extends PDFObject {
         Args.nullNotPermitted(bounds, "bounds");
         this.parent = parent;
         this.bounds = (Rectangle2D) bounds.clone();
-        this.fontsOnPage = new ArrayList<String>();
+        this.fontsOnPage = new LinkedHashSet<PDFFont>();
         int n = this.parent.getDocument().getNextNumber();
         this.contents = new GraphicsStream(n, this);
+        this.filter = filter;
         if (filter) {
-            this.contents.addFilter(new FlateFilter());
+            this.parent.getDocument().applyCompression(this.contents);
         }
         this.gradientPaintsOnPage = new HashMap<GradientPaintKey, String>();
         this.radialGradientPaintsOnPage = new HashMap<RadialGradientPaintKey,
                 String>();
         this.patterns = new Dictionary();
         this.graphicsStates = new Dictionary();
+        this.shadings = new Dictionary();
         
         this.j2DTransform = AffineTransform.getTranslateInstance(0.0, 
                 bounds.getHeight());
@@ -172,7 +207,7 @@ public class Page extends PDFObject {
      * 
      * @return The {@code PDFGraphics2D} instance for drawing to the page.
      */
-    public PDFGraphics2D getGraphics2D() {
+    public synchronized PDFGraphics2D getGraphics2D() {
         if (this.graphics2d == null) {
             this.graphics2d = new PDFGraphics2D(this.contents, 
                     (int) this.bounds.getWidth(), 
@@ -181,6 +216,104 @@ public class Page extends PDFObject {
         return this.graphics2d;
     }
 
+    /**
+     * Creates a new {@code PDFGraphics2D} that draws to a separate content
+     * stream for this page.  Each stream has its own graphics state, so 
+     * different threads can draw to the same page at the same time (for 
+     * example, one thread per chart on a dashboard).  The streams are 
+     * painted in order of increasing {@code zOrder}, where the stream for
+     * {@link #getGraphics2D()} has a z-order of zero (streams with the 
+     * same z-order are painted in the order they were created).  When a 
+     * page has more than one stream, each is enclosed in a save/restore 
+     * pair so that no state leaks from one stream to the next.
+     * 
+     * @param zOrder  the z-order.
+     * 
+     * @return A new graphics target for the page (never {@code null}).
+     * 
+     * @since 1.9
+     */
+    public PDFGraphics2D createGraphics2D(int zOrder) {
+        GraphicsStream stream = new GraphicsStream(
+                this.parent.getDocument().getNextNumber(), this);
+        if (this.filter) {
+            this.parent.getDocument().applyCompression(stream);
+        }
+        stream.setIsolated(true);
+        synchronized (this) {
+            if (this.layers == null) {
+                this.layers = new ArrayList<ContentLayer>();
+            }
+            this.layers.add(new ContentLayer(zOrder, stream));
+            this.contents.setIsolated(true);
+        }
+        return new PDFGraphics2D(stream, (int) this.bounds.getWidth(), 
+                (int) this.bounds.getHeight());
+    }
+    
+    /**
+     * Compresses the content stream that {@code g2} draws to, on the 
+     * calling thread.  Call this when a thread has finished drawing to one
+     * of the page's {@code PDFGraphics2D} instances, so that the 
+     * compression work is spread across threads instead of being done when
+     * the document is written.  If more content is drawn afterwards, the 
+     * stream is simply compressed again when it is written.
+     * 
+     * @param g2  a graphics target for this page ({@code null} not 
+     *     permitted).
+     * 
+     * @since 1.9
+     */
+    public void compressContent(PDFGraphics2D g2) {
+        Args.nullNotPermitted(g2, "g2");
+        GraphicsStream stream = g2.getGraphicsStream();
+        if (!getContentStreams().contains(stream)) {
+            throw new IllegalArgumentException(
+                    "The graphics does not belong to this page.");
+        }
+        stream.encodeStreamData();
+    }
+    
+    /**
+     * Returns the content streams for this page in the order that they are
+     * painted.
+     * 
+     * @return The content streams (never {@code null}).
+     * 
+     * @since 1.9
+     */
+    synchronized List<GraphicsStream> getContentStreams() {
+        if (this.layers == null) {
+            return Collections.singletonList(this.contents);
+        }
+        List<ContentLayer> sorted = new ArrayList<ContentLayer>();
+        sorted.add(new ContentLayer(0, this.contents));
+        sorted.addAll(this.layers);
+        // a stable sort, so the creation order is kept for equal z-orders
+        Collections.sort(sorted);
+        List<GraphicsStream> result = new ArrayList<GraphicsStream>();
+        for (ContentLayer layer : sorted) {
+            result.add(layer.stream);
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the {@link ContentWriter} for writing PDF operators directly 
+     * to the page content.  This writes to the same stream as the 
+     * {@code PDFGraphics2D} returned by {@link #getGraphics2D()}.
+     * 
+     * @return The content writer (never {@code null}).
+     * 
+     * @since 1.9
+     */
+    public ContentWriter getContentWriter() {
+        if (this.contentWriter == null) {
+            this.contentWriter = new ContentWriter(this, this.contents);
+        }
+        return this.contentWriter;
+    }
+
     /**
      * Finds the font reference corresponding to the given Java2D font, 
      * creating a new one if there isn't one already.
@@ -189,19 +322,81 @@ public class Page extends PDFObject {
      * 
      * @return The font reference.
      */
-    String findOrCreateFontReference(Font font) {
-        String ref = this.parent.findOrCreateFontReference(font);
-        if (!this.fontsOnPage.contains(ref)) {
-            this.fontsOnPage.add(ref);
+    synchronized String findOrCreateFontReference(Font font) {
+        return findOrCreateFont(font).getName();
+    }
+    
+    /**
+     * Finds the PDF font corresponding to the given Java2D font, creating
+     * a new one if there isn't one already, and adds it to the resources
+     * for the page.
+     * 
+     * @param font  the AWT font.
+     * 
+     * @return The PDF font.
+     * 
+     * @since 1.9
+     */
+    synchronized PDFFont findOrCreateFont(Font font) {
+        // the same font instance is usually used for many strings in a row
+        if (font == this.lastFont) {
+            return this.lastPDFFont;
+        }
+        PDFFont pdfFont = this.parent.findOrCreateFont(font);
+        this.fontsOnPage.add(pdfFont);
+        this.lastFont = font;
+        this.lastPDFFont = pdfFont;
+        return pdfFont;
+    }
+    
+    /**
+     * Returns the name of the standard PDF font that will be used to render
+     * text in the specified font, or {@code null} if the font will be 
+     * embedded.
+     * 
+     * @param font  the AWT font.
+     * 
+     * @return The base font name (without a leading slash), or 
+     *     {@code null}.
+     * 
+     * @since 1.9
+     */
+    String mapToStandardFont(Font font) {
+        return this.parent.mapToStandardFont(font);
+    }
+    
+    /**
+     * Finds or creates the Type 3 fonts holding the outlines of a run of 
+     * glyphs (see {@link Pages#findOrCreateType3Glyphs(java.awt.Font, 
+     * int[], int, com.orsonpdf.PDFType3Font[], int[], double[])}) and adds
+     * them to the resources for the page.
+     * 
+     * @param font  the AWT font.
+     * @param glyphCodes  the glyph codes.
+     * @param n  the number of glyphs.
+     * @param fonts  receives the Type 3 font for each glyph.
+     * @param codes  receives the character code for each glyph.
+     * @param widths  receives the advance width for each glyph.
+     * 
+     * @since 1.9
+     */
+    synchronized void findOrCreateType3Glyphs(Font font, int[] glyphCodes, 
+            int n, PDFType3Font[] fonts, int[] codes, double[] widths) {
+        this.parent.findOrCreateType3Glyphs(font, glyphCodes, n, fonts, 
+                codes, widths);
+        PDFType3Font last = null;
+        for (int i = 0; i < n; i++) {
+            if (fonts[i] != last) {
+                last = fonts[i];
+                this.fontsOnPage.add(last);
+            }
         }
-        return ref;
     }
     
     private Dictionary createFontDictionary() {
         Dictionary d = new Dictionary();
-        for (String name : this.fontsOnPage) {
-            PDFFont f = this.parent.getFont(name);
-            d.put(name, f.getReference());
+        for (PDFFont f : this.fontsOnPage) {
+            d.put(f.getName(), f.getReference());
         }
         return d;
     }
@@ -215,7 +410,7 @@ public class Page extends PDFObject {
      * 
      * @return The pattern name. 
      */
-    String findOrCreatePattern(GradientPaint gp) {
+    synchronized String findOrCreatePattern(GradientPaint gp) {
         GradientPaintKey key = new GradientPaintKey(gp);
         String patternName = this.gradientPaintsOnPage.get(key);
         if (patternName == null) {
@@ -224,17 +419,17 @@ public class Page extends PDFObject {
                     doc.getNextNumber(), 
                     gp.getColor1().getRGBColorComponents(null), 
                     gp.getColor2().getRGBColorComponents(null));
-            doc.addObject(f);
+            addObject(f);
             double[] coords = new double[4];
             coords[0] = gp.getPoint1().getX();
             coords[1] = gp.getPoint1().getY();
             coords[2] = gp.getPoint2().getX();
             coords[3] = gp.getPoint2().getY();
             Shading s = new AxialShading(doc.getNextNumber(), coords, f);
-            doc.addObject(s);
+            addObject(s);
             Pattern p = new ShadingPattern(doc.getNextNumber(), s, 
                     this.j2DTransform);
-            doc.addObject(p);
+            addObject(p);
             patternName = "/P" + (this.patterns.size() + 1);
             this.patterns.put(patternName, p);
             this.gradientPaintsOnPage.put(key, patternName);
@@ -251,13 +446,13 @@ public class Page extends PDFObject {
      * 
      * @return The pattern name. 
      */
-    String findOrCreatePattern(RadialGradientPaint gp) {
+    synchronized String findOrCreatePattern(RadialGradientPaint gp) {
         RadialGradientPaintKey key = new RadialGradientPaintKey(gp);
         String patternName = this.radialGradientPaintsOnPage.get(key);
         if (patternName == null) {
             PDFDocument doc = this.parent.getDocument();
             Function f = createFunctionForMultipleGradient(gp);
-            doc.addObject(f);
+            addObject(f);
             double[] coords = new double[6];
             coords[0] = gp.getFocusPoint().getX();
             coords[1] = gp.getFocusPoint().getY();
@@ -266,10 +461,10 @@ public class Page extends PDFObject {
             coords[4] = gp.getCenterPoint().getY();
             coords[5] = gp.getRadius();
             Shading s = new RadialShading(doc.getNextNumber(), coords, f);
-            doc.addObject(s);
+            addObject(s);
             Pattern p = new ShadingPattern(doc.getNextNumber(), s, 
                     this.j2DTransform);
-            doc.addObject(p);
+            addObject(p);
             patternName = "/P" + (this.patterns.size() + 1);
             this.patterns.put(patternName, p);
             this.radialGradientPaintsOnPage.put(key, patternName);
@@ -298,7 +493,7 @@ public class Page extends PDFObject {
                     doc.getNextNumber(),
                     mgp.getColors()[i].getRGBColorComponents(null), 
                     mgp.getColors()[i + 1].getRGBColorComponents(null));
-                doc.addObject(functions[i]);
+                addObject(functions[i]);
                 if (i < count - 1) {
                     fbounds[i] = mgp.getFractions()[i + 1];
                 }
@@ -310,6 +505,55 @@ public class Page extends PDFObject {
         }
     }
     
+    /**
+     * Adds a free-form (type 4) shading to the page resources and returns 
+     * the name that can be used to paint it with the 'sh' operator.
+     * 
+     * @param coords  the vertex coordinates (x and y interleaved).
+     * @param colors  the vertex colors (packed RGB).
+     * @param flags  the vertex flags ({@code null} permitted).
+     * 
+     * @return The shading name. 
+     * 
+     * @since 1.9
+     */
+    synchronized String addFreeFormShading(double[] coords, int[] colors, 
+            byte[] flags) {
+        PDFDocument doc = this.parent.getDocument();
+        FreeFormShading s = new FreeFormShading(doc.getNextNumber(), coords, 
+                colors, flags);
+        doc.applyCompression(s);
+        return addShading(s);
+    }
+    
+    /**
+     * Adds a lattice-form (type 5) shading to the page resources and returns
+     * the name that can be used to paint it with the 'sh' operator.
+     * 
+     * @param coords  the vertex coordinates (x and y interleaved).
+     * @param colors  the vertex colors (packed RGB).
+     * @param verticesPerRow  the number of vertices in each row.
+     * 
+     * @return The shading name.
+     * 
+     * @since 1.9
+     */
+    synchronized String addLatticeFormShading(double[] coords, int[] colors, 
+            int verticesPerRow) {
+        PDFDocument doc = this.parent.getDocument();
+        LatticeFormShading s = new LatticeFormShading(doc.getNextNumber(), 
+                coords, colors, verticesPerRow);
+        doc.applyCompression(s);
+        return addShading(s);
+    }
+    
+    private String addShading(PDFObject s) {
+        addObject(s);
+        String name = "/Sh" + (this.shadings.size() + 1);
+        this.shadings.put(name, s);
+        return name;
+    }
+    
     private Map<Integer, String> alphaDictionaries 
             = new HashMap<Integer, String>();
     
@@ -322,7 +566,7 @@ public class Page extends PDFObject {
      * 
      * @return The graphics state dictionary reference. 
      */
-    String findOrCreateGSDictionary(int alpha) {
+    synchronized String findOrCreateGSDictionary(int alpha) {
         Integer key = Integer.valueOf(alpha);
         float alphaValue = alpha / 255f;
         String name = this.alphaDictionaries.get(key);
@@ -332,7 +576,7 @@ public class Page extends PDFObject {
                     pdfDoc.getNextNumber());
             gsd.setNonStrokeAlpha(alphaValue);
             gsd.setStrokeAlpha(alphaValue);
-            pdfDoc.addObject(gsd);
+            addObject(gsd);
             name = "/GS" + (this.graphicsStates.size() + 1);
             this.graphicsStates.put(name, gsd);
             this.alphaDictionaries.put(key, name);
@@ -348,13 +592,13 @@ public class Page extends PDFObject {
      * 
      * @return The soft mask image reference.
      */
-    String addSoftMaskImage(Image img) {
+    synchronized String addSoftMaskImage(Image img) {
         Args.nullNotPermitted(img, "img");
         PDFDocument pdfDoc = this.parent.getDocument();
         PDFSoftMaskImage softMaskImage = new PDFSoftMaskImage(
                 pdfDoc.getNextNumber(), img);
-        softMaskImage.addFilter(new FlateFilter());
-        pdfDoc.addObject(softMaskImage);
+        pdfDoc.applyCompression(softMaskImage);
+        addObject(softMaskImage);
         String reference = "/Image" + this.xObjects.size();
         this.xObjects.put(reference, softMaskImage);
         return softMaskImage.getReference();
@@ -371,7 +615,7 @@ public class Page extends PDFObject {
      * 
      * @return The image reference name.
      */
-    String addImage(Image img, boolean addSoftMaskImage) {
+    synchronized String addImage(Image img, boolean addSoftMaskImage) {
         Args.nullNotPermitted(img, "img");
         PDFDocument pdfDoc = this.parent.getDocument();
         String softMaskImageRef = null;
@@ -380,23 +624,68 @@ public class Page extends PDFObject {
         }
         PDFImage image = new PDFImage(pdfDoc.getNextNumber(), img, 
                 softMaskImageRef);
-        image.addFilter(new FlateFilter());
-        pdfDoc.addObject(image);
+        pdfDoc.applyCompression(image);
+        addObject(image);
         String reference = "/Image" + this.xObjects.size();
         this.xObjects.put(reference, image);
         return reference;
     }
     
+    /**
+     * Adds an object that is used by this page.
+     * 
+     * @param object  the object ({@code null} not permitted).
+     * 
+     * @since 1.9
+     */
+    synchronized void addObject(PDFObject object) {
+        Args.nullNotPermitted(object, "object");
+        this.objects.add(object);
+    }
+    
+    /**
+     * Returns the objects that have been created for this page (in the 
+     * order that they were created).
+     * 
+     * @return The objects (never {@code null}). 
+     * 
+     * @since 1.9
+     */
+    synchronized List<PDFObject> getObjects() {
+        return new ArrayList<PDFObject>(this.objects);
+    }
+    
+    /**
+     * Releases the page content and the objects created for the page, 
+     * after they have been written by a {@link DocumentPipeline}.  The page
+     * should not be drawn to or written again.
+     * 
+     * @since 1.9
+     */
+    synchronized void release() {
+        for (GraphicsStream stream : getContentStreams()) {
+            stream.release();
+        }
+        this.objects.clear();
+        this.xObjects = new Dictionary();
+    }
+    
     @Override
     public byte[] getObjectBytes() {
         return createDictionary().toPDFBytes();
     }
 
-    private Dictionary createDictionary() {
+    private synchronized Dictionary createDictionary() {
         Dictionary dictionary = new Dictionary("/Page");
         dictionary.put("/Parent", this.parent);
         dictionary.put("/MediaBox", this.bounds);
-        dictionary.put("/Contents", this.contents);
+        List<GraphicsStream> streams = getContentStreams();
+        if (streams.size() == 1) {
+            dictionary.put("/Contents", this.contents);
+        } else {
+            dictionary.put("/Contents", streams.toArray(
+                    new PDFObject[streams.size()]));
+        }
         Dictionary resources = new Dictionary();
         resources.put("/ProcSet", "[/PDF /Text /ImageB /ImageC /ImageI]");
         if (!this.xObjects.isEmpty()) {
@@ -411,9 +700,35 @@ public class Page extends PDFObject {
         if (!this.graphicsStates.isEmpty()) {
             resources.put("/ExtGState", this.graphicsStates);
         }        
+        if (!this.shadings.isEmpty()) {
+            resources.put("/Shading", this.shadings);
+        }
         dictionary.put("/Resources", resources);
         return dictionary;
     }
 
-}
+    /**
+     * An additional content stream for the page, with its z-order.
+     */
+    private static final class ContentLayer 
+            implements Comparable<ContentLayer> {
+        
+        /** The z-order. */
+        final int zOrder;
+        
+        /** The content stream. */
+        final GraphicsStream stream;
+        
+        ContentLayer(int zOrder, GraphicsStream stream) {
+            this.zOrder = zOrder;
+            this.stream = stream;
+        }
 
+        @Override
+        public int compareTo(ContentLayer other) {
+            return this.zOrder < other.zOrder ? -1 
+                    : (this.zOrder == other.zOrder ? 0 : 1);
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+/**
+ * A callback that draws the content for one page of a document, used by
+ * {@link PDFDocument#renderPages(java.awt.geom.Rectangle2D, int, 
+ * com.orsonpdf.PageRenderer, java.util.concurrent.Executor)}.  Pages are 
+ * rendered concurrently, so implementations must be safe to call from 
+ * multiple threads (each call receives its own {@code PDFGraphics2D}).
+ * 
+ * @since 1.9
+ */
+public interface PageRenderer {
+    
+    /**
+     * Draws the content for a page.
+     * 
+     * @param pageIndex  the page index (zero-based).
+     * @param g2  the graphics target for the page (never {@code null}).
+     */
+    void renderPage(int pageIndex, PDFGraphics2D g2);
+    
+}
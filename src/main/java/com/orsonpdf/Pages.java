@@ -32,12 +32,16 @@
 
 package com.orsonpdf;
 
+import com.orsonpdf.font.TrueTypeFontProgram;
 import com.orsonpdf.util.Args;
 import java.awt.Font;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A {@code PDFObject} that maintains the list of pages for the document.
@@ -50,6 +54,9 @@ public final class Pages extends PDFObject {
     /** The PDF document. */
     private PDFDocument parent;
     
+    /** The value cached for fonts that are not mapped to a standard font. */
+    private static final String NO_STANDARD_FONT = "";
+    
     private List<Page> pages;
 
     /** The list of font objects used in the document. */
@@ -57,10 +64,43 @@ public final class Pages extends PDFObject {
     
     private Map<FontKey, PDFFont> fontMap;
     
+    /** The font objects, by name (for lookups by name). */
+    private Map<String, PDFFont> fontsByName;
+    
+    /** 
+     * The font objects, by AWT font (so that fonts that have been used 
+     * before are resolved without creating a font key).
+     */
+    private Map<Font, PDFFont> fontsByAWTFont;
+    
+    /** 
+     * The standard font names returned by {@link #mapToStandardFont(Font)},
+     * by AWT font ({@code NO_STANDARD_FONT} for fonts that are embedded). 
+     */
+    private Map<Font, String> standardFontNames;
+    
     private int nextFont = 1;
     
     private FontMapper fontMapper;
     
+    /** The TrueType font programs registered for embedding. */
+    private Map<FontKey, TrueTypeFontProgram> trueTypeFonts;
+    
+    /** 
+     * The TrueType font programs registered for embedding as composite 
+     * fonts (for Unicode text).
+     */
+    private Map<FontKey, TrueTypeFontProgram> unicodeFonts;
+    
+    /** 
+     * The Type 3 fonts holding glyph outlines, keyed by the AWT font at 
+     * the glyph space size.
+     */
+    private Map<Font, List<PDFType3Font>> type3Fonts;
+    
+    /** The same lists of Type 3 fonts, keyed by the AWT font as used. */
+    private Map<Font, List<PDFType3Font>> type3FontsByAWTFont;
+    
     /**
      * Creates a new {@code Pages} object.
      * 
@@ -73,9 +113,18 @@ public final class Pages extends PDFObject {
         Args.nullNotPermitted(parent, "parent");
         this.parent = parent;
         this.pages = new ArrayList<Page>();
-        this.fonts = new ArrayList<PDFFont>();
-        this.fontMap = new HashMap<FontKey, PDFFont>();
+        this.fonts = new CopyOnWriteArrayList<PDFFont>();
+        this.fontMap = new ConcurrentHashMap<FontKey, PDFFont>();
+        this.fontsByName = new ConcurrentHashMap<String, PDFFont>();
+        this.fontsByAWTFont = new ConcurrentHashMap<Font, PDFFont>();
+        this.standardFontNames = new ConcurrentHashMap<Font, String>();
         this.fontMapper = new DefaultFontMapper();
+        this.trueTypeFonts 
+                = new ConcurrentHashMap<FontKey, TrueTypeFontProgram>();
+        this.unicodeFonts 
+                = new ConcurrentHashMap<FontKey, TrueTypeFontProgram>();
+        this.type3Fonts = new HashMap<Font, List<PDFType3Font>>();
+        this.type3FontsByAWTFont = new HashMap<Font, List<PDFType3Font>>();
     }
     
     /**
@@ -88,12 +137,13 @@ public final class Pages extends PDFObject {
     }
     
     /**
-     * Returns a list of the pages in this object.
+     * Returns a list of the pages in this object.  The list is a copy, so 
+     * it is safe to use while other threads are adding pages.
      * 
      * @return A list of the pages.
      */
-    public List<Page> getPages() {
-        return this.pages;
+    public synchronized List<Page> getPages() {
+        return new ArrayList<Page>(this.pages);
     }
     
     /**
@@ -114,19 +164,14 @@ public final class Pages extends PDFObject {
      * @return The PDF font or {@code null}. 
      */
     public PDFFont getFont(String name) {
-        for (PDFFont f : this.fonts) {
-            if (f.getName().equals(name)) {
-                return f;
-            }
-        }
-        return null;
+        return name != null ? this.fontsByName.get(name) : null;
     }
     
     /**
      * 
      * @param page 
      */
-    void add(Page page) {
+    synchronized void add(Page page) {
         this.pages.add(page);
     }
     
@@ -138,24 +183,211 @@ public final class Pages extends PDFObject {
      * @return The font reference.
      */
     public String findOrCreateFontReference(Font f) {
-        // for now, map all fonts to one of the standard PDF fonts
+        return findOrCreateFont(f).getName();
+    }
+    
+    /**
+     * Finds or creates the PDF font for the specified AWT font.  Fonts 
+     * that have a registered TrueType font program are embedded, other 
+     * fonts are mapped to one of the standard PDF fonts.  A font that has
+     * been used before is found with a single map lookup (no font key is 
+     * created).
+     * 
+     * @param f  the font ({@code null} not permitted).
+     * 
+     * @return The PDF font.
+     * 
+     * @since 1.9
+     */
+    PDFFont findOrCreateFont(Font f) {
+        Args.nullNotPermitted(f, "f");
+        PDFFont pdfFont = this.fontsByAWTFont.get(f);
+        if (pdfFont == null) {
+            FontKey fontKey = FontKey.createFontKey(f);
+            pdfFont = this.fontMap.get(fontKey);
+            if (pdfFont == null) {
+                pdfFont = createFont(fontKey, f);
+            }
+            this.fontsByAWTFont.put(f, pdfFont);
+        }
+        return pdfFont;
+    }
+    
+    /**
+     * Returns the name of the standard PDF font that will be used to render
+     * text in the specified font, or {@code null} if the font has a 
+     * registered font program to embed.  This does not create a font 
+     * object, and the result is cached so that a font that has been seen 
+     * before is resolved with a single map lookup.
+     * 
+     * @param f  the font ({@code null} not permitted).
+     * 
+     * @return The base font name (without a leading slash), or 
+     *     {@code null}.
+     * 
+     * @since 1.9
+     */
+    String mapToStandardFont(Font f) {
+        Args.nullNotPermitted(f, "f");
+        String name = this.standardFontNames.get(f);
+        if (name == null) {
+            name = resolveStandardFont(f);
+            if (name == null) {
+                name = NO_STANDARD_FONT;
+            }
+            this.standardFontNames.put(f, name);
+        }
+        return name.length() > 0 ? name : null;
+    }
+    
+    private String resolveStandardFont(Font f) {
         FontKey fontKey = FontKey.createFontKey(f);
+        if (this.trueTypeFonts.containsKey(fontKey) 
+                || this.unicodeFonts.containsKey(fontKey)) {
+            return null;
+        }
+        PDFFont pdfFont = this.fontMap.get(fontKey);
+        if (pdfFont != null) {
+            return pdfFont.getClass() == PDFFont.class 
+                    ? pdfFont.getBaseFont().substring(1) : null;
+        }
+        return this.fontMapper.mapToBaseFont(f);
+    }
+    
+    /**
+     * Registers a TrueType font program to embed for fonts with the 
+     * specified key.  This only affects fonts that have not already been 
+     * used.
+     * 
+     * @param fontKey  the font key ({@code null} not permitted).
+     * @param program  the font program ({@code null} not permitted).
+     * 
+     * @since 1.9
+     */
+    void registerTrueTypeFont(FontKey fontKey, TrueTypeFontProgram program) {
+        Args.nullNotPermitted(fontKey, "fontKey");
+        Args.nullNotPermitted(program, "program");
+        this.unicodeFonts.remove(fontKey);
+        this.trueTypeFonts.put(fontKey, program);
+        this.standardFontNames.clear();
+    }
+    
+    /**
+     * Registers a TrueType font program to embed as a composite font (so 
+     * that any Unicode characters in the font can be used) for fonts with
+     * the specified key.  This only affects fonts that have not already 
+     * been used.
+     * 
+     * @param fontKey  the font key ({@code null} not permitted).
+     * @param program  the font program ({@code null} not permitted).
+     * 
+     * @since 1.9
+     */
+    void registerUnicodeFont(FontKey fontKey, TrueTypeFontProgram program) {
+        Args.nullNotPermitted(fontKey, "fontKey");
+        Args.nullNotPermitted(program, "program");
+        this.trueTypeFonts.remove(fontKey);
+        this.unicodeFonts.put(fontKey, program);
+        this.standardFontNames.clear();
+    }
+    
+    /**
+     * Finds or creates the Type 3 fonts that hold the outlines of a run of
+     * glyphs, adding glyphs to the fonts as necessary.  All the glyphs are
+     * mapped in a single call, and the font's list of Type 3 fonts is 
+     * looked up once (by the AWT font itself, so no font is derived once 
+     * the AWT font has been seen).  For each glyph, the Type 3 font, 
+     * character code and advance width (in glyph space units) are written
+     * to the output arrays.
+     * 
+     * @param f  the font ({@code null} not permitted).
+     * @param glyphCodes  the glyph codes.
+     * @param n  the number of glyphs.
+     * @param fonts  receives the Type 3 font for each glyph.
+     * @param codes  receives the character code for each glyph.
+     * @param widths  receives the advance width for each glyph.
+     * 
+     * @since 1.9
+     */
+    synchronized void findOrCreateType3Glyphs(Font f, int[] glyphCodes, 
+            int n, PDFType3Font[] fonts, int[] codes, double[] widths) {
+        Args.nullNotPermitted(f, "f");
+        List<PDFType3Font> list = this.type3FontsByAWTFont.get(f);
+        if (list == null) {
+            Font key = f.deriveFont(PDFType3Font.GLYPH_SPACE_SIZE);
+            list = this.type3Fonts.get(key);
+            if (list == null) {
+                list = new ArrayList<PDFType3Font>();
+                this.type3Fonts.put(key, list);
+            }
+            this.type3FontsByAWTFont.put(f, list);
+        }
+        Arrays.fill(fonts, 0, n, null);
+        int remaining = n;
+        for (PDFType3Font t3 : list) {
+            remaining -= t3.findOrAddGlyphs(glyphCodes, n, fonts, codes, 
+                    widths);
+            if (remaining == 0) {
+                return;
+            }
+        }
+        while (remaining > 0) {
+            Font key = list.isEmpty() 
+                    ? f.deriveFont(PDFType3Font.GLYPH_SPACE_SIZE) 
+                    : list.get(0).getGlyphSpaceFont();
+            String name = "/T" + this.nextFont + "-" 
+                    + f.getFamily().replace(' ', '_');
+            this.nextFont++;
+            PDFType3Font t3 = new PDFType3Font(this.parent.getNextNumber(), 
+                    name, key, this.parent);
+            list.add(t3);
+            addFont(t3);
+            remaining -= t3.findOrAddGlyphs(glyphCodes, n, fonts, codes, 
+                    widths);
+        }
+    }
+    
+    /**
+     * Creates a new font object for the specified key, unless another 
+     * thread has already created it.
+     * 
+     * @param fontKey  the font key.
+     * @param f  the font.
+     * 
+     * @return The font object.
+     */
+    private synchronized PDFFont createFont(FontKey fontKey, Font f) {
         PDFFont pdfFont = this.fontMap.get(fontKey);
         if (pdfFont == null) {
             int number = this.parent.getNextNumber();
             String name = "/F" + this.nextFont + "-" 
                     + f.getFamily().replace(' ', '_');
-            String baseFont = this.fontMapper.mapToBaseFont(f);
             this.nextFont++;
-            pdfFont = new PDFFont(number, 0, name, "/" + baseFont, 
-                    "/MacRomanEncoding");
-            this.fonts.add(pdfFont);
+            TrueTypeFontProgram program = this.trueTypeFonts.get(fontKey);
+            TrueTypeFontProgram unicode = this.unicodeFonts.get(fontKey);
+            if (unicode != null) {
+                pdfFont = new PDFType0Font(number, name, unicode, 
+                        this.parent);
+            } else if (program != null) {
+                pdfFont = new PDFTrueTypeFont(number, name, program, 
+                        this.parent);
+            } else {
+                String baseFont = this.fontMapper.mapToBaseFont(f);
+                pdfFont = new PDFFont(number, 0, name, "/" + baseFont, 
+                        "/MacRomanEncoding");
+            }
+            addFont(pdfFont);
             this.fontMap.put(fontKey, pdfFont);
         }
-        return pdfFont.getName();
+        return pdfFont;
+    }
+    
+    private void addFont(PDFFont pdfFont) {
+        this.fonts.add(pdfFont);
+        this.fontsByName.put(pdfFont.getName(), pdfFont);
     }
 
-    private Dictionary createDictionary() {
+    private synchronized Dictionary createDictionary() {
         Dictionary dictionary = new Dictionary("/Pages");
         Page[] pagesArray = new Page[this.pages.size()];
         for (int i = 0; i < this.pages.size(); i++) {
@@ -33,9 +33,11 @@
 package com.orsonpdf;
 
 import com.orsonpdf.filter.Filter;
+import com.orsonpdf.filter.StreamingFilter;
 import com.orsonpdf.util.Args;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -47,13 +49,34 @@ public abstract class Stream extends PDFObject {
     
     /** Filters (if any) to apply to the stream data. */
     private List<Filter> filters;
+    
+    /** 
+     * The stream data with the filters applied, cached by 
+     * {@link #encodeStreamData()} (may be {@code null}). 
+     */
+    private byte[] encodedData;
+    
+    /** The length of the raw data that {@code encodedData} was created from. */
+    private int encodedRawLength;
+    
+    /** 
+     * The policy that selects a compression filter when the data is 
+     * encoded (may be {@code null}). 
+     */
+    private CompressionPolicy compressionPolicy;
+    
+    /** 
+     * The filters applied the last time the data was encoded, including 
+     * any filter selected by the compression policy.
+     */
+    private List<Filter> appliedFilters;
 
     /**
      * Creates a new stream.
      * 
      * @param number  the PDF object number.
      */
-    Stream(int number) {
+    protected Stream(int number) {
         super(number);
         this.filters = new ArrayList<Filter>();
     }
@@ -68,6 +91,7 @@ public abstract class Stream extends PDFObject {
     public void addFilter(Filter f) {
         Args.nullNotPermitted(f, "f");
         this.filters.add(f);    
+        this.encodedData = null;
     }
     
     /**
@@ -77,6 +101,103 @@ public abstract class Stream extends PDFObject {
      */
     public void removeFilters() {
         this.filters.clear();
+        this.encodedData = null;
+    }
+    
+    /**
+     * Sets the policy that selects a compression filter for the stream 
+     * data each time it is encoded (the selected filter is applied before
+     * any filters added via {@link #addFilter(com.orsonpdf.filter.Filter)}).
+     * 
+     * @param policy  the policy ({@code null} permitted).
+     * 
+     * @since 1.9
+     */
+    void setCompressionPolicy(CompressionPolicy policy) {
+        this.compressionPolicy = policy;
+        this.encodedData = null;
+    }
+    
+    /**
+     * Applies the filters to the raw stream data and caches the result, so
+     * that the (potentially expensive) encoding can be done in advance, on
+     * a different thread to the one that writes the document.  The cached
+     * data is used by {@link #getObjectBytes()} provided that the raw data 
+     * has not changed length in the meantime.
+     * 
+     * @since 1.9
+     */
+    void encodeStreamData() {
+        byte[] raw = getRawStreamData();
+        this.encodedData = applyFilters(raw);
+        this.encodedRawLength = raw.length;
+    }
+    
+    /**
+     * Clears the data cached by {@link #encodeStreamData()}.
+     * 
+     * @since 1.9
+     */
+    void clearEncodedStreamData() {
+        this.encodedData = null;
+    }
+    
+    private byte[] applyFilters(byte[] streamData) {
+        List<Filter> applied = this.filters;
+        if (this.compressionPolicy != null) {
+            Filter selected = this.compressionPolicy.selectFilter(this, 
+                    streamData);
+            if (selected != null) {
+                applied = new ArrayList<Filter>(this.filters.size() + 1);
+                applied.add(selected);
+                applied.addAll(this.filters);
+            }
+        }
+        this.appliedFilters = applied;
+        if (applied.size() > 1 && isStreaming(applied)) {
+            // chain the filters without a full-size copy for each one
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                    streamData.length / 2 + 64);
+            try {
+                OutputStream out = wrap(applied, buffer);
+                out.write(streamData);
+                out.close();
+            } catch (IOException e) {
+                // didn't expect this...
+                throw new RuntimeException(e);
+            }
+            return buffer.toByteArray();
+        }
+        for (Filter f: applied) {
+            streamData = f.encode(streamData);
+        }
+        return streamData;
+    }
+    
+    private static boolean isStreaming(List<Filter> filters) {
+        for (Filter f : filters) {
+            if (!(f instanceof StreamingFilter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns an output stream that applies the filters (the first filter
+     * in the list is applied first) and writes the result to {@code sink}.
+     * 
+     * @param filters  the filters (all must be {@code StreamingFilter}s).
+     * @param sink  the destination.
+     * 
+     * @return The output stream. 
+     */
+    private static OutputStream wrap(List<Filter> filters, OutputStream sink) {
+        OutputStream out = sink;
+        for (int i = filters.size() - 1; i >= 0; i--) {
+            out = ((StreamingFilter) filters.get(i)).wrap(out);
+        }
+        return out;
     }
     
     /**
@@ -90,17 +211,50 @@ public abstract class Stream extends PDFObject {
     @Override
     public byte[] getObjectBytes() throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] streamData = getRawStreamData();
-        for (Filter f: this.filters) {
-            streamData = f.encode(streamData);
-        }
-        Dictionary dictionary = createDictionary(streamData.length);
-        baos.write(dictionary.toPDFBytes());
-        baos.write(PDFUtils.toBytes("stream\n"));
-        baos.write(streamData);
-        baos.write(PDFUtils.toBytes("endstream\n"));
+        writeObjectBytes(baos);
         return baos.toByteArray();
     }
+    
+    /**
+     * Writes the PDF bytes for this stream object, with all current filters
+     * applied, to the specified output stream.  Unfiltered data is written 
+     * directly from the stream (see 
+     * {@link #writeRawStreamData(java.io.OutputStream)}), and filters are 
+     * chained without intermediate copies where they support it.
+     * 
+     * @param out  the output stream ({@code null} not permitted).
+     * 
+     * @throws IOException if there is an I/O problem.
+     * 
+     * @since 1.9
+     */
+    @Override
+    protected void writeObjectBytes(OutputStream out) throws IOException {
+        byte[] streamData = this.encodedData;
+        if (streamData == null 
+                || this.encodedRawLength != getRawStreamLength()) {
+            if (this.compressionPolicy == null && this.filters.isEmpty()) {
+                this.appliedFilters = this.filters;
+                writeStreamObject(out, getRawStreamLength(), null);
+                return;
+            }
+            streamData = applyFilters(getRawStreamData());
+        }
+        writeStreamObject(out, streamData.length, streamData);
+    }
+    
+    private void writeStreamObject(OutputStream out, int length, 
+            byte[] streamData) throws IOException {
+        Dictionary dictionary = createDictionary(length);
+        out.write(dictionary.toPDFBytes());
+        out.write(PDFUtils.toBytes("stream\n"));
+        if (streamData != null) {
+            out.write(streamData);
+        } else {
+            writeRawStreamData(out);
+        }
+        out.write(PDFUtils.toBytes("endstream\n"));
+    }
 
     /**
      * Creates the dictionary for this stream object.  The dictionary will
@@ -114,11 +268,13 @@ public abstract class Stream extends PDFObject {
     protected Dictionary createDictionary(int streamLength) {
         Dictionary dictionary = new Dictionary();
         dictionary.put("/Length", Integer.valueOf(streamLength));
-        if (!this.filters.isEmpty()) {
-            String[] decodes = new String[this.filters.size()];
-            int count = this.filters.size();
+        List<Filter> applied = this.appliedFilters != null 
+                ? this.appliedFilters : this.filters;
+        if (!applied.isEmpty()) {
+            String[] decodes = new String[applied.size()];
+            int count = applied.size();
             for (int i = 0; i < count; i++) {
-                Filter f = this.filters.get(count - i - 1);
+                Filter f = applied.get(count - i - 1);
                 decodes[i] = f.getFilterType().getDecode();
             }
             dictionary.put("/Filter", decodes);
@@ -132,5 +288,32 @@ public abstract class Stream extends PDFObject {
      * @return The raw data for the stream. 
      */
     public abstract byte[] getRawStreamData();
+    
+    /**
+     * Returns the length of the raw data for the stream.  Subclasses can
+     * override this method to avoid creating a copy of the data.
+     * 
+     * @return The length of the raw data.
+     * 
+     * @since 1.9
+     */
+    protected int getRawStreamLength() {
+        return getRawStreamData().length;
+    }
+    
+    /**
+     * Writes the raw data for the stream to the specified output stream.
+     * Subclasses can override this method to avoid creating a copy of the 
+     * data.
+     * 
+     * @param out  the output stream ({@code null} not permitted).
+     * 
+     * @throws IOException if there is an I/O problem.
+     * 
+     * @since 1.9
+     */
+    protected void writeRawStreamData(OutputStream out) throws IOException {
+        out.write(getRawStreamData());
+    }
 
 }
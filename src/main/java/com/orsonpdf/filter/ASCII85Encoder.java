@@ -0,0 +1,300 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.filter;
+
+import com.orsonpdf.util.Args;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An ASCII-85 encoder that works on arrays (and {@code ByteBuffer}s) of 
+ * data rather than one byte at a time.  Four-byte groups are converted to 
+ * base-85 digits using a table of powers of 85, and line breaks are only 
+ * checked per character near the end of a line.  The output is the same as
+ * for {@link Ascii85OutputStream} with the default settings (lines of 73 
+ * characters ending with CR LF, 'z' for groups of zero bytes, and the 
+ * {@code ~>} end-of-data marker).
+ * <p>
+ * An encoder instance keeps the state (a partial group and the position in
+ * the current line) between calls to 
+ * {@link #update(byte[], int, int, byte[], int)}, so it can be used to 
+ * encode data incrementally.  Instances are not thread-safe.
+ * 
+ * @since 1.9
+ */
+public final class ASCII85Encoder {
+    
+    /** Powers of 85, from 85^4 down to 85^0. */
+    private static final int[] POW85 = { 52200625, 614125, 7225, 85, 1 };
+    
+    /** The position at which lines are broken. */
+    private static final int WIDTH = 72;
+    
+    /** The position in the current line. */
+    private int pos;
+    
+    /** The partial group carried between calls. */
+    private int tuple;
+    
+    /** The number of bytes in the partial group. */
+    private int count;
+    
+    /** A flag that records whether any data has been encoded. */
+    private boolean started;
+    
+    /**
+     * Creates a new encoder.
+     */
+    public ASCII85Encoder() {
+    }
+    
+    /**
+     * Encodes the data in {@code source}, returning a new array.
+     * 
+     * @param source  the source data ({@code null} not permitted).
+     * 
+     * @return The encoded data, including the end-of-data marker.
+     */
+    public static byte[] encode(byte[] source) {
+        Args.nullNotPermitted(source, "source");
+        return encode(source, 0, source.length);
+    }
+    
+    /**
+     * Encodes a range of bytes, returning a new array.
+     * 
+     * @param source  the source data ({@code null} not permitted).
+     * @param offset  the offset of the first byte.
+     * @param length  the number of bytes.
+     * 
+     * @return The encoded data, including the end-of-data marker.
+     */
+    public static byte[] encode(byte[] source, int offset, int length) {
+        Args.nullNotPermitted(source, "source");
+        ASCII85Encoder encoder = new ASCII85Encoder();
+        byte[] result = new byte[maxEncodedLength(length)];
+        int n = encoder.update(source, offset, length, result, 0);
+        n += encoder.finish(result, n);
+        return Arrays.copyOf(result, n);
+    }
+    
+    /**
+     * Encodes the remaining bytes in a buffer, returning a new array.  The
+     * buffer position is moved to the limit.
+     * 
+     * @param source  the source data ({@code null} not permitted).
+     * 
+     * @return The encoded data, including the end-of-data marker.
+     */
+    public static byte[] encode(ByteBuffer source) {
+        Args.nullNotPermitted(source, "source");
+        int length = source.remaining();
+        if (source.hasArray()) {
+            byte[] result = encode(source.array(), 
+                    source.arrayOffset() + source.position(), length);
+            source.position(source.limit());
+            return result;
+        }
+        ASCII85Encoder encoder = new ASCII85Encoder();
+        byte[] result = new byte[maxEncodedLength(length)];
+        byte[] chunk = new byte[Math.min(length, 8192)];
+        int n = 0;
+        while (source.hasRemaining()) {
+            int len = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, len);
+            n += encoder.update(chunk, 0, len, result, n);
+        }
+        n += encoder.finish(result, n);
+        return Arrays.copyOf(result, n);
+    }
+    
+    /**
+     * Returns the maximum number of bytes that can be written by a call to
+     * {@link #update(byte[], int, int, byte[], int)} followed by a call to 
+     * {@link #finish(byte[], int)}, for the specified input length.
+     * 
+     * @param length  the input length.
+     * 
+     * @return The maximum output length. 
+     */
+    public static int maxEncodedLength(int length) {
+        int chars = 5 * (length / 4 + 2);
+        return chars + 2 * (chars / WIDTH + 2) + 4;
+    }
+    
+    /**
+     * Encodes a range of bytes into {@code dest}, carrying any partial 
+     * group over to the next call.
+     * 
+     * @param source  the source data ({@code null} not permitted).
+     * @param offset  the offset of the first byte.
+     * @param length  the number of bytes.
+     * @param dest  the destination ({@code null} not permitted), which must
+     *     have room for at least {@code maxEncodedLength(length)} bytes.
+     * @param destOffset  the offset for the first encoded byte.
+     * 
+     * @return The number of bytes written to {@code dest}.
+     */
+    public int update(byte[] source, int offset, int length, byte[] dest, 
+            int destOffset) {
+        if (length > 0) {
+            this.started = true;
+        }
+        int i = offset;
+        int end = offset + length;
+        int d = destOffset;
+        // complete a partial group from the previous call
+        while (this.count > 0 && i < end) {
+            this.tuple |= (source[i++] & 0xFF) << (24 - 8 * this.count);
+            if (++this.count == 4) {
+                d = this.tuple == 0 ? writeZero(dest, d) 
+                        : writeGroup(this.tuple, 4, dest, d);
+                this.tuple = 0;
+                this.count = 0;
+            }
+        }
+        // the bulk of the data, four bytes at a time
+        int last = end - 4;
+        while (i <= last) {
+            int t = (source[i] << 24) | ((source[i + 1] & 0xFF) << 16)
+                    | ((source[i + 2] & 0xFF) << 8) | (source[i + 3] & 0xFF);
+            i += 4;
+            if (t == 0) {
+                d = writeZero(dest, d);
+            } else if (this.pos + 4 < WIDTH) {
+                // no line break can fall inside this group
+                long v = t & 0xFFFFFFFFL;
+                int q = (int) (v / POW85[0]);
+                int r = (int) (v - (long) q * POW85[0]);
+                dest[d] = (byte) (q + '!');
+                q = r / POW85[1];
+                r -= q * POW85[1];
+                dest[d + 1] = (byte) (q + '!');
+                q = r / POW85[2];
+                r -= q * POW85[2];
+                dest[d + 2] = (byte) (q + '!');
+                q = r / POW85[3];
+                dest[d + 3] = (byte) (q + '!');
+                dest[d + 4] = (byte) (r - q * POW85[3] + '!');
+                d += 5;
+                this.pos += 5;
+            } else {
+                d = writeGroup(t, 4, dest, d);
+            }
+        }
+        // keep any remaining bytes for the next call
+        while (i < end) {
+            this.tuple |= (source[i++] & 0xFF) << (24 - 8 * this.count);
+            this.count++;
+        }
+        return d - destOffset;
+    }
+    
+    /**
+     * Writes the final partial group (if any) and the end-of-data marker, 
+     * then resets the encoder.  If no data was encoded, nothing is written.
+     * 
+     * @param dest  the destination ({@code null} not permitted).
+     * @param destOffset  the offset for the first encoded byte.
+     * 
+     * @return The number of bytes written.
+     */
+    public int finish(byte[] dest, int destOffset) {
+        int d = destOffset;
+        if (this.started) {
+            if (this.count > 0) {
+                d = writeGroup(this.tuple, this.count, dest, d);
+            }
+            if (this.pos + 2 > WIDTH) {
+                dest[d++] = '\r';
+                dest[d++] = '\n';
+            }
+            dest[d++] = '~';
+            dest[d++] = '>';
+            dest[d++] = '\r';
+            dest[d++] = '\n';
+        }
+        this.pos = 0;
+        this.tuple = 0;
+        this.count = 0;
+        this.started = false;
+        return d - destOffset;
+    }
+    
+    /**
+     * Writes the 'z' that represents a group of four zero bytes.
+     * 
+     * @param dest  the destination.
+     * @param d  the destination offset.
+     * 
+     * @return The new destination offset.
+     */
+    private int writeZero(byte[] dest, int d) {
+        dest[d++] = 'z';
+        if (this.pos++ >= WIDTH) {
+            this.pos = 0;
+            dest[d++] = '\r';
+            dest[d++] = '\n';
+        }
+        return d;
+    }
+    
+    /**
+     * Writes the digits for a group, checking for a line break after each
+     * character (a partial group of {@code n} bytes has {@code n + 1} 
+     * digits).
+     * 
+     * @param t  the group (any missing bytes are zero).
+     * @param n  the number of bytes in the group (1 to 4).
+     * @param dest  the destination.
+     * @param d  the destination offset.
+     * 
+     * @return The new destination offset.
+     */
+    private int writeGroup(int t, int n, byte[] dest, int d) {
+        long v = t & 0xFFFFFFFFL;
+        for (int k = 0; k <= n; k++) {
+            int q = (int) (v / POW85[k]);
+            v -= (long) q * POW85[k];
+            dest[d++] = (byte) (q + '!');
+            if (this.pos++ >= WIDTH) {
+                this.pos = 0;
+                dest[d++] = '\r';
+                dest[d++] = '\n';
+            }
+        }
+        return d;
+    }
+
+}
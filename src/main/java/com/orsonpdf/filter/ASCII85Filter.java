@@ -32,13 +32,16 @@
 
 package com.orsonpdf.filter;
 
-import java.io.ByteArrayOutputStream;
+import com.orsonpdf.util.Args;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
- * A filter that can encode in ASCII-85 format.
+ * A filter that can encode in ASCII-85 format (using an 
+ * {@link ASCII85Encoder}).
  */
-public class ASCII85Filter implements Filter {
+public class ASCII85Filter implements StreamingFilter {
     
     /**
      * Default contructor.
@@ -58,17 +61,78 @@ public class ASCII85Filter implements Filter {
 
     @Override
     public byte[] encode(byte[] source) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Ascii85OutputStream out = new Ascii85OutputStream(baos);
-        try {
-            out.write(source);
-            out.flush();
-            out.close();
-        } catch (IOException e) {
-            // didn't expect this...
-            throw new RuntimeException(e);
+        return ASCII85Encoder.encode(source);
+    }
+    
+    /**
+     * Returns an output stream that encodes the bytes written to it in
+     * ASCII-85 format and passes the result to {@code sink}.
+     * 
+     * @param sink  the destination ({@code null} not permitted).
+     * 
+     * @return The output stream.
+     * 
+     * @since 1.9
+     */
+    @Override
+    public OutputStream wrap(OutputStream sink) {
+        Args.nullNotPermitted(sink, "sink");
+        return new EncoderOutputStream(sink);
+    }
+    
+    /**
+     * An output stream that encodes data in chunks with an 
+     * {@code ASCII85Encoder}.
+     */
+    private static final class EncoderOutputStream extends FilterOutputStream {
+        
+        /** The maximum number of input bytes encoded in one step. */
+        private static final int CHUNK_SIZE = 8192;
+        
+        private final ASCII85Encoder encoder;
+        
+        private final byte[] encoded;
+        
+        /** A scratch array for single byte writes. */
+        private final byte[] single = new byte[1];
+        
+        private boolean closed;
+        
+        EncoderOutputStream(OutputStream out) {
+            super(out);
+            this.encoder = new ASCII85Encoder();
+            this.encoded = new byte[ASCII85Encoder.maxEncodedLength(
+                    CHUNK_SIZE)];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.single[0] = (byte) b;
+            write(this.single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, CHUNK_SIZE);
+                int count = this.encoder.update(b, off, n, this.encoded, 0);
+                this.out.write(this.encoded, 0, count);
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            int count = this.encoder.finish(this.encoded, 0);
+            this.out.write(this.encoded, 0, count);
+            this.out.close();
         }
-        return baos.toByteArray();
+        
     }
     
 }
@@ -0,0 +1,177 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.filter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of {@code Deflater} instances and scratch buffers that 
+ * can be reused across streams and documents, to avoid the cost of 
+ * allocating (and later releasing) native zlib state for every stream.
+ * Deflaters are reset when they are returned to the pool, and ended if 
+ * the pool is already full.  This class is safe for use by multiple 
+ * threads.
+ * 
+ * @since 1.9
+ * 
+ * @see FlateFilter#setDeflaterPool(com.orsonpdf.filter.DeflaterPool) 
+ */
+public final class DeflaterPool {
+    
+    /** The size of the scratch buffers. */
+    public static final int BUFFER_SIZE = 16 * 1024;
+    
+    /** The pool shared by default (created when first needed). */
+    private static DeflaterPool defaultPool;
+    
+    /** Deflaters that write the zlib wrapper. */
+    private final BlockingQueue<Deflater> deflaters;
+    
+    /** Deflaters that write raw deflate data ({@code nowrap} set). */
+    private final BlockingQueue<Deflater> rawDeflaters;
+    
+    /** Scratch buffers. */
+    private final BlockingQueue<byte[]> buffers;
+    
+    /**
+     * Returns the pool that is used by default for all {@link FlateFilter}
+     * instances.
+     * 
+     * @return The default pool (never {@code null}). 
+     */
+    public static synchronized DeflaterPool getDefault() {
+        if (defaultPool == null) {
+            defaultPool = new DeflaterPool(Math.max(4, 
+                    2 * Runtime.getRuntime().availableProcessors()));
+        }
+        return defaultPool;
+    }
+    
+    /**
+     * Creates a new pool.
+     * 
+     * @param maxSize  the maximum number of each kind of deflater (and of 
+     *     scratch buffers) that are retained (must be greater than zero).
+     */
+    public DeflaterPool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Requires 'maxSize' > 0.");
+        }
+        this.deflaters = new ArrayBlockingQueue<Deflater>(maxSize);
+        this.rawDeflaters = new ArrayBlockingQueue<Deflater>(maxSize);
+        this.buffers = new ArrayBlockingQueue<byte[]>(maxSize);
+    }
+    
+    /**
+     * Returns a deflater from the pool (or a new one if the pool is empty)
+     * with the specified settings.  The deflater should be returned with 
+     * {@link #release(java.util.zip.Deflater, boolean)} when it is no 
+     * longer required.
+     * 
+     * @param level  the level (0 to 9, or 
+     *     {@code Deflater.DEFAULT_COMPRESSION}).
+     * @param strategy  the strategy (see {@code Deflater}).
+     * @param nowrap  if {@code true}, the deflater writes raw deflate data
+     *     without the zlib header and checksum.
+     * 
+     * @return A deflater (never {@code null}). 
+     */
+    public Deflater obtain(int level, int strategy, boolean nowrap) {
+        Deflater deflater = (nowrap ? this.rawDeflaters : this.deflaters)
+                .poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, nowrap);
+        } else {
+            deflater.setLevel(level);
+        }
+        deflater.setStrategy(strategy);
+        return deflater;
+    }
+    
+    /**
+     * Returns a deflater to the pool.  The deflater is reset, or ended if
+     * the pool is full, so it must not be used by the caller afterwards.
+     * 
+     * @param deflater  the deflater ({@code null} not permitted).
+     * @param nowrap  the {@code nowrap} setting the deflater was obtained 
+     *     with.
+     */
+    public void release(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        if (!(nowrap ? this.rawDeflaters : this.deflaters).offer(deflater)) {
+            deflater.end();
+        }
+    }
+    
+    /**
+     * Returns a scratch buffer of {@link #BUFFER_SIZE} bytes from the pool
+     * (or a new one if the pool is empty).
+     * 
+     * @return A buffer (never {@code null}). 
+     */
+    public byte[] obtainBuffer() {
+        byte[] buffer = this.buffers.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+    
+    /**
+     * Returns a scratch buffer to the pool (buffers that are not 
+     * {@link #BUFFER_SIZE} bytes long are ignored).
+     * 
+     * @param buffer  the buffer ({@code null} not permitted).
+     */
+    public void releaseBuffer(byte[] buffer) {
+        if (buffer.length == BUFFER_SIZE) {
+            this.buffers.offer(buffer);
+        }
+    }
+    
+    /**
+     * Ends all the deflaters that are currently held in the pool, releasing
+     * their native resources.  The pool can still be used afterwards.
+     */
+    public void clear() {
+        Deflater deflater;
+        while ((deflater = this.deflaters.poll()) != null) {
+            deflater.end();
+        }
+        while ((deflater = this.rawDeflaters.poll()) != null) {
+            deflater.end();
+        }
+        this.buffers.clear();
+    }
+
+}
@@ -32,20 +32,104 @@
 
 package com.orsonpdf.filter;
 
+import com.orsonpdf.util.Args;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 /**
- * Encodes data using Flate.
+ * Encodes data using Flate.  Data larger than the parallel threshold (see
+ * {@link #setParallelThreshold(int)}) is split into blocks that are 
+ * compressed concurrently (in the same way as <b>pigz</b>), with each 
+ * block using the last 32KB of the previous block as its dictionary so 
+ * that there is very little loss in compression.  The blocks are joined 
+ * into a single zlib stream.
+ * <p>
+ * By default, {@code Deflater} instances and scratch buffers are reused via
+ * {@link DeflaterPool#getDefault()}.
  */
-public class FlateFilter implements Filter {
+public class FlateFilter implements StreamingFilter {
 
+    /** 
+     * The default size (in bytes) above which data is compressed in 
+     * parallel.
+     * 
+     * @since 1.9
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 4 * 1024 * 1024;
+    
+    /** The size of the blocks for parallel compression. */
+    private static final int BLOCK_SIZE = 128 * 1024;
+    
+    /** The size of the dictionary taken from the preceding block. */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    
+    /** The modulus for the Adler-32 checksum. */
+    private static final long ADLER_BASE = 65521L;
+    
+    /** The executor shared by all filters (created when first needed). */
+    private static ExecutorService sharedExecutor;
+    
+    /** The compression level (0-9, or -1 for the default level). */
+    private int level;
+    
+    /** The compression strategy (see {@code Deflater}). */
+    private int strategy;
+    
+    /** The size above which data is compressed in parallel. */
+    private int parallelThreshold;
+    
+    /** The executor for parallel compression ({@code null} permitted). */
+    private Executor executor;
+    
+    /** The pool for deflaters and buffers ({@code null} permitted). */
+    private DeflaterPool pool;
+    
     /**
      * Default constructor.
      */
     public FlateFilter() {
-        
+        this(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+    }
+    
+    /**
+     * Creates a new filter with the specified compression level and 
+     * strategy.
+     * 
+     * @param level  the level (0 to 9, or 
+     *     {@code Deflater.DEFAULT_COMPRESSION}).
+     * @param strategy  the strategy ({@code Deflater.DEFAULT_STRATEGY}, 
+     *     {@code Deflater.FILTERED} or {@code Deflater.HUFFMAN_ONLY}).
+     * 
+     * @since 1.9
+     */
+    public FlateFilter(int level, int strategy) {
+        if (level < -1 || level > 9) {
+            throw new IllegalArgumentException("Invalid 'level': " + level);
+        }
+        if (strategy != Deflater.DEFAULT_STRATEGY 
+                && strategy != Deflater.FILTERED 
+                && strategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException("Invalid 'strategy': " 
+                    + strategy);
+        }
+        this.level = level;
+        this.strategy = strategy;
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        this.pool = DeflaterPool.getDefault();
     }
     
     /**
@@ -58,19 +142,385 @@ public class FlateFilter implements Filter {
         return FilterType.FLATE;
     }
 
+    /**
+     * Returns the compression level.
+     * 
+     * @return The compression level (0 to 9, or 
+     *     {@code Deflater.DEFAULT_COMPRESSION}).
+     * 
+     * @since 1.9
+     */
+    public int getLevel() {
+        return this.level;
+    }
+    
+    /**
+     * Returns the compression strategy.
+     * 
+     * @return The compression strategy (see {@code Deflater}).
+     * 
+     * @since 1.9
+     */
+    public int getStrategy() {
+        return this.strategy;
+    }
+    
+    /**
+     * Returns the size (in bytes) above which data is compressed in 
+     * parallel.  The default value is {@link #DEFAULT_PARALLEL_THRESHOLD}.
+     * 
+     * @return The threshold.
+     * 
+     * @since 1.9
+     */
+    public int getParallelThreshold() {
+        return this.parallelThreshold;
+    }
+    
+    /**
+     * Sets the size (in bytes) above which data is compressed in parallel.
+     * Use {@code Integer.MAX_VALUE} to switch parallel compression off.
+     * 
+     * @param threshold  the threshold (must be greater than zero).
+     * 
+     * @since 1.9
+     */
+    public void setParallelThreshold(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Requires 'threshold' > 0.");
+        }
+        this.parallelThreshold = threshold;
+    }
+    
+    /**
+     * Sets the executor used for parallel compression.  If this is 
+     * {@code null} (the default), a pool of daemon threads shared by all 
+     * filters is used.
+     * 
+     * @param executor  the executor ({@code null} permitted).
+     * 
+     * @since 1.9
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * Returns the pool used to obtain deflaters and scratch buffers.
+     * 
+     * @return The pool (possibly {@code null}).
+     * 
+     * @since 1.9
+     */
+    public DeflaterPool getDeflaterPool() {
+        return this.pool;
+    }
+    
+    /**
+     * Sets the pool used to obtain deflaters and scratch buffers.  The 
+     * default is {@link DeflaterPool#getDefault()}.  If this is 
+     * {@code null}, a new deflater is created (and ended) for each call to
+     * {@link #encode(byte[])}.
+     * 
+     * @param pool  the pool ({@code null} permitted).
+     * 
+     * @since 1.9
+     */
+    public void setDeflaterPool(DeflaterPool pool) {
+        this.pool = pool;
+    }
+    
     @Override
     public byte[] encode(byte[] source) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DeflaterOutputStream out = new DeflaterOutputStream(baos);
+        if (source.length > this.parallelThreshold) {
+            byte[] result = encodeParallel(source);
+            if (result != null) {
+                return result;
+            }
+        }
+        Deflater deflater = obtainDeflater(false);
         try {
-            out.write(source);
-            out.flush();
-            out.close();
-        } catch (IOException e) {
-            // didn't expect this...
+            deflater.setInput(source);
+            deflater.finish();
+            // most content compresses well, so start with a modest array
+            byte[] out = new byte[source.length / 4 + 64];
+            int count = 0;
+            while (!deflater.finished()) {
+                if (count == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                count += deflater.deflate(out, count, out.length - count);
+            }
+            return count == out.length ? out : Arrays.copyOf(out, count);
+        } finally {
+            releaseDeflater(deflater, false);
+        }
+    }
+    
+    /**
+     * Returns an output stream that compresses the bytes written to it and
+     * passes the result to {@code sink}.  Data written this way is always
+     * compressed on the calling thread.
+     * 
+     * @param sink  the destination ({@code null} not permitted).
+     * 
+     * @return The output stream.
+     * 
+     * @since 1.9
+     */
+    @Override
+    public OutputStream wrap(OutputStream sink) {
+        Args.nullNotPermitted(sink, "sink");
+        return new FlateOutputStream(sink, obtainDeflater(false));
+    }
+    
+    private Deflater obtainDeflater(boolean nowrap) {
+        if (this.pool != null) {
+            return this.pool.obtain(this.level, this.strategy, nowrap);
+        }
+        Deflater deflater = new Deflater(this.level, nowrap);
+        deflater.setStrategy(this.strategy);
+        return deflater;
+    }
+    
+    private void releaseDeflater(Deflater deflater, boolean nowrap) {
+        if (this.pool != null) {
+            this.pool.release(deflater, nowrap);
+        } else {
+            deflater.end();
+        }
+    }
+    
+    /**
+     * Returns the compression level flags for the zlib header, as written
+     * by zlib for the current level and strategy.
+     * 
+     * @return The flags (0 to 3). 
+     */
+    private int getLevelFlags() {
+        if (this.strategy == Deflater.HUFFMAN_ONLY 
+                || (this.level >= 0 && this.level < 2)) {
+            return 0;
+        } else if (this.level >= 0 && this.level < 6) {
+            return 1;
+        } else if (this.level == 6 || this.level == -1) {
+            return 2;
+        }
+        return 3;
+    }
+    
+    /**
+     * Compresses the source data in blocks on multiple threads, returning 
+     * {@code null} if this is not supported by the Java runtime (the
+     * sync flush mode requires Java 7).
+     * 
+     * @param source  the source data.
+     * 
+     * @return The zlib stream (or {@code null}).
+     */
+    private byte[] encodeParallel(final byte[] source) {
+        Executor exec = this.executor != null ? this.executor 
+                : getSharedExecutor();
+        int blockCount = (source.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        List<FutureTask<Block>> tasks = new ArrayList<FutureTask<Block>>(
+                blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            final int offset = i * BLOCK_SIZE;
+            final int length = Math.min(BLOCK_SIZE, source.length - offset);
+            final boolean last = (i == blockCount - 1);
+            FutureTask<Block> task = new FutureTask<Block>(
+                    new Callable<Block>() {
+                @Override
+                public Block call() {
+                    return deflateBlock(source, offset, length, last);
+                }
+            });
+            tasks.add(task);
+            exec.execute(task);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                source.length / 4 + 64);
+        // the zlib header: deflate with a 32K window, then the level flags
+        // adjusted so that the header is a multiple of 31
+        int cmf = 0x78;
+        int flg = getLevelFlags() << 6;
+        flg += 31 - ((cmf << 8) + flg) % 31;
+        out.write(cmf);
+        out.write(flg);
+        long adler = 1L;
+        try {
+            for (int i = 0; i < blockCount; i++) {
+                Block block = tasks.get(i).get();
+                out.write(block.data, 0, block.data.length);
+                adler = combineAdler32(adler, block.adler, block.length);
+            }
+        } catch (ExecutionException e) {
+            cancel(tasks);
+            if (e.getCause() instanceof NoSuchMethodError) {
+                return null;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            cancel(tasks);
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
         }
-        return baos.toByteArray();
+        out.write((int) (adler >>> 24) & 0xFF);
+        out.write((int) (adler >>> 16) & 0xFF);
+        out.write((int) (adler >>> 8) & 0xFF);
+        out.write((int) adler & 0xFF);
+        return out.toByteArray();
+    }
+    
+    private static void cancel(List<FutureTask<Block>> tasks) {
+        for (FutureTask<Block> task : tasks) {
+            task.cancel(true);
+        }
+    }
+    
+    /**
+     * Compresses one block as raw deflate data.  Blocks other than the last
+     * end with a sync flush (so that they are byte aligned and can be 
+     * concatenated), and the last block is finished.
+     * 
+     * @param source  the source data.
+     * @param offset  the offset of the block.
+     * @param length  the length of the block.
+     * @param last  is this the last block?
+     * 
+     * @return The compressed block.
+     */
+    private Block deflateBlock(byte[] source, int offset, int length, 
+            boolean last) {
+        Deflater deflater = obtainDeflater(true);
+        byte[] buffer = this.pool != null ? this.pool.obtainBuffer() 
+                : new byte[DeflaterPool.BUFFER_SIZE];
+        try {
+            if (offset > 0) {
+                int start = Math.max(0, offset - DICTIONARY_SIZE);
+                deflater.setDictionary(source, start, offset - start);
+            }
+            deflater.setInput(source, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    length / 2 + 64);
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    out.write(buffer, 0, n);
+                }
+            } else {
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, 
+                            Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            Adler32 adler = new Adler32();
+            adler.update(source, offset, length);
+            return new Block(out.toByteArray(), adler.getValue(), length);
+        } finally {
+            releaseDeflater(deflater, true);
+            if (this.pool != null) {
+                this.pool.releaseBuffer(buffer);
+            }
+        }
+    }
+    
+    /**
+     * Combines two Adler-32 checksums, as for {@code adler32_combine()} in 
+     * zlib.
+     * 
+     * @param adler1  the checksum for the first sequence.
+     * @param adler2  the checksum for the second sequence.
+     * @param len2  the length of the second sequence.
+     * 
+     * @return The checksum for the two sequences concatenated.
+     */
+    static long combineAdler32(long adler1, long adler2, long len2) {
+        long rem = len2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (rem * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) 
+                + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= (ADLER_BASE << 1)) {
+            sum2 -= (ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+    
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            sharedExecutor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(), 
+                    new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "FlateFilter");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return sharedExecutor;
+    }
+    
+    /**
+     * An output stream that returns its deflater to the pool when closed.
+     */
+    private final class FlateOutputStream extends DeflaterOutputStream {
+        
+        private boolean closed;
+        
+        FlateOutputStream(OutputStream out, Deflater deflater) {
+            super(out, deflater);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            try {
+                super.close();
+            } finally {
+                releaseDeflater(this.def, false);
+            }
+        }
+        
+    }
+    
+    /**
+     * A compressed block.
+     */
+    private static final class Block {
+        
+        /** The compressed data. */
+        final byte[] data;
+        
+        /** The Adler-32 checksum of the uncompressed data. */
+        final long adler;
+        
+        /** The length of the uncompressed data. */
+        final int length;
+        
+        Block(byte[] data, long adler, int length) {
+            this.data = data;
+            this.adler = adler;
+            this.length = length;
+        }
     }
     
 }
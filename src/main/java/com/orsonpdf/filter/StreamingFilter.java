@@ -0,0 +1,59 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.filter;
+
+import java.io.OutputStream;
+
+/**
+ * A {@link Filter} that can also encode data incrementally, by wrapping an
+ * output stream.  Filters of this type can be chained without creating a
+ * full-size intermediate copy of the data for each filter.
+ * 
+ * @since 1.9
+ */
+public interface StreamingFilter extends Filter {
+    
+    /**
+     * Returns an output stream that encodes the bytes written to it and 
+     * passes the result to {@code sink}.  Closing the returned stream 
+     * completes the encoding and closes {@code sink}.
+     * 
+     * @param sink  the destination for the encoded data ({@code null} not 
+     *     permitted).
+     * 
+     * @return The output stream (never {@code null}). 
+     */
+    OutputStream wrap(OutputStream sink);
+    
+}
@@ -0,0 +1,477 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.font;
+
+import com.orsonpdf.util.Args;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Font metrics for the standard (built-in) PDF fonts, taken from the Adobe
+ * Font Metrics (AFM) files for the base-14 fonts.  Widths are held for the
+ * characters in the standard Latin character set (the characters of the
+ * {@link TextEncoding} encodings); other characters are written, and 
+ * measured, as '?'.  All values are in units of 1/1000 of the font size 
+ * (text space units, as used for {@code /Widths}).
+ * <p>
+ * Metrics are available for the Helvetica, Times and Courier families 
+ * (the fonts that the {@code DefaultFontMapper} maps to).
+ * 
+ * @since 1.9
+ */
+public final class StandardFont {
+    
+    /** The first character code in a {@code /Widths} array. */
+    public static final int FIRST_CHAR = 32;
+    
+    /** The last character code in a {@code /Widths} array. */
+    public static final int LAST_CHAR = 255;
+    
+    /** The last ASCII character with a width. */
+    private static final int LAST_ASCII = 126;
+    
+    /** 
+     * The characters beyond ASCII that are not accented letters, in 
+     * ascending order (accented letters have the width of the base 
+     * letter).
+     */
+    private static final char[] EXTRA_CHARS = { 
+        '\u00A1', '\u00A2', '\u00A3', '\u00A4', '\u00A5', '\u00A6', 
+        '\u00A7', '\u00A8', '\u00A9', '\u00AA', '\u00AB', '\u00AC', 
+        '\u00AE', '\u00AF', '\u00B0', '\u00B1', '\u00B2', '\u00B3', 
+        '\u00B4', '\u00B5', '\u00B6', '\u00B7', '\u00B8', '\u00B9', 
+        '\u00BA', '\u00BB', '\u00BC', '\u00BD', '\u00BE', '\u00BF', 
+        '\u00C6', '\u00D0', '\u00D7', '\u00D8', '\u00DE', '\u00DF', 
+        '\u00E6', '\u00F0', '\u00F7', '\u00F8', '\u00FE', '\u0131', 
+        '\u0152', '\u0153', '\u0192', '\u02C6', '\u02C7', '\u02D8', 
+        '\u02D9', '\u02DA', '\u02DB', '\u02DC', '\u02DD', '\u2013', 
+        '\u2014', '\u2018', '\u2019', '\u201A', '\u201C', '\u201D', 
+        '\u201E', '\u2020', '\u2021', '\u2022', '\u2026', '\u2030', 
+        '\u2039', '\u203A', '\u2044', '\u20AC', '\u2122', '\uFB01', 
+        '\uFB02' };
+    
+    private static final int[] HELVETICA_WIDTHS = {
+        278, 278, 355, 556, 556, 889, 667, 191, 333, 333, 389, 584, 278, 333, 
+        278, 278, 556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 278, 278, 
+        584, 584, 584, 556, 1015, 667, 667, 722, 722, 667, 611, 778, 722, 278, 
+        500, 667, 556, 833, 722, 778, 667, 778, 722, 667, 611, 722, 667, 944, 
+        667, 667, 611, 278, 278, 278, 469, 556, 333, 556, 556, 500, 556, 556, 
+        278, 556, 556, 222, 222, 500, 222, 833, 556, 556, 556, 556, 333, 500, 
+        278, 556, 500, 722, 500, 500, 500, 334, 260, 334, 584 };
+    
+    private static final int[] HELVETICA_BOLD_WIDTHS = {
+        278, 333, 474, 556, 556, 889, 722, 238, 333, 333, 389, 584, 278, 333, 
+        278, 278, 556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 333, 333, 
+        584, 584, 584, 611, 975, 722, 722, 722, 722, 667, 611, 778, 722, 278, 
+        556, 722, 611, 833, 722, 778, 667, 778, 722, 667, 611, 722, 667, 944, 
+        667, 667, 611, 333, 278, 333, 584, 556, 333, 556, 611, 556, 611, 556, 
+        333, 611, 611, 278, 278, 556, 278, 889, 611, 611, 611, 611, 389, 556, 
+        333, 611, 556, 778, 556, 556, 500, 389, 280, 389, 584 };
+    
+    private static final int[] TIMES_ROMAN_WIDTHS = {
+        250, 333, 408, 500, 500, 833, 778, 180, 333, 333, 500, 564, 250, 333, 
+        250, 278, 500, 500, 500, 500, 500, 500, 500, 500, 500, 500, 278, 278, 
+        564, 564, 564, 444, 921, 722, 667, 667, 722, 611, 556, 722, 722, 333, 
+        389, 722, 611, 889, 722, 722, 556, 722, 667, 556, 611, 722, 722, 944, 
+        722, 722, 611, 333, 278, 333, 469, 500, 333, 444, 500, 444, 500, 444, 
+        333, 500, 500, 278, 278, 500, 278, 778, 500, 500, 500, 500, 333, 389, 
+        278, 500, 500, 722, 500, 500, 444, 480, 200, 480, 541 };
+    
+    private static final int[] TIMES_BOLD_WIDTHS = {
+        250, 333, 555, 500, 500, 1000, 833, 278, 333, 333, 500, 570, 250, 333, 
+        250, 278, 500, 500, 500, 500, 500, 500, 500, 500, 500, 500, 333, 333, 
+        570, 570, 570, 500, 930, 722, 667, 722, 722, 667, 611, 778, 778, 389, 
+        500, 778, 667, 944, 722, 778, 611, 778, 722, 556, 667, 722, 722, 1000, 
+        722, 722, 667, 333, 278, 333, 581, 500, 333, 500, 556, 444, 556, 444, 
+        333, 500, 556, 278, 333, 556, 278, 833, 556, 500, 556, 556, 444, 389, 
+        333, 556, 500, 722, 500, 500, 444, 394, 220, 394, 520 };
+    
+    private static final int[] TIMES_ITALIC_WIDTHS = {
+        250, 333, 420, 500, 500, 833, 778, 214, 333, 333, 500, 675, 250, 333, 
+        250, 278, 500, 500, 500, 500, 500, 500, 500, 500, 500, 500, 333, 333, 
+        675, 675, 675, 500, 920, 611, 611, 667, 722, 611, 611, 722, 722, 333, 
+        444, 667, 556, 833, 667, 722, 611, 722, 611, 500, 556, 722, 611, 833, 
+        611, 556, 556, 389, 278, 389, 422, 500, 333, 500, 500, 444, 500, 444, 
+        278, 500, 500, 278, 278, 444, 278, 722, 500, 500, 500, 500, 389, 389, 
+        278, 500, 444, 667, 444, 444, 389, 400, 275, 400, 541 };
+    
+    private static final int[] TIMES_BOLDITALIC_WIDTHS = {
+        250, 389, 555, 500, 500, 833, 778, 278, 333, 333, 500, 570, 250, 333, 
+        250, 278, 500, 500, 500, 500, 500, 500, 500, 500, 500, 500, 333, 333, 
+        570, 570, 570, 500, 832, 667, 667, 667, 722, 667, 667, 722, 778, 389, 
+        500, 667, 611, 889, 722, 722, 611, 722, 667, 556, 611, 722, 667, 889, 
+        667, 611, 611, 333, 278, 333, 570, 500, 333, 500, 500, 444, 500, 444, 
+        333, 500, 556, 278, 278, 500, 278, 778, 556, 500, 500, 500, 389, 389, 
+        278, 556, 444, 667, 500, 444, 389, 348, 220, 348, 570 };
+    
+    private static final int[] HELVETICA_EXTRA_WIDTHS = {
+        333, 556, 556, 556, 556, 260, 556, 333, 737, 370, 556, 584,
+        737, 333, 400, 584, 333, 333, 333, 556, 537, 278, 333, 333,
+        365, 556, 834, 834, 834, 611, 1000, 722, 584, 778, 667, 611,
+        889, 556, 584, 611, 556, 278, 1000, 944, 556, 333, 333, 333,
+        333, 333, 333, 333, 333, 556, 1000, 222, 222, 222, 333, 333,
+        333, 556, 556, 350, 1000, 1000, 333, 333, 167, 556, 1000, 500,
+        500 };
+    
+    private static final int[] HELVETICA_BOLD_EXTRA_WIDTHS = {
+        333, 556, 556, 556, 556, 280, 556, 333, 737, 370, 556, 584,
+        737, 333, 400, 584, 333, 333, 333, 611, 556, 278, 333, 333,
+        365, 556, 834, 834, 834, 611, 1000, 722, 584, 778, 667, 611,
+        889, 611, 584, 611, 611, 278, 1000, 944, 556, 333, 333, 333,
+        333, 333, 333, 333, 333, 556, 1000, 278, 278, 278, 500, 500,
+        500, 556, 556, 350, 1000, 1000, 333, 333, 167, 556, 1000, 611,
+        611 };
+    
+    private static final int[] TIMES_ROMAN_EXTRA_WIDTHS = {
+        333, 500, 500, 500, 500, 200, 500, 333, 760, 276, 500, 564,
+        760, 333, 400, 564, 300, 300, 333, 500, 453, 250, 333, 300,
+        310, 500, 750, 750, 750, 444, 889, 722, 564, 722, 556, 500,
+        667, 500, 564, 500, 500, 278, 889, 722, 500, 333, 333, 333,
+        333, 333, 333, 333, 333, 500, 1000, 333, 333, 333, 444, 444,
+        444, 500, 500, 350, 1000, 1000, 333, 333, 167, 500, 980, 556,
+        556 };
+    
+    private static final int[] TIMES_BOLD_EXTRA_WIDTHS = {
+        333, 500, 500, 500, 500, 220, 500, 333, 747, 300, 500, 570,
+        747, 333, 400, 570, 300, 300, 333, 556, 540, 250, 333, 300,
+        330, 500, 750, 750, 750, 500, 1000, 722, 570, 778, 611, 556,
+        722, 500, 570, 500, 556, 278, 1000, 722, 500, 333, 333, 333,
+        333, 333, 333, 333, 333, 500, 1000, 333, 333, 333, 500, 500,
+        500, 500, 500, 350, 1000, 1000, 333, 333, 167, 500, 1000, 556,
+        556 };
+    
+    private static final int[] TIMES_ITALIC_EXTRA_WIDTHS = {
+        389, 500, 500, 500, 500, 275, 500, 333, 760, 276, 500, 675,
+        760, 333, 400, 675, 300, 300, 333, 500, 523, 250, 333, 300,
+        310, 500, 750, 750, 750, 500, 889, 722, 675, 722, 611, 500,
+        667, 500, 675, 500, 500, 278, 944, 667, 500, 333, 333, 333,
+        333, 333, 333, 333, 333, 500, 889, 333, 333, 333, 556, 556,
+        556, 500, 500, 350, 889, 1000, 333, 333, 167, 500, 980, 500,
+        500 };
+    
+    private static final int[] TIMES_BOLDITALIC_EXTRA_WIDTHS = {
+        389, 500, 500, 500, 500, 220, 500, 333, 747, 266, 500, 606,
+        747, 333, 400, 570, 300, 300, 333, 576, 500, 250, 333, 300,
+        300, 500, 750, 750, 750, 500, 944, 722, 570, 722, 611, 500,
+        722, 500, 570, 500, 500, 278, 944, 722, 500, 333, 333, 333,
+        333, 333, 333, 333, 333, 500, 1000, 333, 333, 333, 500, 500,
+        500, 500, 500, 350, 1000, 1000, 333, 333, 167, 500, 1000, 556,
+        556 };
+    
+    /** The standard fonts, by name. */
+    private static final Map<String, StandardFont> FONTS 
+            = new HashMap<String, StandardFont>();
+    
+    static {
+        add(new StandardFont("Helvetica", HELVETICA_WIDTHS, 
+                HELVETICA_EXTRA_WIDTHS, 718, -207, 718, 
+                new int[] { -166, -225, 1000, 931 }, 0.0));
+        add(new StandardFont("Helvetica-Bold", HELVETICA_BOLD_WIDTHS, 
+                HELVETICA_BOLD_EXTRA_WIDTHS, 718, 
+                -207, 718, new int[] { -170, -228, 1003, 962 }, 0.0));
+        add(new StandardFont("Helvetica-Oblique", HELVETICA_WIDTHS, 
+                HELVETICA_EXTRA_WIDTHS, 718, 
+                -207, 718, new int[] { -170, -225, 1116, 931 }, -12.0));
+        add(new StandardFont("Helvetica-BoldOblique", HELVETICA_BOLD_WIDTHS, 
+                HELVETICA_BOLD_EXTRA_WIDTHS, 
+                718, -207, 718, new int[] { -174, -228, 1114, 962 }, -12.0));
+        add(new StandardFont("Times-Roman", TIMES_ROMAN_WIDTHS, 
+                TIMES_ROMAN_EXTRA_WIDTHS, 683, -217, 
+                662, new int[] { -168, -218, 1000, 898 }, 0.0));
+        add(new StandardFont("Times-Bold", TIMES_BOLD_WIDTHS, 
+                TIMES_BOLD_EXTRA_WIDTHS, 683, -217, 676, 
+                new int[] { -168, -218, 1000, 935 }, 0.0));
+        add(new StandardFont("Times-Italic", TIMES_ITALIC_WIDTHS, 
+                TIMES_ITALIC_EXTRA_WIDTHS, 683, -217, 
+                653, new int[] { -169, -217, 1010, 883 }, -15.5));
+        add(new StandardFont("Times-BoldItalic", TIMES_BOLDITALIC_WIDTHS, 
+                TIMES_BOLDITALIC_EXTRA_WIDTHS, 683, 
+                -217, 669, new int[] { -200, -218, 996, 921 }, -15.0));
+        int[] courier = new int[LAST_ASCII - FIRST_CHAR + 1];
+        Arrays.fill(courier, 600);
+        int[] courierExtra = new int[EXTRA_CHARS.length];
+        Arrays.fill(courierExtra, 600);
+        add(new StandardFont("Courier", courier, courierExtra, 
+                629, -157, 562, 
+                new int[] { -23, -250, 715, 805 }, 0.0));
+        add(new StandardFont("Courier-Bold", courier, courierExtra, 
+                629, -157, 562, 
+                new int[] { -113, -250, 749, 801 }, 0.0));
+        add(new StandardFont("Courier-Oblique", courier, courierExtra, 
+                629, -157, 562, 
+                new int[] { -27, -250, 849, 805 }, -12.0));
+        add(new StandardFont("Courier-BoldOblique", courier, 
+                courierExtra, 629, -157, 562, 
+                new int[] { -57, -250, 869, 801 }, -12.0));
+        // the names used by PDFFont.COURIER_ITALIC and COURIER_BOLDITALIC
+        FONTS.put("Courier-Italic", FONTS.get("Courier-Oblique"));
+        FONTS.put("Courier-BoldItalic", FONTS.get("Courier-BoldOblique"));
+    }
+    
+    private static void add(StandardFont font) {
+        FONTS.put(font.getName(), font);
+    }
+    
+    /**
+     * Returns the metrics for a standard font.
+     * 
+     * @param name  the font name, for example "Helvetica-Bold" (a leading 
+     *     '/' is ignored, {@code null} permitted).
+     * 
+     * @return The metrics, or {@code null} if {@code name} is not the name 
+     *     of a standard font with metrics.
+     */
+    public static StandardFont getInstance(String name) {
+        if (name == null) {
+            return null;
+        }
+        if (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        return FONTS.get(name);
+    }
+    
+    private final String name;
+    
+    /** The widths for the ASCII characters FIRST_CHAR to '~'. */
+    private final int[] widths;
+    
+    /** The widths for the characters in EXTRA_CHARS. */
+    private final int[] extraWidths;
+    
+    /** The widths for the characters 0 to 255 (looked up on creation). */
+    private final int[] latin1Widths;
+    
+    private final int ascent;
+    
+    private final int descent;
+    
+    private final int capHeight;
+    
+    private final int[] bbox;
+    
+    private final double italicAngle;
+    
+    private final int maxWidth;
+    
+    private StandardFont(String name, int[] widths, int[] extraWidths, 
+            int ascent, int descent, int capHeight, int[] bbox, 
+            double italicAngle) {
+        this.name = name;
+        this.widths = widths;
+        this.extraWidths = extraWidths;
+        this.ascent = ascent;
+        this.descent = descent;
+        this.capHeight = capHeight;
+        this.bbox = bbox;
+        this.italicAngle = italicAngle;
+        int max = 0;
+        for (int w : widths) {
+            max = Math.max(max, w);
+        }
+        for (int w : extraWidths) {
+            max = Math.max(max, w);
+        }
+        this.maxWidth = max;
+        this.latin1Widths = new int[256];
+        for (int c = 0; c < 256; c++) {
+            this.latin1Widths[c] = lookupWidth((char) c);
+        }
+    }
+    
+    /**
+     * Looks up the width of a character: ASCII and the characters in 
+     * {@code EXTRA_CHARS} have their own widths, accented letters have the
+     * width of the base letter and anything else has the width of '?'.
+     * 
+     * @param c  the character.
+     * 
+     * @return The width. 
+     */
+    private int lookupWidth(char c) {
+        if (c < FIRST_CHAR) {
+            return 0;
+        }
+        if (c <= LAST_ASCII) {
+            return this.widths[c - FIRST_CHAR];
+        }
+        if (c == '\u00A0') { // no-break space
+            return this.widths[' ' - FIRST_CHAR];
+        }
+        if (c == '\u00AD') { // soft hyphen
+            return this.widths['-' - FIRST_CHAR];
+        }
+        int i = Arrays.binarySearch(EXTRA_CHARS, c);
+        if (i >= 0) {
+            return this.extraWidths[i];
+        }
+        String d = Normalizer.normalize(String.valueOf(c), 
+                Normalizer.Form.NFD);
+        char base = d.charAt(0);
+        if (d.length() > 1 && base >= 'A' && base <= 'z' 
+                && Character.isLetter(base)) {
+            if (base == 'i') { // the accent replaces the dot
+                return lookupWidth('\u0131');
+            }
+            return this.widths[base - FIRST_CHAR];
+        }
+        return this.widths['?' - FIRST_CHAR];
+    }
+    
+    /**
+     * Returns the font name (for example "Helvetica-Bold").
+     * 
+     * @return The font name (never {@code null}). 
+     */
+    public String getName() {
+        return this.name;
+    }
+    
+    /**
+     * Returns the width of a character.  Accented letters have the width
+     * of the base letter, characters outside the standard Latin character 
+     * set have the width of '?' (the character they are written as) and 
+     * control characters have zero width.
+     * 
+     * @param c  the character.
+     * 
+     * @return The width (in 1/1000 of the font size).
+     */
+    public int getWidth(int c) {
+        if (c < 256) {
+            return c < 0 ? 0 : this.latin1Widths[c];
+        }
+        if (c > Character.MAX_VALUE) {
+            return this.widths['?' - FIRST_CHAR];
+        }
+        return lookupWidth((char) c);
+    }
+    
+    /**
+     * Returns the width of a string (the sum of the character widths).
+     * 
+     * @param text  the text ({@code null} not permitted).
+     * 
+     * @return The width (in 1/1000 of the font size).
+     */
+    public int getWidth(CharSequence text) {
+        int result = 0;
+        int len = text.length();
+        for (int i = 0; i < len; i++) {
+            result += getWidth(text.charAt(i));
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the widest character width.
+     * 
+     * @return The widest character width.
+     */
+    public int getMaxWidth() {
+        return this.maxWidth;
+    }
+    
+    /**
+     * Returns the ascender (the height of ascenders above the baseline).
+     * 
+     * @return The ascender.
+     */
+    public int getAscent() {
+        return this.ascent;
+    }
+    
+    /**
+     * Returns the descender (this is negative, since descenders are below
+     * the baseline).
+     * 
+     * @return The descender.
+     */
+    public int getDescent() {
+        return this.descent;
+    }
+    
+    /**
+     * Returns the height of capital letters.
+     * 
+     * @return The cap height.
+     */
+    public int getCapHeight() {
+        return this.capHeight;
+    }
+    
+    /**
+     * Returns the font bounding box (xMin, yMin, xMax, yMax).
+     * 
+     * @return The bounding box (a new array).
+     */
+    public int[] getBoundingBox() {
+        return this.bbox.clone();
+    }
+    
+    /**
+     * Returns the italic angle (in degrees counter-clockwise from the 
+     * vertical).
+     * 
+     * @return The italic angle.
+     */
+    public double getItalicAngle() {
+        return this.italicAngle;
+    }
+    
+    /**
+     * Returns the {@code /Widths} array for codes {@link #FIRST_CHAR} to 
+     * {@link #LAST_CHAR} in the specified encoding, as PDF text.  Codes
+     * that the encoding leaves unused have zero width.
+     * 
+     * @param encoding  the encoding ({@code null} not permitted).
+     * 
+     * @return The widths array.
+     */
+    public String getWidthsArray(TextEncoding encoding) {
+        Args.nullNotPermitted(encoding, "encoding");
+        StringBuilder b = new StringBuilder("[");
+        for (int code = FIRST_CHAR; code <= LAST_CHAR; code++) {
+            if (code > FIRST_CHAR) {
+                b.append(' ');
+            }
+            char c = encoding.decode(code);
+            b.append(c == 0 ? 0 : getWidth(c));
+        }
+        return b.append(']').toString();
+    }
+
+}
@@ -0,0 +1,206 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.font;
+
+import com.orsonpdf.util.Args;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+
+/**
+ * A {@code FontMetrics} implementation for a font that is rendered with 
+ * one of the standard PDF fonts, using the widths in a 
+ * {@link StandardFont}.  Measurements are simple table lookups and match
+ * the widths of the text in the PDF output exactly, independent of the 
+ * fonts that are installed for AWT.
+ * 
+ * @since 1.9
+ */
+public class StandardFontMetrics extends FontMetrics {
+    
+    /** For serialization. */
+    private static final long serialVersionUID = 1L;
+    
+    /** 
+     * The name of the standard font (the metrics are looked up again by 
+     * name when an instance is deserialized).
+     */
+    private final String standardFontName;
+    
+    /** The standard font metrics. */
+    private transient StandardFont standardFont;
+    
+    /** The font size. */
+    private final float size;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param font  the font ({@code null} not permitted).
+     * @param standardFont  the standard font that is used to render 
+     *     {@code font} ({@code null} not permitted).
+     */
+    public StandardFontMetrics(Font font, StandardFont standardFont) {
+        super(font);
+        Args.nullNotPermitted(font, "font");
+        Args.nullNotPermitted(standardFont, "standardFont");
+        this.standardFont = standardFont;
+        this.standardFontName = standardFont.getName();
+        this.size = font.getSize2D();
+    }
+    
+    /**
+     * Restores the standard font after deserialization.
+     * 
+     * @param stream  the input stream.
+     * 
+     * @throws IOException  if there is an I/O problem.
+     * @throws ClassNotFoundException  if there is a classpath problem.
+     */
+    private void readObject(ObjectInputStream stream) throws IOException,
+            ClassNotFoundException {
+        stream.defaultReadObject();
+        this.standardFont = StandardFont.getInstance(this.standardFontName);
+        if (this.standardFont == null) {
+            throw new InvalidObjectException("Unknown standard font: " 
+                    + this.standardFontName);
+        }
+    }
+    
+    /**
+     * Returns the standard font.
+     * 
+     * @return The standard font (never {@code null}). 
+     */
+    public StandardFont getStandardFont() {
+        return this.standardFont;
+    }
+    
+    private float scale(int units) {
+        return units * this.size / 1000f;
+    }
+
+    @Override
+    public int getAscent() {
+        return Math.round(scale(this.standardFont.getAscent()));
+    }
+
+    @Override
+    public int getDescent() {
+        return Math.round(scale(-this.standardFont.getDescent()));
+    }
+
+    /**
+     * Returns the leading, which is the part of the font bounding box 
+     * height not covered by the ascent and descent.
+     * 
+     * @return The leading.
+     */
+    @Override
+    public int getLeading() {
+        int[] bbox = this.standardFont.getBoundingBox();
+        int extra = (bbox[3] - bbox[1]) - (this.standardFont.getAscent() 
+                - this.standardFont.getDescent());
+        return Math.round(scale(Math.max(extra, 0)));
+    }
+
+    @Override
+    public int getMaxAscent() {
+        return Math.round(scale(this.standardFont.getBoundingBox()[3]));
+    }
+
+    @Override
+    public int getMaxDescent() {
+        return Math.round(scale(-this.standardFont.getBoundingBox()[1]));
+    }
+
+    @Override
+    public int getMaxAdvance() {
+        return Math.round(scale(this.standardFont.getMaxWidth()));
+    }
+
+    @Override
+    public int charWidth(int codePoint) {
+        return Math.round(scale(this.standardFont.getWidth(codePoint)));
+    }
+
+    @Override
+    public int charWidth(char ch) {
+        return Math.round(scale(this.standardFont.getWidth(ch)));
+    }
+
+    @Override
+    public int stringWidth(String str) {
+        return Math.round(scale(this.standardFont.getWidth(str)));
+    }
+
+    @Override
+    public int charsWidth(char[] data, int off, int len) {
+        int w = 0;
+        for (int i = off; i < off + len; i++) {
+            w += this.standardFont.getWidth(data[i]);
+        }
+        return Math.round(scale(w));
+    }
+
+    @Override
+    public int[] getWidths() {
+        int[] result = new int[256];
+        for (int c = 0; c < 256; c++) {
+            result[c] = charWidth(c);
+        }
+        return result;
+    }
+
+    @Override
+    public Rectangle2D getStringBounds(String str, Graphics context) {
+        return getStringBounds(str, 0, str.length(), context);
+    }
+
+    @Override
+    public Rectangle2D getStringBounds(String str, int beginIndex, int limit,
+            Graphics context) {
+        float ascent = scale(this.standardFont.getAscent());
+        float descent = scale(-this.standardFont.getDescent());
+        float width = scale(this.standardFont.getWidth(
+                str.subSequence(beginIndex, limit)));
+        return new Rectangle2D.Float(0f, -ascent, width, 
+                ascent + descent + getLeading());
+    }
+
+}
@@ -0,0 +1,211 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.font;
+
+import com.orsonpdf.util.Args;
+import java.util.Arrays;
+
+/**
+ * The standard single-byte text encodings for PDF simple fonts, with 
+ * table-driven conversion between Unicode characters and character codes.
+ * The tables follow the encodings as defined in the PDF specification 
+ * (Annex D), so for {@code MacRomanEncoding} the Mac OS Roman characters
+ * that have no glyph in the standard Latin character set (mathematical 
+ * symbols and the Apple logo) are not encoded.
+ * 
+ * @since 1.9
+ */
+public enum TextEncoding {
+    
+    /** The {@code WinAnsiEncoding} (Windows code page 1252). */
+    WIN_ANSI("/WinAnsiEncoding", new char[] { 
+        // 128 to 159
+        '\u20AC', 0, '\u201A', '\u0192', '\u201E', '\u2026', '\u2020', 
+        '\u2021', '\u02C6', '\u2030', '\u0160', '\u2039', '\u0152', 0, 
+        '\u017D', 0, 0, '\u2018', '\u2019', '\u201C', '\u201D', '\u2022', 
+        '\u2013', '\u2014', '\u02DC', '\u2122', '\u0161', '\u203A', 
+        '\u0153', 0, '\u017E', '\u0178', 
+        // 160 to 255 are ISO-8859-1
+        '\u00A0', '\u00A1', '\u00A2', '\u00A3', '\u00A4', '\u00A5', 
+        '\u00A6', '\u00A7', '\u00A8', '\u00A9', '\u00AA', '\u00AB', 
+        '\u00AC', '\u00AD', '\u00AE', '\u00AF', '\u00B0', '\u00B1', 
+        '\u00B2', '\u00B3', '\u00B4', '\u00B5', '\u00B6', '\u00B7', 
+        '\u00B8', '\u00B9', '\u00BA', '\u00BB', '\u00BC', '\u00BD', 
+        '\u00BE', '\u00BF', '\u00C0', '\u00C1', '\u00C2', '\u00C3', 
+        '\u00C4', '\u00C5', '\u00C6', '\u00C7', '\u00C8', '\u00C9', 
+        '\u00CA', '\u00CB', '\u00CC', '\u00CD', '\u00CE', '\u00CF', 
+        '\u00D0', '\u00D1', '\u00D2', '\u00D3', '\u00D4', '\u00D5', 
+        '\u00D6', '\u00D7', '\u00D8', '\u00D9', '\u00DA', '\u00DB', 
+        '\u00DC', '\u00DD', '\u00DE', '\u00DF', '\u00E0', '\u00E1', 
+        '\u00E2', '\u00E3', '\u00E4', '\u00E5', '\u00E6', '\u00E7', 
+        '\u00E8', '\u00E9', '\u00EA', '\u00EB', '\u00EC', '\u00ED', 
+        '\u00EE', '\u00EF', '\u00F0', '\u00F1', '\u00F2', '\u00F3', 
+        '\u00F4', '\u00F5', '\u00F6', '\u00F7', '\u00F8', '\u00F9', 
+        '\u00FA', '\u00FB', '\u00FC', '\u00FD', '\u00FE', '\u00FF' }),
+    
+    /** The {@code MacRomanEncoding}. */
+    MAC_ROMAN("/MacRomanEncoding", new char[] { 
+        // 128 to 255
+        '\u00C4', '\u00C5', '\u00C7', '\u00C9', '\u00D1', '\u00D6', 
+        '\u00DC', '\u00E1', '\u00E0', '\u00E2', '\u00E4', '\u00E3', 
+        '\u00E5', '\u00E7', '\u00E9', '\u00E8', '\u00EA', '\u00EB', 
+        '\u00ED', '\u00EC', '\u00EE', '\u00EF', '\u00F1', '\u00F3', 
+        '\u00F2', '\u00F4', '\u00F6', '\u00F5', '\u00FA', '\u00F9', 
+        '\u00FB', '\u00FC', '\u2020', '\u00B0', '\u00A2', '\u00A3', 
+        '\u00A7', '\u2022', '\u00B6', '\u00DF', '\u00AE', '\u00A9', 
+        '\u2122', '\u00B4', '\u00A8', 0, '\u00C6', '\u00D8', 0, '\u00B1', 
+        0, 0, '\u00A5', '\u00B5', 0, 0, 0, 0, 0, '\u00AA', '\u00BA', 0, 
+        '\u00E6', '\u00F8', '\u00BF', '\u00A1', '\u00AC', 0, '\u0192', 0, 
+        0, '\u00AB', '\u00BB', '\u2026', '\u00A0', '\u00C0', '\u00C3', 
+        '\u00D5', '\u0152', '\u0153', '\u2013', '\u2014', '\u201C', 
+        '\u201D', '\u2018', '\u2019', '\u00F7', 0, '\u00FF', '\u0178', 
+        '\u2044', '\u00A4', '\u2039', '\u203A', '\uFB01', '\uFB02', 
+        '\u2021', '\u00B7', '\u201A', '\u201E', '\u2030', '\u00C2', 
+        '\u00CA', '\u00C1', '\u00CB', '\u00C8', '\u00CD', '\u00CE', 
+        '\u00CF', '\u00CC', '\u00D3', '\u00D4', 0, '\u00D2', '\u00DA', 
+        '\u00DB', '\u00D9', '\u0131', '\u02C6', '\u02DC', '\u00AF', 
+        '\u02D8', '\u02D9', '\u02DA', '\u00B8', '\u02DD', '\u02DB', 
+        '\u02C7' });
+    
+    /** The PDF name of the encoding. */
+    private final String name;
+    
+    /** The character for each code (0 = not encoded). */
+    private final char[] toUnicode;
+    
+    /** The encoded characters above 127, in ascending order. */
+    private final char[] chars;
+    
+    /** The code for each character in {@code chars}. */
+    private final byte[] codes;
+    
+    private TextEncoding(String name, char[] upper) {
+        this.name = name;
+        this.toUnicode = new char[256];
+        for (int c = 32; c < 127; c++) {
+            this.toUnicode[c] = (char) c;
+        }
+        int first = 256 - upper.length;
+        System.arraycopy(upper, 0, this.toUnicode, first, upper.length);
+        // the reverse table, sorted by character for binary search
+        long[] pairs = new long[256];
+        int n = 0;
+        for (int code = 128; code < 256; code++) {
+            char c = this.toUnicode[code];
+            if (c != 0) {
+                pairs[n++] = ((long) c << 8) | code;
+            }
+        }
+        Arrays.sort(pairs, 0, n);
+        this.chars = new char[n];
+        this.codes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            this.chars[i] = (char) (pairs[i] >> 8);
+            this.codes[i] = (byte) pairs[i];
+        }
+    }
+    
+    /**
+     * Returns the encoding with the specified PDF name.
+     * 
+     * @param name  the name (for example "/WinAnsiEncoding", {@code null} 
+     *     permitted).
+     * 
+     * @return The encoding, or {@code null} if the name is not recognised.
+     */
+    public static TextEncoding forName(String name) {
+        for (TextEncoding encoding : values()) {
+            if (encoding.name.equals(name)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the PDF name of the encoding (for example 
+     * "/WinAnsiEncoding").
+     * 
+     * @return The name. 
+     */
+    public String getName() {
+        return this.name;
+    }
+    
+    /**
+     * Returns the character code for a Unicode character.
+     * 
+     * @param c  the character.
+     * 
+     * @return The code (32 to 255), or -1 if the character is not in the 
+     *     encoding.
+     */
+    public int encode(char c) {
+        if (c < 128) {
+            return c >= 32 && c < 127 ? c : -1;
+        }
+        int i = Arrays.binarySearch(this.chars, c);
+        return i >= 0 ? this.codes[i] & 0xFF : -1;
+    }
+    
+    /**
+     * Encodes text as character codes, replacing characters that are not 
+     * in the encoding with '?'.
+     * 
+     * @param text  the text ({@code null} not permitted).
+     * 
+     * @return The character codes.
+     */
+    public byte[] encode(CharSequence text) {
+        Args.nullNotPermitted(text, "text");
+        byte[] result = new byte[text.length()];
+        for (int i = 0; i < result.length; i++) {
+            int code = encode(text.charAt(i));
+            result[i] = (byte) (code >= 0 ? code : '?');
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the Unicode character for a character code.
+     * 
+     * @param code  the code (0 to 255).
+     * 
+     * @return The character, or 0 if the code is not used.
+     */
+    public char decode(int code) {
+        return code >= 0 && code < 256 ? this.toUnicode[code] : 0;
+    }
+
+}
@@ -0,0 +1,861 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.font;
+
+import com.orsonpdf.util.Args;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A TrueType font program (the contents of a {@code .ttf} file), with 
+ * support for looking up glyphs and metrics and for creating subsets that
+ * contain only the glyphs used in a document.  Subsets keep the original 
+ * glyph indices (the outlines for unused glyphs are removed), so that 
+ * glyph indices obtained from the full font are valid in the subset.
+ * <p>
+ * Only fonts with TrueType outlines ({@code glyf} table) are supported,
+ * not OpenType fonts with CFF outlines or font collections.
+ * 
+ * @since 1.9
+ */
+public final class TrueTypeFontProgram {
+    
+    /** The tables copied (when present) into a subset, in tag order. */
+    private static final String[] SUBSET_TABLES = { "OS/2", "cmap", "cvt ", 
+            "fpgm", "glyf", "head", "hhea", "hmtx", "loca", "maxp", "prep" };
+    
+    /** The font data. */
+    private final byte[] data;
+    
+    /** The table offsets and lengths, by tag. */
+    private final Map<String, int[]> tables;
+    
+    private final int unitsPerEm;
+    
+    private final int[] bbox;
+    
+    private final int macStyle;
+    
+    private final int ascent;
+    
+    private final int descent;
+    
+    private final int numberOfHMetrics;
+    
+    private final int numGlyphs;
+    
+    /** The glyph data offsets (relative to the glyf table), numGlyphs + 1. */
+    private final int[] loca;
+    
+    /** The glyph index for each character in the basic multilingual plane. */
+    private final char[] bmpGlyphs;
+    
+    /** 
+     * The glyph index for each supplementary character (from a format 12
+     * character map).
+     */
+    private final Map<Integer, Integer> supplementaryGlyphs;
+    
+    /** A flag for symbol fonts (characters mapped from U+F000). */
+    private final boolean symbolic;
+    
+    private final String postScriptName;
+    
+    /** The family name (from the {@code name} table). */
+    private final String familyName;
+    
+    /** The subfamily (style) name (from the {@code name} table). */
+    private final String subfamilyName;
+    
+    private final double italicAngle;
+    
+    private final boolean fixedPitch;
+    
+    private final int capHeight;
+    
+    /**
+     * Reads a font program from a file.
+     * 
+     * @param file  the file ({@code null} not permitted).
+     * 
+     * @return The font program.
+     * 
+     * @throws IOException if there is a problem reading the file.
+     */
+    public static TrueTypeFontProgram load(File file) throws IOException {
+        Args.nullNotPermitted(file, "file");
+        InputStream in = new FileInputStream(file);
+        try {
+            return load(in);
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Reads a font program from an input stream (the stream is not closed).
+     * 
+     * @param in  the input stream ({@code null} not permitted).
+     * 
+     * @return The font program.
+     * 
+     * @throws IOException if there is a problem reading the stream.
+     */
+    public static TrueTypeFontProgram load(InputStream in) throws IOException {
+        Args.nullNotPermitted(in, "in");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16384];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            baos.write(buffer, 0, n);
+        }
+        return new TrueTypeFontProgram(baos.toByteArray());
+    }
+
+    /**
+     * Creates a new font program from the contents of a TrueType file.
+     * 
+     * @param data  the font data ({@code null} not permitted).
+     * 
+     * @throws IllegalArgumentException if the data is not a supported 
+     *     TrueType font.
+     */
+    public TrueTypeFontProgram(byte[] data) {
+        Args.nullNotPermitted(data, "data");
+        this.data = data;
+        try {
+            int version = i32(0);
+            if (version == 0x4F54544F) { // 'OTTO'
+                throw new IllegalArgumentException(
+                        "OpenType fonts with CFF outlines are not supported.");
+            }
+            if (version == 0x74746366) { // 'ttcf'
+                throw new IllegalArgumentException(
+                        "Font collections are not supported.");
+            }
+            if (version != 0x00010000 && version != 0x74727565) { // 'true'
+                throw new IllegalArgumentException("Not a TrueType font.");
+            }
+            this.tables = readTableDirectory();
+            int head = table("head");
+            this.unitsPerEm = u16(head + 18);
+            this.bbox = new int[] { s16(head + 36), s16(head + 38), 
+                    s16(head + 40), s16(head + 42) };
+            this.macStyle = u16(head + 44);
+            int indexToLocFormat = s16(head + 50);
+            int hhea = table("hhea");
+            this.ascent = s16(hhea + 4);
+            this.descent = s16(hhea + 6);
+            this.numberOfHMetrics = u16(hhea + 34);
+            this.numGlyphs = u16(table("maxp") + 4);
+            this.loca = readLoca(indexToLocFormat);
+            this.bmpGlyphs = new char[65536];
+            this.supplementaryGlyphs = new HashMap<Integer, Integer>();
+            this.symbolic = readCmap();
+            this.postScriptName = sanitize(readName(6));
+            String family = readName(1);
+            this.familyName = family != null ? family : this.postScriptName;
+            String subfamily = readName(2);
+            this.subfamilyName = subfamily != null ? subfamily : "Regular";
+            int[] post = this.tables.get("post");
+            if (post != null) {
+                this.italicAngle = i32(post[0] + 4) / 65536.0;
+                this.fixedPitch = i32(post[0] + 12) != 0;
+            } else {
+                this.italicAngle = 0.0;
+                this.fixedPitch = false;
+            }
+            int[] os2 = this.tables.get("OS/2");
+            if (os2 != null && u16(os2[0]) >= 2 && os2[1] >= 90) {
+                this.capHeight = s16(os2[0] + 88);
+            } else {
+                this.capHeight = (int) (this.ascent * 0.7);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid TrueType font data.", 
+                    e);
+        }
+    }
+    
+    private Map<String, int[]> readTableDirectory() {
+        int count = u16(4);
+        Map<String, int[]> result = new TreeMap<String, int[]>();
+        for (int i = 0; i < count; i++) {
+            int record = 12 + 16 * i;
+            String tag = new String(new char[] { (char) this.data[record], 
+                    (char) this.data[record + 1], (char) this.data[record + 2],
+                    (char) this.data[record + 3] });
+            result.put(tag, new int[] { i32(record + 8), i32(record + 12) });
+        }
+        if (!result.containsKey("glyf")) {
+            throw new IllegalArgumentException("No 'glyf' table.");
+        }
+        return result;
+    }
+    
+    private int[] readLoca(int indexToLocFormat) {
+        int offset = table("loca");
+        int[] result = new int[this.numGlyphs + 1];
+        for (int i = 0; i <= this.numGlyphs; i++) {
+            result[i] = indexToLocFormat == 0 ? 2 * u16(offset + 2 * i) 
+                    : i32(offset + 4 * i);
+        }
+        return result;
+    }
+    
+    /**
+     * Reads the Unicode (or, failing that, the symbol) character map into
+     * {@code bmpGlyphs}, and the full Unicode character map (format 12), if
+     * there is one, into {@code bmpGlyphs} and {@code supplementaryGlyphs}.
+     * 
+     * @return {@code true} if the font uses a symbol character map.
+     */
+    private boolean readCmap() {
+        int cmap = table("cmap");
+        int count = u16(cmap + 2);
+        int unicode = -1;
+        int symbol = -1;
+        int full = -1;
+        for (int i = 0; i < count; i++) {
+            int record = cmap + 4 + 8 * i;
+            int platform = u16(record);
+            int encoding = u16(record + 2);
+            int subtable = cmap + i32(record + 4);
+            int format = u16(subtable);
+            if (format == 12) {
+                if (platform == 3 && encoding == 10 
+                        || platform == 0 && full < 0) {
+                    full = subtable;
+                }
+                continue;
+            }
+            if (format != 4) {
+                continue;
+            }
+            if (platform == 3 && encoding == 1 
+                    || platform == 0 && unicode < 0) {
+                unicode = subtable;
+            } else if (platform == 3 && encoding == 0) {
+                symbol = subtable;
+            }
+        }
+        if (unicode >= 0 || full >= 0) {
+            if (unicode >= 0) {
+                readCmapFormat4(unicode);
+            }
+            if (full >= 0) {
+                readCmapFormat12(full);
+            }
+            return false;
+        }
+        if (symbol >= 0) {
+            readCmapFormat4(symbol);
+            return true;
+        }
+        throw new IllegalArgumentException("No supported 'cmap' subtable.");
+    }
+    
+    /**
+     * Reads a format 12 (segmented coverage) character map.  Characters in
+     * the basic multilingual plane that are already mapped (by a format 4
+     * subtable) are left unchanged.
+     * 
+     * @param offset  the offset of the subtable.
+     */
+    private void readCmapFormat12(int offset) {
+        int groups = i32(offset + 12);
+        for (int i = 0; i < groups; i++) {
+            int group = offset + 16 + 12 * i;
+            int start = i32(group);
+            int end = Math.min(i32(group + 4), 0x10FFFF);
+            int startGlyph = i32(group + 8);
+            for (int c = start; c >= 0 && c <= end; c++) {
+                int glyph = startGlyph + (c - start);
+                if (glyph <= 0 || glyph >= this.numGlyphs) {
+                    continue;
+                }
+                if (c <= 0xFFFF) {
+                    if (this.bmpGlyphs[c] == 0) {
+                        this.bmpGlyphs[c] = (char) glyph;
+                    }
+                } else {
+                    this.supplementaryGlyphs.put(Integer.valueOf(c), 
+                            Integer.valueOf(glyph));
+                }
+            }
+        }
+    }
+    
+    private void readCmapFormat4(int offset) {
+        int segCount = u16(offset + 6) / 2;
+        int endCodes = offset + 14;
+        int startCodes = endCodes + 2 * segCount + 2;
+        int idDeltas = startCodes + 2 * segCount;
+        int idRangeOffsets = idDeltas + 2 * segCount;
+        for (int i = 0; i < segCount; i++) {
+            int start = u16(startCodes + 2 * i);
+            int end = u16(endCodes + 2 * i);
+            int delta = u16(idDeltas + 2 * i);
+            int rangeOffset = u16(idRangeOffsets + 2 * i);
+            for (int c = start; c <= end && c < 0xFFFF; c++) {
+                int glyph;
+                if (rangeOffset == 0) {
+                    glyph = (c + delta) & 0xFFFF;
+                } else {
+                    glyph = u16(idRangeOffsets + 2 * i + rangeOffset 
+                            + 2 * (c - start));
+                    if (glyph != 0) {
+                        glyph = (glyph + delta) & 0xFFFF;
+                    }
+                }
+                if (glyph < this.numGlyphs) {
+                    this.bmpGlyphs[c] = (char) glyph;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns a string from the {@code name} table.
+     * 
+     * @param nameId  the name identifier.
+     * 
+     * @return The string (or {@code null} if there is no such name).
+     */
+    private String readName(int nameId) {
+        int[] name = this.tables.get("name");
+        if (name != null) {
+            int offset = name[0];
+            int count = u16(offset + 2);
+            int strings = offset + u16(offset + 4);
+            for (int i = 0; i < count; i++) {
+                int record = offset + 6 + 12 * i;
+                int platform = u16(record);
+                if (u16(record + 6) != nameId) {
+                    continue;
+                }
+                int length = u16(record + 8);
+                int start = strings + u16(record + 10);
+                StringBuilder b = new StringBuilder();
+                if (platform == 1) {
+                    for (int j = 0; j < length; j++) {
+                        b.append((char) (this.data[start + j] & 0xFF));
+                    }
+                } else {
+                    for (int j = 0; j + 1 < length; j += 2) {
+                        b.append((char) u16(start + j));
+                    }
+                }
+                return b.toString();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Removes characters that are not permitted in a PDF name.
+     */
+    private static String sanitize(String s) {
+        if (s == null) {
+            return "Unnamed";
+        }
+        StringBuilder b = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c > 32 && c < 127 && "()<>[]{}/%#".indexOf(c) < 0) {
+                b.append(c);
+            }
+        }
+        return b.length() > 0 ? b.toString() : "Unnamed";
+    }
+    
+    /**
+     * Returns the PostScript name of the font (from the {@code name} 
+     * table).
+     * 
+     * @return The PostScript name (never {@code null}).
+     */
+    public String getPostScriptName() {
+        return this.postScriptName;
+    }
+    
+    /**
+     * Returns the number of font units per em.
+     * 
+     * @return The number of units per em.
+     */
+    public int getUnitsPerEm() {
+        return this.unitsPerEm;
+    }
+    
+    /**
+     * Returns the number of glyphs in the font.
+     * 
+     * @return The number of glyphs.
+     */
+    public int getNumGlyphs() {
+        return this.numGlyphs;
+    }
+    
+    /**
+     * Returns the font bounding box (xMin, yMin, xMax, yMax) in font units.
+     * 
+     * @return The bounding box (a new array).
+     */
+    public int[] getBoundingBox() {
+        return this.bbox.clone();
+    }
+    
+    /**
+     * Returns the typographic ascent in font units.
+     * 
+     * @return The ascent.
+     */
+    public int getAscent() {
+        return this.ascent;
+    }
+    
+    /**
+     * Returns the typographic descent in font units (normally negative).
+     * 
+     * @return The descent.
+     */
+    public int getDescent() {
+        return this.descent;
+    }
+    
+    /**
+     * Returns the height of capital letters in font units.
+     * 
+     * @return The cap height.
+     */
+    public int getCapHeight() {
+        return this.capHeight;
+    }
+    
+    /**
+     * Returns the italic angle in degrees (counter-clockwise from the 
+     * vertical, so normally negative for italic fonts).
+     * 
+     * @return The italic angle.
+     */
+    public double getItalicAngle() {
+        return this.italicAngle;
+    }
+    
+    /**
+     * Returns {@code true} if all glyphs have the same width.
+     * 
+     * @return A boolean.
+     */
+    public boolean isFixedPitch() {
+        return this.fixedPitch;
+    }
+    
+    /**
+     * Returns {@code true} if the font is flagged as bold.
+     * 
+     * @return A boolean.
+     */
+    public boolean isBold() {
+        return (this.macStyle & 1) != 0;
+    }
+    
+    /**
+     * Returns the glyph index for a character, or 0 (the 'missing' glyph)
+     * if the font has no glyph for the character.
+     * 
+     * @param codePoint  the Unicode code point.
+     * 
+     * @return The glyph index.
+     */
+    public int getGlyphId(int codePoint) {
+        if (codePoint > 0xFFFF) {
+            Integer glyph = this.supplementaryGlyphs.get(
+                    Integer.valueOf(codePoint));
+            return glyph != null ? glyph.intValue() : 0;
+        }
+        if (codePoint < 0) {
+            return 0;
+        }
+        int glyph = this.bmpGlyphs[codePoint];
+        if (glyph == 0 && this.symbolic && codePoint < 0x100) {
+            glyph = this.bmpGlyphs[0xF000 | codePoint];
+        }
+        return glyph;
+    }
+    
+    /**
+     * Returns the advance width for a glyph, in font units.
+     * 
+     * @param glyphId  the glyph index.
+     * 
+     * @return The advance width.
+     */
+    public int getAdvanceWidth(int glyphId) {
+        if (glyphId < 0 || glyphId >= this.numGlyphs) {
+            glyphId = 0;
+        }
+        int hmtx = table("hmtx");
+        int index = Math.min(glyphId, this.numberOfHMetrics - 1);
+        return u16(hmtx + 4 * index);
+    }
+    
+    /**
+     * Returns the advance width for a glyph, scaled to units of 1/1000 of 
+     * the font size (as used for the {@code /Widths} array in PDF fonts).
+     * 
+     * @param glyphId  the glyph index.
+     * 
+     * @return The scaled advance width.
+     */
+    public int getScaledAdvanceWidth(int glyphId) {
+        return (int) Math.round(getAdvanceWidth(glyphId) * 1000.0 
+                / this.unitsPerEm);
+    }
+    
+    /**
+     * Creates a subset of this font containing the specified glyphs (plus 
+     * glyph 0 and any glyphs that they reference).  Glyph indices are the 
+     * same as in this font.
+     * 
+     * @param glyphs  the glyph indices ({@code null} not permitted).
+     * @param cmap  the character map for the subset (character code to 
+     *     glyph index, codes up to U+FFFF), or {@code null} to omit the 
+     *     {@code cmap} table.
+     * 
+     * @return The subset font data. 
+     */
+    public byte[] subset(BitSet glyphs, Map<Integer, Integer> cmap) {
+        Args.nullNotPermitted(glyphs, "glyphs");
+        BitSet included = new BitSet();
+        included.set(0);
+        for (int g = glyphs.nextSetBit(0); g >= 0; 
+                g = glyphs.nextSetBit(g + 1)) {
+            if (g < this.numGlyphs) {
+                included.set(g);
+            }
+        }
+        addComponentGlyphs(included);
+        int count = included.length(); // the highest glyph index + 1
+        
+        // the glyph outlines and the (long format) locations
+        int glyf = table("glyf");
+        ByteArrayOutputStream glyfOut = new ByteArrayOutputStream();
+        byte[] locaOut = new byte[4 * (count + 1)];
+        for (int g = 0; g < count; g++) {
+            putI32(locaOut, 4 * g, glyfOut.size());
+            if (included.get(g)) {
+                int length = this.loca[g + 1] - this.loca[g];
+                glyfOut.write(this.data, glyf + this.loca[g], length);
+                while (glyfOut.size() % 4 != 0) {
+                    glyfOut.write(0);
+                }
+            }
+        }
+        putI32(locaOut, 4 * count, glyfOut.size());
+        
+        SortedMap<String, byte[]> out = new TreeMap<String, byte[]>();
+        for (String tag : SUBSET_TABLES) {
+            int[] t = this.tables.get(tag);
+            if (t != null) {
+                out.put(tag, Arrays.copyOfRange(this.data, t[0], 
+                        t[0] + t[1]));
+            }
+        }
+        out.put("glyf", glyfOut.toByteArray());
+        out.put("loca", locaOut);
+        if (cmap != null) {
+            out.put("cmap", createCmap(cmap));
+        } else {
+            out.remove("cmap");
+        }
+        out.put("name", createName());
+        int[] post = this.tables.get("post");
+        if (post != null && post[1] >= 32) {
+            // version 3 (no glyph names)
+            byte[] table = Arrays.copyOfRange(this.data, post[0], post[0] + 32);
+            putI32(table, 0, 0x00030000);
+            out.put("post", table);
+        }
+        byte[] head = out.get("head");
+        putI32(head, 8, 0); // checkSumAdjustment, set below
+        putI16(head, 50, 1); // long loca format
+        byte[] maxp = out.get("maxp");
+        putI16(maxp, 4, count);
+        byte[] hhea = out.get("hhea");
+        int hMetrics = Math.min(this.numberOfHMetrics, count);
+        putI16(hhea, 34, hMetrics);
+        // the metrics for the first 'count' glyphs are a prefix of the table
+        int hmtxLength = 4 * hMetrics + 2 * (count - hMetrics);
+        out.put("hmtx", Arrays.copyOf(out.get("hmtx"), hmtxLength));
+        return assemble(out);
+    }
+    
+    /**
+     * Adds the glyphs referenced by composite glyphs in the set.
+     * 
+     * @param included  the glyph set (updated by this method).
+     */
+    private void addComponentGlyphs(BitSet included) {
+        int glyf = table("glyf");
+        List<Integer> pending = new ArrayList<Integer>();
+        for (int g = included.nextSetBit(0); g >= 0; 
+                g = included.nextSetBit(g + 1)) {
+            pending.add(Integer.valueOf(g));
+        }
+        while (!pending.isEmpty()) {
+            int g = pending.remove(pending.size() - 1).intValue();
+            int offset = glyf + this.loca[g];
+            if (this.loca[g + 1] == this.loca[g] || s16(offset) >= 0) {
+                continue; // empty or simple glyph
+            }
+            int p = offset + 10;
+            int flags;
+            do {
+                flags = u16(p);
+                int component = u16(p + 2);
+                p += 4;
+                p += (flags & 0x0001) != 0 ? 4 : 2; // ARG_1_AND_2_ARE_WORDS
+                if ((flags & 0x0008) != 0) { // WE_HAVE_A_SCALE
+                    p += 2;
+                } else if ((flags & 0x0040) != 0) { // X_AND_Y_SCALE
+                    p += 4;
+                } else if ((flags & 0x0080) != 0) { // TWO_BY_TWO
+                    p += 8;
+                }
+                if (component < this.numGlyphs && !included.get(component)) {
+                    included.set(component);
+                    pending.add(Integer.valueOf(component));
+                }
+            } while ((flags & 0x0020) != 0); // MORE_COMPONENTS
+        }
+    }
+    
+    /**
+     * Creates a {@code name} table containing just the family, subfamily, 
+     * full and PostScript names (some font loaders require these).
+     * 
+     * @return The table data.
+     */
+    private byte[] createName() {
+        String[] names = { this.familyName, this.subfamilyName, 
+                this.familyName + " " + this.subfamilyName, 
+                this.postScriptName };
+        int[] ids = { 1, 2, 4, 6 };
+        int stringsLength = 0;
+        for (String name : names) {
+            stringsLength += 2 * name.length();
+        }
+        int stringsOffset = 6 + 12 * names.length;
+        byte[] result = new byte[stringsOffset + stringsLength];
+        putI16(result, 2, names.length);
+        putI16(result, 4, stringsOffset);
+        int p = stringsOffset;
+        for (int i = 0; i < names.length; i++) {
+            int record = 6 + 12 * i;
+            putI16(result, record, 3); // Windows
+            putI16(result, record + 2, 1); // Unicode BMP
+            putI16(result, record + 4, 0x409); // US English
+            putI16(result, record + 6, ids[i]);
+            putI16(result, record + 8, 2 * names[i].length());
+            putI16(result, record + 10, p - stringsOffset);
+            for (int j = 0; j < names[i].length(); j++) {
+                putI16(result, p, names[i].charAt(j));
+                p += 2;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Creates a {@code cmap} table with a single (3, 1) format 4 subtable.
+     * 
+     * @param cmap  the mapping from character codes to glyph indices.
+     * 
+     * @return The table data.
+     */
+    private static byte[] createCmap(Map<Integer, Integer> cmap) {
+        SortedMap<Integer, Integer> sorted = new TreeMap<Integer, Integer>();
+        for (Map.Entry<Integer, Integer> e : cmap.entrySet()) {
+            if (e.getKey().intValue() < 0xFFFF) {
+                sorted.put(e.getKey(), e.getValue());
+            }
+        }
+        // runs of consecutive codes mapped to consecutive glyphs share a
+        // segment (with a constant delta)
+        List<int[]> segments = new ArrayList<int[]>();
+        int[] current = null;
+        for (Map.Entry<Integer, Integer> e : sorted.entrySet()) {
+            int code = e.getKey().intValue();
+            int delta = (e.getValue().intValue() - code) & 0xFFFF;
+            if (current != null && code == current[1] + 1 
+                    && delta == current[2]) {
+                current[1] = code;
+            } else {
+                current = new int[] { code, code, delta };
+                segments.add(current);
+            }
+        }
+        segments.add(new int[] { 0xFFFF, 0xFFFF, 1 });
+        int segCount = segments.size();
+        int subtableLength = 16 + 8 * segCount;
+        byte[] result = new byte[12 + subtableLength];
+        putI16(result, 2, 1); // one subtable
+        putI16(result, 4, 3); // Windows
+        putI16(result, 6, 1); // Unicode BMP
+        putI32(result, 8, 12);
+        int p = 12;
+        putI16(result, p, 4);
+        putI16(result, p + 2, subtableLength);
+        putI16(result, p + 6, 2 * segCount);
+        int entrySelector = 31 - Integer.numberOfLeadingZeros(segCount);
+        int searchRange = 2 << entrySelector;
+        putI16(result, p + 8, searchRange);
+        putI16(result, p + 10, entrySelector);
+        putI16(result, p + 12, 2 * segCount - searchRange);
+        int endCodes = p + 14;
+        int startCodes = endCodes + 2 * segCount + 2;
+        int idDeltas = startCodes + 2 * segCount;
+        for (int i = 0; i < segCount; i++) {
+            int[] s = segments.get(i);
+            putI16(result, endCodes + 2 * i, s[1]);
+            putI16(result, startCodes + 2 * i, s[0]);
+            putI16(result, idDeltas + 2 * i, s[2]);
+            // idRangeOffset is zero
+        }
+        return result;
+    }
+    
+    /**
+     * Assembles a font file from its tables.
+     * 
+     * @param tables  the tables (sorted by tag).
+     * 
+     * @return The font data.
+     */
+    private static byte[] assemble(SortedMap<String, byte[]> tables) {
+        int count = tables.size();
+        int length = 12 + 16 * count;
+        for (byte[] t : tables.values()) {
+            length += (t.length + 3) & ~3;
+        }
+        byte[] result = new byte[length];
+        putI32(result, 0, 0x00010000);
+        putI16(result, 4, count);
+        int entrySelector = 31 - Integer.numberOfLeadingZeros(count);
+        int searchRange = 16 << entrySelector;
+        putI16(result, 6, searchRange);
+        putI16(result, 8, entrySelector);
+        putI16(result, 10, 16 * count - searchRange);
+        int record = 12;
+        int offset = 12 + 16 * count;
+        int headOffset = -1;
+        for (Map.Entry<String, byte[]> e : tables.entrySet()) {
+            String tag = e.getKey();
+            byte[] t = e.getValue();
+            for (int i = 0; i < 4; i++) {
+                result[record + i] = (byte) tag.charAt(i);
+            }
+            putI32(result, record + 4, (int) checksum(t, 0, t.length));
+            putI32(result, record + 8, offset);
+            putI32(result, record + 12, t.length);
+            System.arraycopy(t, 0, result, offset, t.length);
+            if (tag.equals("head")) {
+                headOffset = offset;
+            }
+            record += 16;
+            offset += (t.length + 3) & ~3;
+        }
+        long adjustment = 0xB1B0AFBAL - checksum(result, 0, result.length);
+        putI32(result, headOffset + 8, (int) adjustment);
+        return result;
+    }
+    
+    private static long checksum(byte[] b, int offset, int length) {
+        long sum = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i += 4) {
+            long v = 0;
+            for (int j = 0; j < 4; j++) {
+                v = (v << 8) | (i + j < end ? b[i + j] & 0xFF : 0);
+            }
+            sum += v;
+        }
+        return sum & 0xFFFFFFFFL;
+    }
+    
+    private int table(String tag) {
+        int[] t = this.tables.get(tag);
+        if (t == null) {
+            throw new IllegalArgumentException("No '" + tag + "' table.");
+        }
+        return t[0];
+    }
+    
+    private int u16(int offset) {
+        return ((this.data[offset] & 0xFF) << 8) 
+                | (this.data[offset + 1] & 0xFF);
+    }
+    
+    private int s16(int offset) {
+        return (short) u16(offset);
+    }
+    
+    private int i32(int offset) {
+        return (u16(offset) << 16) | u16(offset + 2);
+    }
+    
+    private static void putI16(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >> 8);
+        b[offset + 1] = (byte) value;
+    }
+    
+    private static void putI32(byte[] b, int offset, int value) {
+        putI16(b, offset, value >>> 16);
+        putI16(b, offset + 2, value);
+    }
+
+}
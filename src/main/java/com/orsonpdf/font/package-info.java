@@ -0,0 +1,4 @@
+/**
+ * Support for embedding font programs in <b>OrsonPDF</b> documents.
+ */
+package com.orsonpdf.font;
@@ -0,0 +1,124 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.shading;
+
+import com.orsonpdf.Dictionary;
+import com.orsonpdf.util.Args;
+
+/**
+ * A free-form Gouraud-shaded triangle mesh (shading type 4).  Each vertex
+ * has a flag, coordinates and a color.  A flag of {@code 0} starts a new
+ * triangle (so the next two vertices must also have a flag of {@code 0}),
+ * a flag of {@code 1} forms a triangle from the last two vertices of the 
+ * previous triangle plus the new vertex, and a flag of {@code 2} forms a 
+ * triangle from the first and last vertices of the previous triangle plus 
+ * the new vertex.
+ * 
+ * @since 1.9
+ */
+public final class FreeFormShading extends MeshShading {
+
+    /** The vertex coordinates (x and y interleaved). */
+    private double[] coords;
+    
+    /** The vertex colors (packed RGB). */
+    private int[] colors;
+    
+    /** The vertex flags. */
+    private byte[] flags;
+    
+    /**
+     * Creates a new free-form shading.  The arrays are not copied, so the
+     * caller should not modify them after calling this constructor.
+     * 
+     * @param number  the PDF object number.
+     * @param coords  the vertex coordinates, x and y interleaved 
+     *     ({@code null} not permitted).
+     * @param colors  the vertex colors as packed RGB values ({@code null} not
+     *     permitted).
+     * @param flags  the vertex flags ({@code null} permitted, in which case
+     *     every vertex has a flag of zero and the vertex count must be a 
+     *     multiple of 3).
+     */
+    public FreeFormShading(int number, double[] coords, int[] colors, 
+            byte[] flags) {
+        super(number, ShadingType.FREE_FORM, coords);
+        Args.nullNotPermitted(colors, "colors");
+        if (coords.length != colors.length * 2) {
+            throw new IllegalArgumentException(
+                    "Require two coordinates per color.");
+        }
+        if (flags == null) {
+            if (colors.length % 3 != 0) {
+                throw new IllegalArgumentException(
+                        "Require three vertices per triangle.");
+            }
+        } else if (flags.length != colors.length) {
+            throw new IllegalArgumentException("Require one flag per vertex.");
+        }
+        this.coords = coords;
+        this.colors = colors;
+        this.flags = flags;
+    }
+
+    /**
+     * Returns the number of vertices in the mesh.
+     * 
+     * @return The vertex count.
+     */
+    public int getVertexCount() {
+        return this.colors.length;
+    }
+    
+    @Override
+    protected byte[] getMeshData() {
+        int count = this.colors.length;
+        byte[] result = new byte[count * 12];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            result[offset++] = this.flags != null ? this.flags[i] : 0;
+            offset = writeVertex(result, offset, this.coords[i * 2], 
+                    this.coords[i * 2 + 1], this.colors[i]);
+        }
+        return result;
+    }
+
+    @Override
+    protected Dictionary createDictionary(int streamLength) {
+        Dictionary dictionary = super.createDictionary(streamLength);
+        dictionary.put("/BitsPerFlag", "8");
+        return dictionary;
+    }
+
+}
@@ -0,0 +1,119 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.shading;
+
+import com.orsonpdf.Dictionary;
+import com.orsonpdf.util.Args;
+
+/**
+ * A lattice-form Gouraud-shaded triangle mesh (shading type 5).  The 
+ * vertices are arranged in rows, with a color specified for each vertex and
+ * the colors interpolated across the cells of the lattice.
+ * 
+ * @since 1.9
+ */
+public final class LatticeFormShading extends MeshShading {
+
+    /** The vertex coordinates (x and y interleaved). */
+    private double[] coords;
+    
+    /** The vertex colors (packed RGB). */
+    private int[] colors;
+    
+    /** The number of vertices in each row. */
+    private int verticesPerRow;
+    
+    /**
+     * Creates a new lattice-form shading.  The arrays are not copied, so the
+     * caller should not modify them after calling this constructor.
+     * 
+     * @param number  the PDF object number.
+     * @param coords  the vertex coordinates, x and y interleaved and ordered
+     *     row by row ({@code null} not permitted).
+     * @param colors  the vertex colors as packed RGB values ({@code null} not 
+     *     permitted).
+     * @param verticesPerRow  the number of vertices in each row (at least 2).
+     */
+    public LatticeFormShading(int number, double[] coords, int[] colors, 
+            int verticesPerRow) {
+        super(number, ShadingType.LATTICE_FORM, coords);
+        Args.nullNotPermitted(colors, "colors");
+        if (verticesPerRow < 2) {
+            throw new IllegalArgumentException(
+                    "Require 'verticesPerRow' >= 2.");
+        }
+        if (coords.length != colors.length * 2) {
+            throw new IllegalArgumentException(
+                    "Require two coordinates per color.");
+        }
+        if (colors.length % verticesPerRow != 0 
+                || colors.length / verticesPerRow < 2) {
+            throw new IllegalArgumentException(
+                    "Require at least two complete rows of vertices.");
+        }
+        this.coords = coords;
+        this.colors = colors;
+        this.verticesPerRow = verticesPerRow;
+    }
+    
+    /**
+     * Returns the number of vertices in each row of the lattice.
+     * 
+     * @return The number of vertices in each row.
+     */
+    public int getVerticesPerRow() {
+        return this.verticesPerRow;
+    }
+
+    @Override
+    protected byte[] getMeshData() {
+        int count = this.colors.length;
+        byte[] result = new byte[count * 11];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            offset = writeVertex(result, offset, this.coords[i * 2], 
+                    this.coords[i * 2 + 1], this.colors[i]);
+        }
+        return result;
+    }
+
+    @Override
+    protected Dictionary createDictionary(int streamLength) {
+        Dictionary dictionary = super.createDictionary(streamLength);
+        dictionary.put("/VerticesPerRow", String.valueOf(
+                this.verticesPerRow));
+        return dictionary;
+    }
+
+}
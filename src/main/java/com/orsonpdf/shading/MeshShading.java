@@ -0,0 +1,195 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.shading;
+
+import com.orsonpdf.Dictionary;
+import com.orsonpdf.PDFUtils;
+import com.orsonpdf.Stream;
+import com.orsonpdf.util.Args;
+
+/**
+ * A base class for the mesh shadings (types 4 and 5).  Unlike the axial and
+ * radial shadings, a mesh shading is written to the PDF output as a stream 
+ * object, with the vertex data packed into the stream using 32 bits per 
+ * coordinate and 8 bits per color component (in the {@code DeviceRGB} color
+ * space).
+ * 
+ * @since 1.9
+ */
+public abstract class MeshShading extends Stream {
+
+    /** The maximum value for a 32-bit coordinate. */
+    private static final double MAX_COORD = 4294967295.0;
+    
+    /** The shading type. */
+    private ShadingType shadingType;
+    
+    /** The coordinate ranges {@code (xmin, xmax, ymin, ymax)}. */
+    private double[] range;
+    
+    /** The packed vertex data (created when it is first needed). */
+    private byte[] meshData;
+    
+    /**
+     * Creates a new mesh shading.
+     * 
+     * @param number  the PDF object number.
+     * @param shadingType  the shading type ({@code null} not permitted).
+     * @param coords  the vertex coordinates ({@code null} not permitted), 
+     *     used to derive the decode array for the shading.
+     */
+    protected MeshShading(int number, ShadingType shadingType, 
+            double[] coords) {
+        super(number);
+        Args.nullNotPermitted(shadingType, "shadingType");
+        Args.nullNotPermitted(coords, "coords");
+        this.shadingType = shadingType;
+        this.range = findRange(coords);
+    }
+    
+    /**
+     * Returns the shading type.
+     * 
+     * @return The shading type (never {@code null}). 
+     */
+    public ShadingType getShadingType() {
+        return this.shadingType;
+    }
+
+    /**
+     * Creates the packed vertex data for the shading stream.  This is 
+     * called once, when the data is first needed.
+     * 
+     * @return The vertex data (never {@code null}).
+     */
+    protected abstract byte[] getMeshData();
+    
+    /**
+     * Writes a vertex (coordinates plus color) into the {@code dest} array 
+     * at the specified offset.
+     * 
+     * @param dest  the destination array.
+     * @param offset  the offset into the destination.
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     * @param rgb  the color (packed RGB, any alpha value is ignored).
+     * 
+     * @return The offset following the vertex data.
+     */
+    protected int writeVertex(byte[] dest, int offset, double x, double y, 
+            int rgb) {
+        int i = writeCoordinate(dest, offset, x, this.range[0], 
+                this.range[1]);
+        i = writeCoordinate(dest, i, y, this.range[2], this.range[3]);
+        dest[i++] = (byte) (rgb >> 16);
+        dest[i++] = (byte) (rgb >> 8);
+        dest[i++] = (byte) rgb;
+        return i;
+    }
+    
+    private static int writeCoordinate(byte[] dest, int offset, double v, 
+            double min, double max) {
+        long c = Math.round((v - min) / (max - min) * MAX_COORD);
+        dest[offset] = (byte) (c >> 24);
+        dest[offset + 1] = (byte) (c >> 16);
+        dest[offset + 2] = (byte) (c >> 8);
+        dest[offset + 3] = (byte) c;
+        return offset + 4;
+    }
+    
+    /**
+     * Returns the range {@code (xmin, xmax, ymin, ymax)} for the coordinates,
+     * making sure that the range is never empty.
+     * 
+     * @param coords  the coordinates (x and y interleaved).
+     * 
+     * @return The range.
+     */
+    private static double[] findRange(double[] coords) {
+        double xmin = Double.POSITIVE_INFINITY;
+        double xmax = Double.NEGATIVE_INFINITY;
+        double ymin = Double.POSITIVE_INFINITY;
+        double ymax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < coords.length - 1; i += 2) {
+            xmin = Math.min(xmin, coords[i]);
+            xmax = Math.max(xmax, coords[i]);
+            ymin = Math.min(ymin, coords[i + 1]);
+            ymax = Math.max(ymax, coords[i + 1]);
+        }
+        if (!(xmax > xmin)) {
+            xmin = (xmin == Double.POSITIVE_INFINITY) ? 0.0 : xmin;
+            xmax = xmin + 1.0;
+        }
+        if (!(ymax > ymin)) {
+            ymin = (ymin == Double.POSITIVE_INFINITY) ? 0.0 : ymin;
+            ymax = ymin + 1.0;
+        }
+        return new double[] {xmin, xmax, ymin, ymax};
+    }
+    
+    /**
+     * Returns the packed vertex data for the shading stream.
+     * 
+     * @return The vertex data (never {@code null}).
+     */
+    @Override
+    public byte[] getRawStreamData() {
+        if (this.meshData == null) {
+            this.meshData = getMeshData();
+        }
+        return this.meshData;
+    }
+    
+    /**
+     * Creates the dictionary for the shading stream.
+     * 
+     * @param streamLength  the stream length.
+     * 
+     * @return The dictionary. 
+     */
+    @Override
+    protected Dictionary createDictionary(int streamLength) {
+        Dictionary dictionary = super.createDictionary(streamLength);
+        dictionary.put("/ShadingType", String.valueOf(
+                this.shadingType.getNumber()));
+        dictionary.put("/ColorSpace", "/DeviceRGB");
+        dictionary.put("/BitsPerCoordinate", "32");
+        dictionary.put("/BitsPerComponent", "8");
+        double[] decode = new double[] {this.range[0], this.range[1], 
+            this.range[2], this.range[3], 0.0, 1.0, 0.0, 1.0, 0.0, 1.0};
+        dictionary.put("/Decode", PDFUtils.toPDFArray(decode));
+        return dictionary;
+    }
+
+}
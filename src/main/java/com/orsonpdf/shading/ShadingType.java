@@ -45,8 +45,10 @@ public enum ShadingType {
     /** Radial shading. */
     RADIAL(3),
     
+    /** Free-form Gouraud-shaded triangle mesh. */
     FREE_FORM(4),
     
+    /** Lattice-form Gouraud-shaded triangle mesh. */
     LATTICE_FORM(5),
     
     COONS(6),
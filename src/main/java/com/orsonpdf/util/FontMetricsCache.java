@@ -0,0 +1,288 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.util;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineMetrics;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded (least recently used) cache of AWT font measurements: 
+ * {@code FontMetrics} (as returned by an image graphics context), 
+ * {@code LineMetrics} and the advance widths of the characters 0 to 255, 
+ * keyed by {@code Font} (and {@code FontRenderContext} where the values 
+ * depend on it).  The cached objects are shared, so callers must not 
+ * modify them.
+ * <p>
+ * The line metrics returned by {@code Font.getLineMetrics()} do not depend
+ * on the text (other than for {@code getNumChars()}), so a single instance
+ * per font and render context serves all strings.
+ * 
+ * @since 1.9
+ */
+public final class FontMetricsCache {
+    
+    /** The default capacity (number of fonts). */
+    public static final int DEFAULT_CAPACITY = 64;
+    
+    /** The number of characters with cached advances. */
+    private static final int ADVANCE_COUNT = 256;
+    
+    /** A process-wide instance. */
+    private static final FontMetricsCache DEFAULT = new FontMetricsCache(
+            DEFAULT_CAPACITY);
+    
+    /**
+     * Returns a process-wide cache instance.
+     * 
+     * @return The cache (never {@code null}). 
+     */
+    public static FontMetricsCache getDefault() {
+        return DEFAULT;
+    }
+    
+    /** The font metrics, by font. */
+    private final Map<Font, FontMetrics> fontMetrics;
+    
+    /** The line metrics and advances, by font and render context. */
+    private final Map<Key, Entry> entries;
+    
+    /** The graphics context used to obtain font metrics (lazily created). */
+    private Graphics2D scratch;
+    
+    /**
+     * Creates a new cache.
+     * 
+     * @param capacity  the maximum number of fonts for each kind of value
+     *     (must be positive).
+     */
+    public FontMetricsCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Requires 'capacity' > 0.");
+        }
+        this.fontMetrics = createMap(capacity);
+        this.entries = createMap(capacity);
+    }
+    
+    private static <K, V> Map<K, V> createMap(final int capacity) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+    
+    /**
+     * Returns the font metrics for a font, as returned by the graphics 
+     * context for a {@code BufferedImage} (identity transform, no 
+     * antialiasing or fractional metrics).  
+     * 
+     * @param f  the font ({@code null} not permitted).
+     * 
+     * @return The font metrics. 
+     */
+    public synchronized FontMetrics getFontMetrics(Font f) {
+        Args.nullNotPermitted(f, "f");
+        FontMetrics result = this.fontMetrics.get(f);
+        if (result == null) {
+            if (this.scratch == null) {
+                this.scratch = new BufferedImage(10, 10, 
+                        BufferedImage.TYPE_INT_RGB).createGraphics();
+            }
+            result = this.scratch.getFontMetrics(f);
+            this.fontMetrics.put(f, result);
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the line metrics for a font.
+     * 
+     * @param f  the font ({@code null} not permitted).
+     * @param frc  the font render context ({@code null} not permitted).
+     * 
+     * @return The line metrics (shared, do not modify). 
+     */
+    public synchronized LineMetrics getLineMetrics(Font f, 
+            FontRenderContext frc) {
+        return getEntry(f, frc).lineMetrics;
+    }
+    
+    /**
+     * Returns the advance width of a character.  The advances for 
+     * characters 0 to 255 are cached, other characters are measured 
+     * directly.
+     * 
+     * @param f  the font ({@code null} not permitted).
+     * @param frc  the font render context ({@code null} not permitted).
+     * @param c  the character.
+     * 
+     * @return The advance width.
+     */
+    public float getAdvance(Font f, FontRenderContext frc, char c) {
+        if (c < ADVANCE_COUNT) {
+            return getAdvances(f, frc)[c];
+        }
+        return (float) f.getStringBounds(String.valueOf(c), frc).getWidth();
+    }
+    
+    /**
+     * Returns the total advance width of the characters in a string, 
+     * ignoring kerning and ligatures.
+     * 
+     * @param f  the font ({@code null} not permitted).
+     * @param frc  the font render context ({@code null} not permitted).
+     * @param text  the text ({@code null} not permitted).
+     * 
+     * @return The advance width.
+     */
+    public float getAdvance(Font f, FontRenderContext frc, String text) {
+        float[] advances = getAdvances(f, frc);
+        float result = 0f;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            result += c < ADVANCE_COUNT ? advances[c] 
+                    : getAdvance(f, frc, c);
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the advance widths for the characters 0 to 255.
+     * 
+     * @param f  the font ({@code null} not permitted).
+     * @param frc  the font render context ({@code null} not permitted).
+     * 
+     * @return The advances (shared, do not modify).
+     */
+    synchronized float[] getAdvances(Font f, FontRenderContext frc) {
+        Entry entry = getEntry(f, frc);
+        if (entry.advances == null) {
+            char[] chars = new char[ADVANCE_COUNT];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) i;
+            }
+            GlyphVector gv = f.createGlyphVector(frc, chars);
+            float[] advances = new float[ADVANCE_COUNT];
+            for (int i = 0; i < advances.length; i++) {
+                advances[i] = gv.getGlyphMetrics(i).getAdvance();
+            }
+            entry.advances = advances;
+        }
+        return entry.advances;
+    }
+    
+    private Entry getEntry(Font f, FontRenderContext frc) {
+        Args.nullNotPermitted(f, "f");
+        Args.nullNotPermitted(frc, "frc");
+        Key key = new Key(f, frc);
+        Entry entry = this.entries.get(key);
+        if (entry == null) {
+            entry = new Entry(f.getLineMetrics("", frc));
+            this.entries.put(key, entry);
+        }
+        return entry;
+    }
+    
+    /**
+     * Removes all cached values.
+     */
+    public synchronized void clear() {
+        this.fontMetrics.clear();
+        this.entries.clear();
+    }
+    
+    /**
+     * Returns the number of fonts with cached line metrics.
+     * 
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+    
+    /**
+     * A key for a font and render context.
+     */
+    private static final class Key {
+        
+        private final Font font;
+        
+        private final FontRenderContext frc;
+        
+        Key(Font font, FontRenderContext frc) {
+            this.font = font;
+            this.frc = frc;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) obj;
+            return this.font.equals(that.font) && this.frc.equals(that.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.font.hashCode() + this.frc.hashCode();
+        }
+    }
+    
+    /**
+     * The cached values for a font and render context.
+     */
+    private static final class Entry {
+        
+        final LineMetrics lineMetrics;
+        
+        /** The advances for characters 0 to 255 (lazily created). */
+        float[] advances;
+        
+        Entry(LineMetrics lineMetrics) {
+            this.lineMetrics = lineMetrics;
+        }
+    }
+
+}
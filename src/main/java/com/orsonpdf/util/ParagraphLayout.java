@@ -0,0 +1,334 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.util;
+
+import com.orsonpdf.font.StandardFont;
+import com.orsonpdf.font.StandardFontMetrics;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.font.FontRenderContext;
+import java.util.Arrays;
+
+/**
+ * The lines of a paragraph of text broken to fit a given width.  Lines are
+ * broken greedily at spaces (a word that is wider than a line on its own 
+ * is broken between characters) and at each line feed character.  The 
+ * text is measured in a single pass using the advance widths of the 
+ * characters: the built-in widths for a standard PDF font (when the 
+ * metrics are {@link StandardFontMetrics}) or else the cached advances 
+ * from {@link FontMetricsCache}, so kerning and ligatures are ignored.
+ * 
+ * @since 1.9
+ */
+public final class ParagraphLayout {
+    
+    /** The text. */
+    private final String text;
+    
+    /** The distance between the baselines of successive lines. */
+    private final float lineHeight;
+    
+    /** The number of lines. */
+    private int lineCount;
+    
+    /** The index of the first character of each line. */
+    private int[] starts;
+    
+    /** The index after the last character of each line. */
+    private int[] ends;
+    
+    /** The width of each line (excluding trailing spaces). */
+    private float[] widths;
+    
+    private ParagraphLayout(String text, float lineHeight) {
+        this.text = text;
+        this.lineHeight = lineHeight;
+        this.starts = new int[8];
+        this.ends = new int[8];
+        this.widths = new float[8];
+    }
+    
+    /**
+     * Breaks a paragraph of text into lines that fit the specified width.
+     * 
+     * @param text  the text ({@code null} not permitted).
+     * @param fm  the metrics for the font the text will be drawn with 
+     *     ({@code null} not permitted).
+     * @param width  the maximum line width (must be positive).
+     * 
+     * @return The layout (never {@code null}). 
+     */
+    public static ParagraphLayout layout(String text, FontMetrics fm, 
+            float width) {
+        Args.nullNotPermitted(text, "text");
+        Args.nullNotPermitted(fm, "fm");
+        if (!(width > 0f)) {
+            throw new IllegalArgumentException("Requires 'width' > 0.");
+        }
+        ParagraphLayout result = new ParagraphLayout(text, fm.getHeight());
+        result.breakLines(new Advances(fm), width);
+        return result;
+    }
+    
+    /**
+     * Breaks the text into lines in a single pass, tracking the last break
+     * opportunity so that no character is measured more than once.
+     * 
+     * @param advances  the character advances.
+     * @param width  the maximum line width.
+     */
+    private void breakLines(Advances advances, float width) {
+        String s = this.text;
+        int len = s.length();
+        float space = advances.get(' ');
+        int lineStart = 0;
+        float lineWidth = 0f;
+        // the last break opportunity: the end of the word before a space,
+        // the line width there, and the start of the following word with 
+        // the line width before it
+        int wordEnd = -1;
+        float wordEndWidth = 0f;
+        int nextStart = -1;
+        float nextStartWidth = 0f;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c == '\n') {
+                addLine(lineStart, i, lineWidth, space);
+                lineStart = i + 1;
+                lineWidth = 0f;
+                wordEnd = -1;
+                nextStart = -1;
+                continue;
+            }
+            float a = advances.get(c);
+            if (c == ' ') {
+                if (i > lineStart && s.charAt(i - 1) != ' ') {
+                    wordEnd = i;
+                    wordEndWidth = lineWidth;
+                    nextStart = -1;
+                }
+                lineWidth += a;
+                continue;
+            }
+            if (wordEnd >= 0 && nextStart < 0) {
+                nextStart = i;
+                nextStartWidth = lineWidth;
+            }
+            if (lineWidth + a > width && i > lineStart) {
+                if (nextStart > 0) {
+                    addLine(lineStart, wordEnd, wordEndWidth, space);
+                    lineStart = nextStart;
+                    lineWidth -= nextStartWidth;
+                    wordEnd = -1;
+                    nextStart = -1;
+                }
+                // a word that does not fit on a line of its own
+                if (lineWidth + a > width && i > lineStart 
+                        && !Character.isLowSurrogate(c)) {
+                    addLine(lineStart, i, lineWidth, space);
+                    lineStart = i;
+                    lineWidth = 0f;
+                }
+            }
+            lineWidth += a;
+        }
+        addLine(lineStart, len, lineWidth, space);
+    }
+    
+    /**
+     * Adds a line, excluding any trailing spaces.
+     * 
+     * @param start  the index of the first character.
+     * @param end  the index after the last character.
+     * @param width  the width of the characters from start to end.
+     * @param space  the width of a space.
+     */
+    private void addLine(int start, int end, float width, float space) {
+        while (end > start && this.text.charAt(end - 1) == ' ') {
+            end--;
+            width -= space;
+        }
+        if (this.lineCount == this.starts.length) {
+            int capacity = this.lineCount * 2;
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+            this.widths = Arrays.copyOf(this.widths, capacity);
+        }
+        this.starts[this.lineCount] = start;
+        this.ends[this.lineCount] = end;
+        this.widths[this.lineCount] = Math.max(width, 0f);
+        this.lineCount++;
+    }
+    
+    /**
+     * Returns the text that was laid out.
+     * 
+     * @return The text (never {@code null}). 
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Returns the number of lines (an empty paragraph has one empty line).
+     * 
+     * @return The number of lines. 
+     */
+    public int getLineCount() {
+        return this.lineCount;
+    }
+    
+    /**
+     * Returns the text for a line, excluding the spaces or line feed at 
+     * the break.
+     * 
+     * @param line  the line index.
+     * 
+     * @return The text for the line.
+     */
+    public String getLine(int line) {
+        checkLine(line);
+        return this.text.substring(this.starts[line], this.ends[line]);
+    }
+    
+    /**
+     * Returns the index in the text of the first character of a line.
+     * 
+     * @param line  the line index.
+     * 
+     * @return The start index.
+     */
+    public int getLineStart(int line) {
+        checkLine(line);
+        return this.starts[line];
+    }
+    
+    /**
+     * Returns the index in the text after the last character of a line.
+     * 
+     * @param line  the line index.
+     * 
+     * @return The end index.
+     */
+    public int getLineEnd(int line) {
+        checkLine(line);
+        return this.ends[line];
+    }
+    
+    /**
+     * Returns the width of a line.
+     * 
+     * @param line  the line index.
+     * 
+     * @return The width.
+     */
+    public float getLineWidth(int line) {
+        checkLine(line);
+        return this.widths[line];
+    }
+    
+    private void checkLine(int line) {
+        if (line < 0 || line >= this.lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line 
+                    + " (line count " + this.lineCount + ").");
+        }
+    }
+    
+    /**
+     * Returns the distance between the baselines of successive lines (the
+     * height of the font metrics).
+     * 
+     * @return The line height.
+     */
+    public float getLineHeight() {
+        return this.lineHeight;
+    }
+    
+    /**
+     * Returns the height of the paragraph (the line height multiplied by
+     * the number of lines).
+     * 
+     * @return The height.
+     */
+    public float getHeight() {
+        return this.lineHeight * this.lineCount;
+    }
+    
+    /**
+     * The advance widths of the characters in a font.
+     */
+    private static final class Advances {
+        
+        /** The standard font, or {@code null}. */
+        private final StandardFont standardFont;
+        
+        /** The scale from standard font widths to the font size. */
+        private final float scale;
+        
+        private final Font font;
+        
+        private final FontRenderContext frc;
+        
+        /** The cached advances for characters 0 to 255 (or {@code null}).*/
+        private final float[] table;
+        
+        Advances(FontMetrics fm) {
+            this.font = fm.getFont();
+            this.frc = fm.getFontRenderContext();
+            if (fm instanceof StandardFontMetrics) {
+                this.standardFont = ((StandardFontMetrics) fm)
+                        .getStandardFont();
+                this.scale = this.font.getSize2D() / 1000f;
+                this.table = null;
+            } else {
+                this.standardFont = null;
+                this.scale = 0f;
+                this.table = FontMetricsCache.getDefault().getAdvances(
+                        this.font, this.frc);
+            }
+        }
+        
+        float get(char c) {
+            if (this.standardFont != null) {
+                return this.standardFont.getWidth(c) * this.scale;
+            }
+            if (c < this.table.length) {
+                return this.table[c];
+            }
+            return FontMetricsCache.getDefault().getAdvance(this.font, 
+                    this.frc, c);
+        }
+    }
+
+}
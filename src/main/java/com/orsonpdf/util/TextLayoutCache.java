@@ -0,0 +1,210 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.util;
+
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.text.AttributedCharacterIterator;
+import java.text.CharacterIterator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded (least recently used) cache of {@code TextLayout} instances, 
+ * keyed by text, attributes and {@code FontRenderContext}.  Creating a 
+ * {@code TextLayout} (bidirectional analysis, shaping and glyph lookup) is
+ * expensive, but a layout is immutable and keeps its glyph vectors, so 
+ * drawing the same attributed text again only replays the glyphs.
+ * 
+ * @since 1.9
+ */
+public final class TextLayoutCache {
+    
+    /** The default capacity. */
+    public static final int DEFAULT_CAPACITY = 256;
+    
+    /** A process-wide instance. */
+    private static final TextLayoutCache DEFAULT = new TextLayoutCache(
+            DEFAULT_CAPACITY);
+    
+    /**
+     * Returns a process-wide cache instance.
+     * 
+     * @return The cache (never {@code null}). 
+     */
+    public static TextLayoutCache getDefault() {
+        return DEFAULT;
+    }
+    
+    /** The layouts, by key. */
+    private final Map<Key, TextLayout> layouts;
+    
+    /** The number of cache hits. */
+    private long hits;
+    
+    /** The number of cache misses. */
+    private long misses;
+    
+    /**
+     * Creates a new cache.
+     * 
+     * @param capacity  the maximum number of layouts (must be positive).
+     */
+    public TextLayoutCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Requires 'capacity' > 0.");
+        }
+        this.layouts = new LinkedHashMap<Key, TextLayout>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Key, TextLayout> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+    
+    /**
+     * Returns a text layout for the text in {@code iterator}, creating it 
+     * if it is not in the cache.
+     * 
+     * @param iterator  the text ({@code null} not permitted).
+     * @param frc  the font render context ({@code null} not permitted).
+     * 
+     * @return The text layout.
+     */
+    public TextLayout getTextLayout(AttributedCharacterIterator iterator, 
+            FontRenderContext frc) {
+        Args.nullNotPermitted(iterator, "iterator");
+        Args.nullNotPermitted(frc, "frc");
+        Key key = new Key(iterator, frc);
+        synchronized (this) {
+            TextLayout layout = this.layouts.get(key);
+            if (layout != null) {
+                this.hits++;
+                return layout;
+            }
+            this.misses++;
+        }
+        iterator.first();
+        TextLayout layout = new TextLayout(iterator, frc);
+        synchronized (this) {
+            this.layouts.put(key, layout);
+        }
+        return layout;
+    }
+    
+    /**
+     * Returns the number of layouts that were found in the cache.
+     * 
+     * @return The number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+    
+    /**
+     * Returns the number of layouts that had to be created.
+     * 
+     * @return The number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+    
+    /**
+     * Removes all layouts from the cache and resets the hit and miss 
+     * counts.
+     */
+    public synchronized void clear() {
+        this.layouts.clear();
+        this.hits = 0L;
+        this.misses = 0L;
+    }
+    
+    /**
+     * A cache key: the text, the attribute runs (each as the attribute map
+     * followed by the run length) and the render context.
+     */
+    private static final class Key {
+        
+        private final String text;
+        
+        private final List<Object> runs;
+        
+        private final FontRenderContext frc;
+        
+        Key(AttributedCharacterIterator iterator, FontRenderContext frc) {
+            int begin = iterator.getBeginIndex();
+            int end = iterator.getEndIndex();
+            StringBuilder b = new StringBuilder(end - begin);
+            for (char c = iterator.first(); c != CharacterIterator.DONE; 
+                    c = iterator.next()) {
+                b.append(c);
+            }
+            this.text = b.toString();
+            this.runs = new ArrayList<Object>();
+            int i = begin;
+            while (i < end) {
+                iterator.setIndex(i);
+                int limit = iterator.getRunLimit();
+                this.runs.add(iterator.getAttributes());
+                this.runs.add(Integer.valueOf(limit - i));
+                i = limit;
+            }
+            this.frc = frc;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) obj;
+            return this.text.equals(that.text) && this.runs.equals(that.runs)
+                    && this.frc.equals(that.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = this.text.hashCode();
+            hash = 31 * hash + this.runs.hashCode();
+            return 31 * hash + this.frc.hashCode();
+        }
+    }
+
+}
@@ -32,6 +32,7 @@
 
 package com.orsonpdf.util;
 
+import com.orsonpdf.font.StandardFontMetrics;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
@@ -40,16 +41,122 @@ import java.awt.font.LineMetrics;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.text.AttributedString;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Text utility functions.
  */
 public class TextUtils {
 
+    /** The maximum number of strings in the text measurement cache. */
+    private static final int CACHE_CAPACITY = 512;
+    
+    /** 
+     * The text measurement cache (least recently used entries are 
+     * removed first).  Access is synchronized on the map.
+     */
+    private static final Map<TextKey, TextMeasure> CACHE 
+            = new LinkedHashMap<TextKey, TextMeasure>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<TextKey, TextMeasure> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+    
+    /** The number of cache hits. */
+    private static long cacheHits;
+    
+    /** The number of cache misses. */
+    private static long cacheMisses;
+    
     private TextUtils() {
         // no need to instantiate this.
     }
     
+    /**
+     * Returns the number of text measurements that were found in the 
+     * cache (the text bounds, ascent, descent and leading used to align 
+     * strings are cached by font, render context and text).
+     * 
+     * @return The number of cache hits.
+     * 
+     * @since 1.9
+     */
+    public static long getCacheHitCount() {
+        synchronized (CACHE) {
+            return cacheHits;
+        }
+    }
+    
+    /**
+     * Returns the number of text measurements that were not found in the 
+     * cache.
+     * 
+     * @return The number of cache misses.
+     * 
+     * @since 1.9
+     */
+    public static long getCacheMissCount() {
+        synchronized (CACHE) {
+            return cacheMisses;
+        }
+    }
+    
+    /**
+     * Clears the text measurement cache and resets the hit and miss 
+     * counts.
+     * 
+     * @since 1.9
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            cacheHits = 0L;
+            cacheMisses = 0L;
+        }
+    }
+    
+    /**
+     * Returns the measurements for a string drawn with the current font of
+     * {@code g2}, from the cache if possible.
+     * 
+     * @param g2  the graphics target.
+     * @param text  the text.
+     * 
+     * @return The measurements (shared, do not modify).
+     */
+    private static TextMeasure measure(Graphics2D g2, String text) {
+        Font f = g2.getFont();
+        FontRenderContext frc = g2.getFontRenderContext();
+        FontMetrics fm = g2.getFontMetrics(f);
+        // the standard font metrics are created on demand, but are equal 
+        // when they share a standard font
+        Object metricsKey = fm instanceof StandardFontMetrics 
+                ? ((StandardFontMetrics) fm).getStandardFont() : fm;
+        TextKey key = new TextKey(metricsKey, f, frc, text);
+        synchronized (CACHE) {
+            TextMeasure measure = CACHE.get(key);
+            if (measure != null) {
+                cacheHits++;
+                return measure;
+            }
+            cacheMisses++;
+        }
+        LineMetrics metrics = FontMetricsCache.getDefault().getLineMetrics(f, 
+                frc);
+        TextMeasure measure = new TextMeasure(getTextBounds(text, g2, fm), 
+                metrics.getAscent(), metrics.getDescent(), 
+                metrics.getLeading());
+        synchronized (CACHE) {
+            CACHE.put(key, measure);
+        }
+        return measure;
+    }
+    
     /**
      * Draws a string such that the specified anchor point is aligned to the
      * given {@code (x, y)} location.
@@ -92,15 +199,12 @@ public class TextUtils {
             String text, TextAnchor anchor) {
 
         float[] result = new float[2];
-        FontRenderContext frc = g2.getFontRenderContext();
-        Font f = g2.getFont();
-        FontMetrics fm = g2.getFontMetrics(f);
-        Rectangle2D bounds = getTextBounds(text, g2, fm);
-        LineMetrics metrics = f.getLineMetrics(text, frc);
-        float ascent = metrics.getAscent();
+        TextMeasure measure = measure(g2, text);
+        Rectangle2D bounds = measure.bounds;
+        float ascent = measure.ascent;
         float halfAscent = ascent / 2.0f;
-        float descent = metrics.getDescent();
-        float leading = metrics.getLeading();
+        float descent = measure.descent;
+        float leading = measure.leading;
         float xAdj = 0.0f;
         float yAdj = 0.0f;
 
@@ -119,7 +223,7 @@ public class TextUtils {
         } else if (anchor.isBaseline()) {
             yAdj = 0.0f;
         } else if (anchor.isBottom()) {
-            yAdj = -metrics.getDescent() - metrics.getLeading();
+            yAdj = -descent - leading;
         }
         result[0] = xAdj;
         result[1] = yAdj;
@@ -146,16 +250,13 @@ public class TextUtils {
             String text, TextAnchor anchor, Rectangle2D textBounds) {
 
         float[] result = new float[3];
-        FontRenderContext frc = g2.getFontRenderContext();
-        Font f = g2.getFont();
-        FontMetrics fm = g2.getFontMetrics(f);
-        Rectangle2D bounds = getTextBounds(text, g2, fm);
-        LineMetrics metrics = f.getLineMetrics(text, frc);
-        float ascent = metrics.getAscent();
+        TextMeasure measure = measure(g2, text);
+        Rectangle2D bounds = measure.bounds;
+        float ascent = measure.ascent;
         result[2] = -ascent;
         float halfAscent = ascent / 2.0f;
-        float descent = metrics.getDescent();
-        float leading = metrics.getLeading();
+        float descent = measure.descent;
+        float leading = measure.leading;
         float xAdj = 0.0f;
         float yAdj = 0.0f;
 
@@ -174,7 +275,7 @@ public class TextUtils {
         } else if (anchor.isBaseline()) {
             yAdj = 0.0f;
         } else if (anchor.isBottom()) {
-            yAdj = -metrics.getDescent() - metrics.getLeading();
+            yAdj = -descent - leading;
         }
         if (textBounds != null) {
             textBounds.setRect(bounds);
@@ -268,14 +369,12 @@ public class TextUtils {
             String text, TextAnchor anchor) {
 
         float[] result = new float[2];
-        FontRenderContext frc = g2.getFontRenderContext();
-        LineMetrics metrics = g2.getFont().getLineMetrics(text, frc);
-        FontMetrics fm = g2.getFontMetrics();
-        Rectangle2D bounds = TextUtils.getTextBounds(text, g2, fm);
-        float ascent = metrics.getAscent();
+        TextMeasure measure = measure(g2, text);
+        Rectangle2D bounds = measure.bounds;
+        float ascent = measure.ascent;
         float halfAscent = ascent / 2.0f;
-        float descent = metrics.getDescent();
-        float leading = metrics.getLeading();
+        float descent = measure.descent;
+        float leading = measure.leading;
         float xAdj = 0.0f;
         float yAdj = 0.0f;
 
@@ -296,7 +395,7 @@ public class TextUtils {
         } else if (anchor.isBaseline()) {
             yAdj = 0.0f;
         } else if (anchor.isBottom()) {
-            yAdj = metrics.getDescent() + metrics.getLeading();
+            yAdj = descent + leading;
         }
         result[0] = xAdj;
         result[1] = yAdj;
@@ -355,4 +454,71 @@ public class TextUtils {
         g2.setTransform(saved);
 
     }
-}
\ No newline at end of file
+    
+    /**
+     * The cache key for a text measurement.  The font metrics are compared
+     * by identity.
+     */
+    private static final class TextKey {
+        
+        private final Object metrics;
+        
+        private final Font font;
+        
+        private final FontRenderContext frc;
+        
+        private final String text;
+        
+        TextKey(Object metrics, Font font, FontRenderContext frc, 
+                String text) {
+            this.metrics = metrics;
+            this.font = font;
+            this.frc = frc;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TextKey)) {
+                return false;
+            }
+            TextKey that = (TextKey) obj;
+            return this.metrics == that.metrics 
+                    && this.text.equals(that.text)
+                    && this.font.equals(that.font) 
+                    && ObjectUtils.equals(this.frc, that.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(this.metrics);
+            hash = 31 * hash + this.font.hashCode();
+            hash = 31 * hash + ObjectUtils.hashCode(this.frc);
+            return 31 * hash + this.text.hashCode();
+        }
+    }
+    
+    /**
+     * The cached measurements for a string.
+     */
+    private static final class TextMeasure {
+        
+        /** The text bounds (relative to the baseline). */
+        final Rectangle2D bounds;
+        
+        final float ascent;
+        
+        final float descent;
+        
+        final float leading;
+        
+        TextMeasure(Rectangle2D bounds, float ascent, float descent, 
+                float leading) {
+            this.bounds = bounds;
+            this.ascent = ascent;
+            this.descent = descent;
+            this.leading = leading;
+        }
+    }
+
+}
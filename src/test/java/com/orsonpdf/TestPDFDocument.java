@@ -0,0 +1,421 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import com.orsonpdf.font.TestTrueTypeFontProgram;
+import com.orsonpdf.font.TrueTypeFontProgram;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link PDFDocument} class.
+ */
+public class TestPDFDocument {
+    
+    private static String toString(byte[] bytes) {
+        try {
+            return new String(bytes, "ISO-8859-1");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * Returns a 12 point font created from the bundled test font (see
+     * {@link TestTrueTypeFontProgram#DEJAVU_SANS}).
+     */
+    private static Font createTestFont() throws IOException, 
+            FontFormatException {
+        InputStream in = openTestFont();
+        try {
+            return Font.createFont(Font.TRUETYPE_FONT, in).deriveFont(12f);
+        } finally {
+            in.close();
+        }
+    }
+    
+    private static InputStream openTestFont() {
+        return TestPDFDocument.class.getResourceAsStream(
+                TestTrueTypeFontProgram.DEJAVU_SANS);
+    }
+
+    @Test
+    public void checkConcurrentPageRendering() throws InterruptedException {
+        final PDFDocument pdfDoc = new PDFDocument();
+        final Page[] pages = new Page[8];
+        Thread[] threads = new Thread[pages.length];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        }
+        for (int i = 0; i < pages.length; i++) {
+            final Page page = pages[i];
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    PDFGraphics2D g2 = page.getGraphics2D();
+                    for (int j = 0; j < 200; j++) {
+                        g2.setFont(new Font(j % 2 == 0 ? "Serif" : "Dialog", 
+                                Font.PLAIN, 10));
+                        g2.setColor(new Color(j, 0, 0, 128));
+                        g2.fill(new Rectangle2D.Double(j, j, 5, 5));
+                        g2.drawString("Test", j, j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Set<Integer> numbers = new HashSet<Integer>();
+        StringBuilder kids = new StringBuilder("/Kids [");
+        for (Page page : pages) {
+            kids.append(page.getReference()).append(" ");
+            assertTrue(numbers.add(page.getNumber()));
+            assertTrue(numbers.add(page.getContents().getNumber()));
+            for (PDFObject obj : page.getObjects()) {
+                assertTrue(numbers.add(obj.getNumber()));
+            }
+        }
+        String pdf = toString(pdfDoc.getPDFBytes());
+        assertTrue(pdf.contains("/Count 8"));
+        assertTrue(pdf.contains(kids.toString().trim() + "]"));
+        assertEquals(2, pdf.split("/Subtype /Type1").length - 1);
+        assertTrue(pdf.endsWith("%%EOF"));
+    }
+    
+    @Test
+    public void checkRenderPages() {
+        PDFDocument pdfDoc = new PDFDocument();
+        pdfDoc.setDebugMode(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Page> pages;
+        try {
+            pages = pdfDoc.renderPages(new Rectangle(0, 0, 200, 100), 20, 
+                    new PageRenderer() {
+                @Override
+                public void renderPage(int pageIndex, PDFGraphics2D g2) {
+                    g2.drawString("Page " + pageIndex, 10, 20);
+                }
+            }, executor);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(20, pages.size());
+        String pdf = toString(pdfDoc.getPDFBytes());
+        int pos = 0;
+        for (int i = 0; i < 20; i++) {
+            int next = pdf.indexOf("(Page " + i + ") Tj", pos);
+            assertTrue(next > pos);
+            pos = next;
+        }
+    }
+    
+    @Test
+    public void checkRenderPagesFailure() {
+        PDFDocument pdfDoc = new PDFDocument();
+        try {
+            pdfDoc.renderPages(new Rectangle(0, 0, 200, 100), 10, 
+                    new PageRenderer() {
+                @Override
+                public void renderPage(int pageIndex, PDFGraphics2D g2) {
+                    if (pageIndex == 3) {
+                        throw new IllegalStateException("Page 3");
+                    }
+                }
+            }, null);
+            fail("Expected an exception.");
+        } catch (IllegalStateException e) {
+            assertEquals("Page 3", e.getMessage());
+        }
+    }
+    
+    @Test
+    public void checkPipeline() throws Exception {
+        PDFDocument pdfDoc = new PDFDocument();
+        pdfDoc.setDebugMode(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DocumentPipeline pipeline = pdfDoc.createPipeline(out, 2);
+        for (int i = 0; i < 10; i++) {
+            Page page = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+            page.getGraphics2D().drawString("Page " + i, 10, 20);
+            if (i != 5) {
+                pipeline.submit(page);
+            }
+        }
+        pipeline.finish().get();
+        String pdf = toString(out.toByteArray());
+        assertTrue(pdf.startsWith("%PDF-1.4"));
+        assertTrue(pdf.endsWith("%%EOF"));
+        assertTrue(pdf.contains("/Count 10"));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(pdf.contains("(Page " + i + ") Tj"));
+        }
+        // check that the xref offsets point to the objects
+        int xref = pdf.indexOf("xref\n");
+        String[] lines = pdf.substring(xref).split("\n");
+        int count = Integer.parseInt(lines[1].split(" ")[1]);
+        for (int n = 1; n < count; n++) {
+            String entry = lines[2 + n];
+            if (entry.endsWith("n ")) {
+                int offset = Integer.parseInt(entry.substring(0, 10));
+                assertTrue(pdf.startsWith(n + " 0 obj", offset));
+            }
+        }
+    }
+
+    @Test
+    public void checkCompressionPolicy() {
+        PDFDocument pdfDoc = new PDFDocument();
+        DefaultCompressionPolicy policy = new DefaultCompressionPolicy();
+        policy.setMinimumSize(256);
+        pdfDoc.setCompressionPolicy(policy);
+        Page page1 = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        page1.getGraphics2D().drawLine(0, 0, 10, 10);
+        Page page2 = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        PDFGraphics2D g2 = page2.getGraphics2D();
+        for (int i = 0; i < 100; i++) {
+            g2.drawRect(i, i, 50, 50);
+        }
+        String pdf = toString(pdfDoc.getPDFBytes());
+        // the first page is too small to compress, the second isn't
+        assertEquals(1, countOccurrences(pdf, "/Filter"));
+    }
+    
+    @Test
+    public void checkEntropyEstimate() {
+        assertEquals(0.0, DefaultCompressionPolicy.estimateEntropy(
+                new byte[1000]), 0.0001);
+        byte[] data = new byte[100000];
+        new java.util.Random(1L).nextBytes(data);
+        assertTrue(DefaultCompressionPolicy.estimateEntropy(data) > 7.6);
+    }
+    
+    @Test
+    public void checkAdaptiveCompressionPolicy() {
+        AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy(10.0);
+        assertEquals(6, policy.getCurrentLevel());
+        // 1MB taking 50ms is over budget, so the level drops
+        policy.record(6, 1024 * 1024, 50000000L);
+        assertEquals(5, policy.getCurrentLevel());
+        assertEquals(50.0, policy.getMillisPerMB(6), 0.0001);
+        // level 6 is known to be over budget, so the level stays at 5...
+        policy.record(5, 1024 * 1024, 2000000L);
+        assertEquals(5, policy.getCurrentLevel());
+        // ...until the budget is raised
+        policy.setMaxMillisPerMB(100.0);
+        policy.record(5, 1024 * 1024, 2000000L);
+        assertEquals(6, policy.getCurrentLevel());
+        // unmeasured levels are tried when well within budget
+        policy.record(6, 1024 * 1024, 2000000L);
+        assertEquals(7, policy.getCurrentLevel());
+        
+        PDFDocument pdfDoc = new PDFDocument();
+        pdfDoc.setCompressionPolicy(policy);
+        PDFGraphics2D g2 = pdfDoc.createPage(new Rectangle(0, 0, 200, 100))
+                .getGraphics2D();
+        for (int i = 0; i < 100; i++) {
+            g2.drawRect(i, i, 50, 50);
+        }
+        pdfDoc.getPDFBytes();
+        assertEquals(1, policy.getLevelCounts()[7]);
+    }
+    
+    @Test
+    public void checkTrueTypeFontEmbedding() throws IOException, 
+            FontFormatException {
+        PDFDocument pdfDoc = new PDFDocument();
+        pdfDoc.setDebugMode(true);
+        Font font = createTestFont();
+        InputStream in = openTestFont();
+        try {
+            pdfDoc.registerTrueTypeFont(font, in);
+        } finally {
+            in.close();
+        }
+        Page page = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        PDFGraphics2D g2 = page.getGraphics2D();
+        g2.setFont(font);
+        g2.drawString("Hi\u20AC", 10, 20);
+        String pdf = toString(pdfDoc.getPDFBytes());
+        assertTrue(pdf.contains("(Hi\\200) Tj"));
+        assertTrue(pdf.contains("/Subtype /TrueType"));
+        assertTrue(pdf.contains("+DejaVuSans"));
+        assertTrue(pdf.contains("/FontFile2"));
+        assertTrue(pdf.contains("/FirstChar 32"));
+        assertTrue(pdf.contains("/LastChar 128"));
+        // streams are not compressed in debug mode
+        int fontFile = pdf.indexOf("/Length1 ");
+        assertTrue(fontFile >= 0);
+        assertFalse(pdf.substring(pdf.lastIndexOf("<<", fontFile), 
+                pdf.indexOf("stream", fontFile)).contains("/Filter"));
+    }
+    
+    @Test
+    public void checkFontResources() {
+        PDFDocument pdfDoc = new PDFDocument();
+        pdfDoc.setDebugMode(true);
+        Page page1 = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        Page page2 = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        Font font = new Font("Serif", Font.BOLD, 10);
+        PDFFont pdfFont = page1.findOrCreateFont(font);
+        assertSame(pdfFont, page1.findOrCreateFont(font));
+        assertSame(pdfFont, page1.findOrCreateFont(font.deriveFont(14f)));
+        assertSame(pdfFont, page2.findOrCreateFont(new Font("Serif", 
+                Font.BOLD, 10)));
+        // both pages list the font in their resources
+        String pdf = toString(pdfDoc.getPDFBytes());
+        int first = pdf.indexOf("/Font << /F1-Serif ");
+        assertTrue(first >= 0);
+        assertTrue(pdf.lastIndexOf("/Font << /F1-Serif ") > first);
+    }
+    
+    @Test
+    public void checkStandardFontMetrics() {
+        PDFDocument pdfDoc = new PDFDocument();
+        pdfDoc.setDebugMode(true);
+        Page page = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        PDFGraphics2D g2 = page.getGraphics2D();
+        g2.setFont(new Font("SansSerif", Font.PLAIN, 10));
+        assertEquals(23, g2.getFontMetrics().stringWidth("Hello"));
+        assertSame(g2.getFontMetrics(), g2.getFontMetrics());
+        g2.drawString("Hello (\u00E9)", 10, 20);
+        String pdf = toString(pdfDoc.getPDFBytes());
+        assertTrue(pdf.contains("(Hello \\(\\216\\)) Tj"));
+        assertTrue(pdf.contains("/LastChar 255"));
+        assertTrue(pdf.contains("/Widths [278 278 355 "));
+    }
+    
+    @Test
+    public void checkUnicodeFontEmbedding() throws IOException, 
+            FontFormatException {
+        PDFDocument pdfDoc = new PDFDocument();
+        pdfDoc.setDebugMode(true);
+        Font font = createTestFont();
+        InputStream in = openTestFont();
+        try {
+            pdfDoc.registerUnicodeFont(font, in);
+        } finally {
+            in.close();
+        }
+        Page page = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        PDFGraphics2D g2 = page.getGraphics2D();
+        g2.setFont(font);
+        g2.drawString("A\u0416", 10, 20);
+        String pdf = toString(pdfDoc.getPDFBytes());
+        
+        // the expected glyph indices and widths come from the font itself
+        in = openTestFont();
+        TrueTypeFontProgram program;
+        try {
+            program = TrueTypeFontProgram.load(in);
+        } finally {
+            in.close();
+        }
+        int glyphA = program.getGlyphId('A');
+        int glyphZhe = program.getGlyphId('\u0416');
+        assertTrue(glyphZhe > glyphA + 1);
+        assertTrue(pdf.contains("<" + hex4(glyphA) + hex4(glyphZhe) 
+                + "> Tj"));
+        assertTrue(pdf.contains("/Subtype /Type0"));
+        assertTrue(pdf.contains("/Encoding /Identity-H"));
+        assertTrue(pdf.contains("/Subtype /CIDFontType2"));
+        assertTrue(pdf.contains("/ToUnicode"));
+        assertTrue(pdf.contains("/W [" + glyphA + " [" 
+                + program.getScaledAdvanceWidth(glyphA) + "] " + glyphZhe 
+                + " [" + program.getScaledAdvanceWidth(glyphZhe) + "]]"));
+        // streams are not compressed in debug mode
+        assertTrue(pdf.contains("<" + hex4(glyphA) + "> <0041>"));
+    }
+    
+    @Test
+    public void checkGlyphCache() {
+        PDFDocument pdfDoc = new PDFDocument();
+        pdfDoc.setDebugMode(true);
+        Page page = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        PDFGraphics2D g2 = page.getGraphics2D();
+        g2.setRenderingHint(PDFHints.KEY_DRAW_STRING_TYPE, 
+                PDFHints.VALUE_DRAW_STRING_TYPE_VECTOR);
+        g2.drawString("abab", 10, 20);
+        g2.drawString("baba", 10, 40);
+        String pdf = toString(pdfDoc.getPDFBytes());
+        assertEquals(1, countOccurrences(pdf, "/Subtype /Type3"));
+        assertEquals(2, countOccurrences(pdf, " d1\n"));
+        assertEquals(2, countOccurrences(pdf, "] TJ"));
+        
+        // with the cache turned off, the outlines are filled every time
+        pdfDoc = new PDFDocument();
+        page = pdfDoc.createPage(new Rectangle(0, 0, 200, 100));
+        g2 = page.getGraphics2D();
+        g2.setRenderingHint(PDFHints.KEY_DRAW_STRING_TYPE, 
+                PDFHints.VALUE_DRAW_STRING_TYPE_VECTOR);
+        g2.setRenderingHint(PDFHints.KEY_GLYPH_CACHE, 
+                PDFHints.VALUE_GLYPH_CACHE_OFF);
+        g2.drawString("abab", 10, 20);
+        assertFalse(toString(pdfDoc.getPDFBytes()).contains("/Type3"));
+    }
+    
+    private static String hex4(int value) {
+        return String.format("%04X", value);
+    }
+    
+    private static int countOccurrences(String s, String target) {
+        int count = 0;
+        int i = s.indexOf(target);
+        while (i >= 0) {
+            count++;
+            i = s.indexOf(target, i + 1);
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,247 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Rectangle;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the PDF specific features of {@link PDFGraphics2D}, checking the
+ * content that is written to the page stream.
+ */
+public class TestPDFGraphics2D {
+    
+    private PDFDocument pdfDoc;
+    
+    private Page page;
+    
+    private PDFGraphics2D g2;
+    
+    @Before
+    public void setUp() {
+        this.pdfDoc = new PDFDocument();
+        this.pdfDoc.setDebugMode(true);
+        this.page = this.pdfDoc.createPage(new Rectangle(0, 0, 300, 200));
+        this.g2 = this.page.getGraphics2D();
+    }
+    
+    private String content() {
+        GraphicsStream gs = (GraphicsStream) this.page.getContents();
+        return toString(gs.getRawStreamData());
+    }
+    
+    private static String toString(byte[] bytes) {
+        try {
+            return new String(bytes, "ISO-8859-1");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Test
+    public void checkFillColorGridWritesOneShading() {
+        int[] rgb = new int[100 * 50];
+        for (int i = 0; i < rgb.length; i++) {
+            rgb[i] = i * 31;
+        }
+        this.g2.fillColorGrid(new Rectangle2D.Double(10, 10, 200, 100), 100, 
+                50, rgb);
+        String content = content();
+        assertTrue(content.contains("/Sh1 sh"));
+        assertTrue(content.indexOf(" sh") == content.lastIndexOf(" sh"));
+        String pdf = toString(this.pdfDoc.getPDFBytes());
+        assertTrue(pdf.contains("/ShadingType 4"));
+        assertTrue(pdf.contains("/Shading << /Sh1"));
+    }
+
+    @Test
+    public void checkFillColorLattice() {
+        this.g2.fillColorLattice(new Rectangle2D.Double(0, 0, 10, 10), 2, 2, 
+                new int[] {0xFF0000, 0x00FF00, 0x0000FF, 0xFFFFFF});
+        assertTrue(content().contains("/Sh1 sh"));
+        String pdf = toString(this.pdfDoc.getPDFBytes());
+        assertTrue(pdf.contains("/ShadingType 5"));
+        assertTrue(pdf.contains("/VerticesPerRow 2"));
+        // streams are not compressed in debug mode
+        assertFalse(pdf.contains("/Filter"));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void checkFillColorTrianglesRequiresCompleteTriangles() {
+        this.g2.fillColorTriangles(new double[] {0, 0, 1, 1}, 
+                new int[] {0, 0}, 2);
+    }
+    
+    @Test
+    public void checkDrawPolylineMatchesPath() {
+        // 0.015 and 2.675 are just below the tie in binary, 0.125 is exact
+        double[] xs = new double[] {1.0, 2.5, 3.125, -4.0, 0.015};
+        double[] ys = new double[] {0.0, 10.0, -0.004, 7.777, 2.675};
+        this.g2.drawPolyline(xs, ys, 5);
+        String bulk = content();
+        setUp();
+        Path2D path = new Path2D.Double();
+        path.moveTo(xs[0], ys[0]);
+        for (int i = 1; i < 5; i++) {
+            path.lineTo(xs[i], ys[i]);
+        }
+        this.g2.draw(path);
+        assertEquals(content(), bulk);
+        assertTrue(bulk.contains("0.01 2.67 l\n"));
+    }
+    
+    @Test
+    public void checkFillRectsWritesOnePath() {
+        this.g2.fillRects(new double[] {0, 0, 10, 20, 15, 0, 10, 25.5}, 2);
+        String content = content();
+        assertTrue(content.contains("0 0 10 20 re\n15 0 10 25.5 re\nf\n"));
+    }
+    
+    @Test
+    public void checkFillMarkers() {
+        this.g2.fillMarkers(new Rectangle2D.Double(-1, -1, 2, 2), 
+                new double[] {10, 20}, new double[] {5, 5}, 2);
+        String content = content();
+        assertTrue(content.contains("9 4 m\n"));
+        assertTrue(content.contains("19 4 m\n"));
+        assertTrue(content.indexOf("f\n") == content.lastIndexOf("f\n"));
+    }
+    
+    @Test
+    public void checkSetARGB() {
+        this.g2.setARGB(0xFFFF0000);
+        String content = content();
+        assertTrue(content.endsWith("1.0 0.0 0.0 rg\n"));
+        this.g2.setARGB(0xFFFF0000);
+        assertEquals(content, content());
+        assertEquals(Color.RED, this.g2.getColor());
+    }
+    
+    @Test
+    public void checkContentWriter() {
+        ContentWriter w = this.page.getContentWriter();
+        w.setFillRGB(0x00FF00);
+        w.moveTo(1, 2);
+        w.lineTo(3.5, 4);
+        w.fill();
+        w.beginText();
+        w.setFont(new Font("Dialog", Font.PLAIN, 12), 12);
+        w.moveText(10, 20);
+        w.showText("a(b)\\");
+        w.endText();
+        String content = content();
+        assertTrue(content.endsWith("0.0 1.0 0.0 rg\n1 2 m\n3.5 4 l\nf\n"
+                + "BT\n/F1-Dialog 12 Tf\n10 20 Td\n(a\\(b\\)\\\\) Tj\n"
+                + "ET\n"));
+        String pdf = toString(this.pdfDoc.getPDFBytes());
+        assertTrue(pdf.contains("/Font << /F1-Dialog"));
+    }
+    
+    @Test
+    public void checkDrawParagraph() {
+        this.g2.setFont(new Font("Monospaced", Font.PLAIN, 10));
+        this.g2.drawParagraph("one two three", 10f, 20f, 45f);
+        String content = content();
+        assertTrue(content.contains(" TL 10 20 Td\n"));
+        assertTrue(content.endsWith("(one two) Tj\nT* (three) Tj\nET\n"));
+    }
+    
+    @Test
+    public void checkCulling() {
+        this.g2.setRenderingHint(PDFHints.KEY_CULLING, 
+                PDFHints.VALUE_CULLING_ON);
+        String before = content();
+        this.g2.setPaint(new GradientPaint(0f, 0f, Color.RED, 10f, 0f, 
+                Color.BLUE));
+        this.g2.fill(new Rectangle2D.Double(400, 10, 20, 20));
+        this.g2.drawString("ABC", 10, -50);
+        this.g2.fillColorTriangles(new double[] {400, 10, 420, 10, 410, 30}, 
+                new int[3], 3);
+        this.g2.drawImage(new BufferedImage(5, 5, BufferedImage.TYPE_INT_RGB),
+                -20, 10, null);
+        this.g2.setClip(0, 0, 50, 50);
+        this.g2.draw(new Line2D.Double(60, 60, 100, 100));
+        assertEquals(before, content());
+        this.g2.fill(new Rectangle2D.Double(40, 40, 20, 20));
+        assertTrue(content().contains("/P1 scn"));
+    }
+    
+    @Test
+    public void checkRectangularClipIsWrittenAsRectangle() {
+        this.g2.translate(10, 20);
+        this.g2.setClip(new Rectangle2D.Double(0, 0, 50, 40));
+        this.g2.clipRect(10, 5, 100, 10);
+        assertEquals(new Rectangle2D.Double(10, 5, 40, 10), this.g2.getClip());
+        assertTrue(this.g2.getClip() instanceof Rectangle2D);
+        this.g2.fill(new Rectangle2D.Double(0, 0, 5, 5));
+        assertTrue(content().contains("q\n10 5 40 10 re\nW n\n"));
+    }
+    
+    @Test
+    public void checkMultipleContentStreams() {
+        PDFGraphics2D top = this.page.createGraphics2D(1);
+        PDFGraphics2D bottom = this.page.createGraphics2D(-1);
+        top.drawString("Top", 10, 10);
+        bottom.drawString("Bottom", 10, 10);
+        this.g2.drawString("Middle", 10, 10);
+        this.page.compressContent(top);
+        List<GraphicsStream> streams = this.page.getContentStreams();
+        assertEquals(3, streams.size());
+        assertEquals(this.page.getContents(), streams.get(1));
+        String pdf = toString(this.pdfDoc.getPDFBytes());
+        int bottomPos = pdf.indexOf("(Bottom) Tj");
+        int middlePos = pdf.indexOf("(Middle) Tj");
+        int topPos = pdf.indexOf("(Top) Tj");
+        assertTrue(bottomPos < middlePos && middlePos < topPos);
+        assertTrue(pdf.contains("/Contents [" + streams.get(0).getReference()
+                + " " + streams.get(1).getReference() + " " 
+                + streams.get(2).getReference() + "]"));
+        assertTrue(content().startsWith("q\n"));
+        assertTrue(content().endsWith("Q\n"));
+    }
+
+}
@@ -0,0 +1,113 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ASCII85Encoder} class.
+ */
+public class TestASCII85Encoder {
+    
+    private static byte[] encodeWithStream(byte[] data) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Ascii85OutputStream out = new Ascii85OutputStream(baos);
+        out.write(data);
+        out.flush();
+        out.close();
+        return baos.toByteArray();
+    }
+    
+    private static byte[] createData(Random random, int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        // include some runs of zeros (encoded as 'z')
+        for (int i = 0; i < length; i += 37) {
+            for (int j = i; j < Math.min(length, i + 9); j++) {
+                data[j] = 0;
+            }
+        }
+        return data;
+    }
+    
+    /**
+     * The bulk encoder should give the same output as 
+     * {@code Ascii85OutputStream} for all lengths (and partial groups).
+     */
+    @Test
+    public void checkSameAsOutputStream() throws IOException {
+        Random random = new Random(1L);
+        for (int length = 0; length < 600; length++) {
+            byte[] data = createData(random, length);
+            assertArrayEquals(encodeWithStream(data), 
+                    ASCII85Encoder.encode(data));
+        }
+    }
+    
+    @Test
+    public void checkByteBuffer() throws IOException {
+        byte[] data = createData(new Random(2L), 20001);
+        byte[] expected = encodeWithStream(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        assertArrayEquals(expected, ASCII85Encoder.encode(direct));
+        assertArrayEquals(expected, ASCII85Encoder.encode(
+                ByteBuffer.wrap(data)));
+    }
+    
+    @Test
+    public void checkWrap() throws IOException {
+        byte[] data = createData(new Random(3L), 20001);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStream out = new ASCII85Filter().wrap(baos);
+        // odd-sized writes leave partial groups between calls
+        int offset = 0;
+        int n = 1;
+        while (offset < data.length) {
+            int len = Math.min(n, data.length - offset);
+            out.write(data, offset, len);
+            offset += len;
+            n = n * 3 + 1;
+        }
+        out.close();
+        assertArrayEquals(encodeWithStream(data), baos.toByteArray());
+    }
+
+}
@@ -0,0 +1,128 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+package com.orsonpdf.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link FlateFilter} class.
+ */
+public class TestFlateFilter {
+    
+    private static byte[] createData(int length) {
+        // something like page content: repetitive but not trivial
+        Random random = new Random(42L);
+        StringBuilder b = new StringBuilder();
+        while (b.length() < length) {
+            b.append(random.nextInt(600)).append(' ')
+                    .append(random.nextInt(800)).append(" l\n");
+        }
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte) b.charAt(i);
+        }
+        return result;
+    }
+    
+    private static byte[] inflate(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        while (!inflater.finished()) {
+            int n = inflater.inflate(buffer);
+            if (n == 0 && inflater.needsInput()) {
+                throw new DataFormatException("Truncated stream.");
+            }
+            out.write(buffer, 0, n);
+        }
+        inflater.end();
+        return out.toByteArray();
+    }
+    
+    @Test
+    public void checkEncode() throws DataFormatException {
+        byte[] data = createData(10000);
+        assertArrayEquals(data, inflate(new FlateFilter().encode(data)));
+    }
+    
+    @Test
+    public void checkParallelEncode() throws DataFormatException {
+        byte[] data = createData(1000003);
+        FlateFilter filter = new FlateFilter();
+        filter.setParallelThreshold(100000);
+        // the Inflater verifies the combined Adler-32 checksum
+        assertArrayEquals(data, inflate(filter.encode(data)));
+    }
+
+    @Test
+    public void checkPooledEncode() throws DataFormatException {
+        byte[] data = createData(10000);
+        FlateFilter unpooled = new FlateFilter();
+        unpooled.setDeflaterPool(null);
+        byte[] expected = unpooled.encode(data);
+        DeflaterPool pool = new DeflaterPool(1);
+        FlateFilter filter = new FlateFilter(9, Deflater.FILTERED);
+        filter.setDeflaterPool(pool);
+        assertArrayEquals(data, inflate(filter.encode(data)));
+        // the pooled deflater is reused with different settings
+        FlateFilter filter2 = new FlateFilter();
+        filter2.setDeflaterPool(pool);
+        assertArrayEquals(expected, filter2.encode(data));
+        assertArrayEquals(expected, filter2.encode(data));
+        pool.clear();
+    }
+
+    @Test
+    public void checkWrap() throws IOException {
+        byte[] data = createData(100000);
+        FlateFilter flate = new FlateFilter();
+        ASCII85Filter ascii85 = new ASCII85Filter();
+        byte[] expected = ascii85.encode(flate.encode(data));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStream out = flate.wrap(ascii85.wrap(baos));
+        out.write(data, 0, 5000);
+        out.write(data, 5000, data.length - 5000);
+        out.close();
+        assertArrayEquals(expected, baos.toByteArray());
+    }
+
+}
@@ -0,0 +1,99 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.font;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import java.awt.Font;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link StandardFont} and {@link StandardFontMetrics} 
+ * classes.
+ */
+public class TestStandardFont {
+    
+    @Test
+    public void checkWidths() {
+        StandardFont helvetica = StandardFont.getInstance("Helvetica");
+        assertEquals(667, helvetica.getWidth('A'));
+        assertEquals(278, helvetica.getWidth(' '));
+        assertEquals(556, helvetica.getWidth('\u20AC'));
+        assertEquals(556, helvetica.getWidth('\u00E9')); // as 'e'
+        assertEquals(278, helvetica.getWidth('\u00ED')); // as dotless i
+        assertEquals(556, helvetica.getWidth('\u4E2D')); // written as '?'
+        assertEquals(2278, helvetica.getWidth("Hello"));
+        assertEquals(600, StandardFont.getInstance("/Courier-Bold")
+                .getWidth('W'));
+        assertEquals(StandardFont.getInstance("Courier-Oblique"), 
+                StandardFont.getInstance("Courier-Italic"));
+        assertNull(StandardFont.getInstance("Symbol"));
+        assertNull(StandardFont.getInstance(null));
+    }
+    
+    @Test
+    public void checkFontMetrics() {
+        Font font = new Font("Dialog", Font.PLAIN, 10);
+        StandardFontMetrics fm = new StandardFontMetrics(font, 
+                StandardFont.getInstance("Helvetica"));
+        assertEquals(23, fm.stringWidth("Hello"));
+        assertEquals(7, fm.getAscent());
+        assertEquals(2, fm.getDescent());
+        assertEquals(22.78, fm.getStringBounds("Hello", null).getWidth(), 
+                0.0001);
+    }
+    
+    @Test
+    public void checkSerialization() throws Exception {
+        StandardFontMetrics fm = new StandardFontMetrics(
+                new Font("Dialog", Font.PLAIN, 10), 
+                StandardFont.getInstance("Courier-Italic"));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(fm);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(buffer.toByteArray()));
+        StandardFontMetrics copy = (StandardFontMetrics) in.readObject();
+        in.close();
+        assertSame(fm.getStandardFont(), copy.getStandardFont());
+        assertEquals(30, copy.stringWidth("Hello"));
+    }
+
+}
@@ -0,0 +1,120 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.font;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link TrueTypeFontProgram} class.  These use a subset of
+ * DejaVu Sans that is bundled with the tests.
+ */
+public class TestTrueTypeFontProgram {
+    
+    /** 
+     * The resource name of the bundled TrueType font (a subset of DejaVu 
+     * Sans, see DejaVuSans-LICENSE.txt). 
+     */
+    public static final String DEJAVU_SANS 
+            = "/com/orsonpdf/font/DejaVuSans-subset.ttf";
+    
+    private TrueTypeFontProgram program;
+    
+    @Before
+    public void setUp() throws IOException {
+        InputStream in = getClass().getResourceAsStream(DEJAVU_SANS);
+        try {
+            this.program = TrueTypeFontProgram.load(in);
+        } finally {
+            in.close();
+        }
+    }
+    
+    @Test
+    public void checkMetrics() {
+        assertEquals("DejaVuSans", this.program.getPostScriptName());
+        assertEquals(2048, this.program.getUnitsPerEm());
+        int glyphA = this.program.getGlyphId('A');
+        assertTrue(glyphA > 0);
+        assertEquals(0, this.program.getGlyphId(0xE000)); // private use
+        assertTrue(this.program.getScaledAdvanceWidth(glyphA) > 500);
+    }
+    
+    @Test
+    public void checkSupplementaryCharacters() {
+        // Old Italic, from the format 12 character map
+        assertTrue(this.program.getGlyphId(0x10300) > 0);
+        assertEquals(0, this.program.getGlyphId(0x10FFFF));
+    }
+    
+    @Test
+    public void checkSubset() throws IOException, FontFormatException {
+        String text = "Hello \u00C5ngstr\u00F6m";
+        BitSet glyphs = new BitSet();
+        Map<Integer, Integer> cmap = new HashMap<Integer, Integer>();
+        for (int i = 0; i < text.length(); i++) {
+            int g = this.program.getGlyphId(text.charAt(i));
+            glyphs.set(g);
+            cmap.put(Integer.valueOf(text.charAt(i)), Integer.valueOf(g));
+        }
+        byte[] subset = this.program.subset(glyphs, cmap);
+        assertTrue(subset.length < 20000);
+        
+        // the subset is a valid font with the same glyph indices...
+        TrueTypeFontProgram p = new TrueTypeFontProgram(subset);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int g = this.program.getGlyphId(c);
+            assertEquals(g, p.getGlyphId(c));
+            assertEquals(this.program.getAdvanceWidth(g), 
+                    p.getAdvanceWidth(g));
+        }
+        assertEquals(0, p.getGlyphId('z'));
+        // ...that Java can load
+        Font font = Font.createFont(Font.TRUETYPE_FONT, 
+                new ByteArrayInputStream(subset));
+        assertTrue(font.canDisplay('H'));
+    }
+
+}
@@ -0,0 +1,71 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link FontMetricsCache} class.
+ */
+public class TestFontMetricsCache {
+    
+    private static final FontRenderContext FRC = new FontRenderContext(
+            null, false, true);
+    
+    @Test
+    public void checkCaching() {
+        FontMetricsCache cache = new FontMetricsCache(2);
+        Font f1 = new Font("Dialog", Font.PLAIN, 10);
+        LineMetrics lm = cache.getLineMetrics(f1, FRC);
+        assertEquals(f1.getLineMetrics("Test", FRC).getAscent(), 
+                lm.getAscent(), 0.0001f);
+        assertSame(lm, cache.getLineMetrics(f1, FRC));
+        assertSame(cache.getFontMetrics(f1), cache.getFontMetrics(f1));
+        assertEquals(f1.getStringBounds("Test", FRC).getWidth(), 
+                cache.getAdvance(f1, FRC, "Test"), 0.01);
+        
+        // the least recently used font is evicted
+        cache.getLineMetrics(f1.deriveFont(11f), FRC);
+        cache.getLineMetrics(f1.deriveFont(12f), FRC);
+        assertEquals(2, cache.size());
+        assertNotSame(lm, cache.getLineMetrics(f1, FRC));
+    }
+
+}
@@ -0,0 +1,78 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.util;
+
+import static org.junit.Assert.assertEquals;
+import com.orsonpdf.font.StandardFont;
+import com.orsonpdf.font.StandardFontMetrics;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ParagraphLayout} class.
+ */
+public class TestParagraphLayout {
+    
+    /** Metrics with a width of 6 for every character. */
+    private static final FontMetrics COURIER = new StandardFontMetrics(
+            new Font("Monospaced", Font.PLAIN, 10), 
+            StandardFont.getInstance("Courier"));
+    
+    @Test
+    public void checkLineBreaks() {
+        ParagraphLayout layout = ParagraphLayout.layout(
+                "aaa bbb cc dddddddddd", COURIER, 45f);
+        assertEquals(4, layout.getLineCount());
+        assertEquals("aaa bbb", layout.getLine(0));
+        assertEquals(42f, layout.getLineWidth(0), 0.0001f);
+        assertEquals("cc", layout.getLine(1));
+        assertEquals(12f, layout.getLineWidth(1), 0.0001f);
+        assertEquals("ddddddd", layout.getLine(2)); // broken mid-word
+        assertEquals("ddd", layout.getLine(3));
+        assertEquals(4 * COURIER.getHeight(), layout.getHeight(), 0.0001f);
+    }
+    
+    @Test
+    public void checkLineFeeds() {
+        ParagraphLayout layout = ParagraphLayout.layout("x \n\ny", COURIER, 
+                100f);
+        assertEquals(3, layout.getLineCount());
+        assertEquals("x", layout.getLine(0));
+        assertEquals(6f, layout.getLineWidth(0), 0.0001f);
+        assertEquals("", layout.getLine(1));
+        assertEquals("y", layout.getLine(2));
+    }
+
+}
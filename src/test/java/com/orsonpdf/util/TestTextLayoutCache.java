@@ -0,0 +1,76 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link TextLayoutCache} class.
+ */
+public class TestTextLayoutCache {
+    
+    private static final FontRenderContext FRC = new FontRenderContext(
+            null, false, true);
+    
+    private static AttributedString text(String s, float size) {
+        AttributedString as = new AttributedString(s);
+        as.addAttribute(TextAttribute.FONT, new Font("Dialog", Font.PLAIN, 
+                (int) size));
+        return as;
+    }
+    
+    @Test
+    public void checkCaching() {
+        TextLayoutCache cache = new TextLayoutCache(8);
+        TextLayout layout = cache.getTextLayout(text("ABC", 10f)
+                .getIterator(), FRC);
+        assertSame(layout, cache.getTextLayout(text("ABC", 10f)
+                .getIterator(), FRC));
+        assertNotSame(layout, cache.getTextLayout(text("ABC", 12f)
+                .getIterator(), FRC));
+        assertNotSame(layout, cache.getTextLayout(text("ABD", 10f)
+                .getIterator(), FRC));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+}
@@ -0,0 +1,65 @@
+/* =====================================================================
+ * OrsonPDF : a fast, light-weight PDF library for the Java(tm) platform
+ * =====================================================================
+ * 
+ * (C)opyright 2013-2017, by Object Refinery Limited.  All rights reserved.
+ *
+ * Project Info:  http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates. 
+ * Other names may be trademarks of their respective owners.]
+ * 
+ * If you do not wish to be bound by the terms of the GPL, an alternative
+ * commercial license can be purchased.  For details, please see visit the
+ * Orson PDF home page:
+ * 
+ * http://www.object-refinery.com/orsonpdf/index.html
+ * 
+ */
+
+
+package com.orsonpdf.util;
+
+import static org.junit.Assert.assertEquals;
+import com.orsonpdf.PDFDocument;
+import com.orsonpdf.PDFGraphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link TextUtils} class.
+ */
+public class TestTextUtils {
+    
+    @Test
+    public void checkMeasurementCache() {
+        TextUtils.clearCache();
+        PDFDocument pdfDoc = new PDFDocument();
+        PDFGraphics2D g2 = pdfDoc.createPage(new Rectangle(200, 100))
+                .getGraphics2D();
+        Rectangle2D b1 = TextUtils.drawAlignedString("25", g2, 50f, 50f, 
+                TextAnchor.CENTER);
+        Rectangle2D b2 = TextUtils.drawAlignedString("25", g2, 50f, 50f, 
+                TextAnchor.CENTER);
+        TextUtils.drawRotatedString("25", g2, 50f, 50f, TextAnchor.TOP_LEFT,
+                Math.PI / 2, TextAnchor.CENTER);
+        assertEquals(b1, b2);
+        assertEquals(1, TextUtils.getCacheMissCount());
+        assertEquals(3, TextUtils.getCacheHitCount());
+    }
+
+}